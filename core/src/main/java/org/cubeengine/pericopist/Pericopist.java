@@ -26,11 +26,25 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,21 +55,28 @@ import org.cubeengine.pericopist.extractor.ExtractorConfiguration;
 import org.cubeengine.pericopist.extractor.MessageExtractor;
 import org.cubeengine.pericopist.format.CatalogConfiguration;
 import org.cubeengine.pericopist.format.CatalogFormat;
+import org.cubeengine.pericopist.format.LocaleCatalogConfiguration;
+import org.cubeengine.pericopist.format.LocaleCatalogFormat;
 import org.cubeengine.pericopist.message.MessageStore;
 
 /**
- * This class is the main class of the project. It shall be used to generate or update a message catalog
+ * This class is the main class of the project. It shall be used to generate or update message catalogs.
+ * The messages are extracted once and written into every configured catalog.
  */
 @SuppressWarnings("unused")
 public class Pericopist
 {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
     private final Logger logger;
 
     private final ExtractorConfiguration extractorConfiguration;
-    private final CatalogConfiguration catalogConfiguration;
+    private final CatalogConfiguration[] catalogConfigurations;
 
     private final MessageExtractor messageExtractor;
-    private final CatalogFormat catalogFormat;
+    private final CatalogFormat[] catalogFormats;
+
+    private final Map<File, CatalogDigest> catalogDigests;
 
     /**
      * The constructor creates a new pericopist instance
@@ -80,14 +101,37 @@ public class Pericopist
      * @throws PericopistException if the {@link org.cubeengine.pericopist.extractor.MessageExtractor} or the {@link org.cubeengine.pericopist.format.CatalogFormat} couldn't be created.
      */
     public Pericopist(ExtractorConfiguration extractorConfiguration, CatalogConfiguration catalogConfiguration, Logger logger) throws PericopistException
+    {
+        this(extractorConfiguration, new CatalogConfiguration[]{catalogConfiguration}, logger);
+    }
+
+    /**
+     * The constructor creates a new pericopist instance which writes the extracted messages into multiple catalogs
+     *
+     * @param extractorConfiguration configuration of the extractor
+     * @param catalogConfigurations  configurations of the catalogs
+     * @param logger                 logger which shall be used
+     *
+     * @throws PericopistException if the {@link org.cubeengine.pericopist.extractor.MessageExtractor} or a {@link org.cubeengine.pericopist.format.CatalogFormat} couldn't be created.
+     */
+    public Pericopist(ExtractorConfiguration extractorConfiguration, CatalogConfiguration[] catalogConfigurations, Logger logger) throws PericopistException
     {
         this.logger = logger == null ? Logger.getLogger("pericopist") : logger;
+        this.catalogDigests = new ConcurrentHashMap<>();
+
+        if (catalogConfigurations.length == 0)
+        {
+            throw new PericopistException("At least one catalog configuration is needed.");
+        }
 
         this.extractorConfiguration = extractorConfiguration;
-        this.catalogConfiguration = catalogConfiguration;
+        this.catalogConfigurations = catalogConfigurations.clone();
 
         this.extractorConfiguration.validate();
-        this.catalogConfiguration.validate();
+        for (CatalogConfiguration catalogConfiguration : this.catalogConfigurations)
+        {
+            catalogConfiguration.validate();
+        }
 
         try
         {
@@ -99,14 +143,19 @@ public class Pericopist
             throw new PericopistException("Could not create a MessageExtractor instance of '" + extractorConfiguration.getExtractorClass().getName() + "'.", e);
         }
 
-        try
-        {
-            this.catalogFormat = catalogConfiguration.getCatalogFormatClass().newInstance();
-            this.catalogFormat.setLogger(this.logger);
-        }
-        catch (Exception e)
+        this.catalogFormats = new CatalogFormat[this.catalogConfigurations.length];
+        for (int i = 0; i < this.catalogConfigurations.length; i++)
         {
-            throw new PericopistException("Could not create a CatalogFormat instance of '" + catalogConfiguration.getCatalogFormatClass().getName() + "'.", e);
+            Class<? extends CatalogFormat> catalogFormatClass = this.catalogConfigurations[i].getCatalogFormatClass();
+            try
+            {
+                this.catalogFormats[i] = catalogFormatClass.newInstance();
+                this.catalogFormats[i].setLogger(this.logger);
+            }
+            catch (Exception e)
+            {
+                throw new PericopistException("Could not create a CatalogFormat instance of '" + catalogFormatClass.getName() + "'.", e);
+            }
         }
     }
 
@@ -131,65 +180,269 @@ public class Pericopist
     }
 
     /**
-     * This method returns the {@link org.cubeengine.pericopist.format.CatalogConfiguration} which is used by this class
+     * This method returns the first {@link org.cubeengine.pericopist.format.CatalogConfiguration} which is used by this class
      *
      * @return {@link org.cubeengine.pericopist.format.CatalogConfiguration}
      */
     public CatalogConfiguration getCatalogConfiguration()
     {
-        return this.catalogConfiguration;
+        return this.catalogConfigurations[0];
     }
 
     /**
-     * This method returns the {@link org.cubeengine.pericopist.format.CatalogConfiguration} which is used by this class
+     * This method returns every {@link org.cubeengine.pericopist.format.CatalogConfiguration} which is used by this class
+     *
+     * @return {@link org.cubeengine.pericopist.format.CatalogConfiguration} array
+     */
+    public CatalogConfiguration[] getCatalogConfigurations()
+    {
+        return this.catalogConfigurations.clone();
+    }
+
+    /**
+     * This method returns the {@link org.cubeengine.pericopist.format.CatalogFormat} of the first catalog configuration
      *
      * @return {@link org.cubeengine.pericopist.format.CatalogFormat}
      */
     public CatalogFormat getCatalogFormat()
     {
-        return this.catalogFormat;
+        return this.catalogFormats[0];
+    }
+
+    /**
+     * This method returns the {@link org.cubeengine.pericopist.format.CatalogFormat} of every catalog configuration.
+     * The formats have the same order like the catalog configurations.
+     *
+     * @return {@link org.cubeengine.pericopist.format.CatalogFormat} array
+     */
+    public CatalogFormat[] getCatalogFormats()
+    {
+        return this.catalogFormats.clone();
     }
 
     /**
-     * This method generates a completely new message catalog. It overrides the existing file without to read it.
+     * This method generates completely new message catalogs. It overrides the existing files without to read them.
      *
-     * @throws PericopistException if the extraction of the message or the creation of the new message catalog fails
+     * @throws PericopistException if the extraction of the message or the creation of a new message catalog fails
      */
     public void generateCatalog() throws PericopistException
     {
-        this.generateCatalog(new MessageStore());
+        this.createCatalogs(this.parseSourceCode(new MessageStore()), false);
     }
 
     /**
-     * This method generates a new message catalog using the specified {@link org.cubeengine.pericopist.message.MessageStore} to handle the messages
+     * This method writes the extracted messages into every catalog. The catalogs are created in parallel.
+     * <p/>
+     * The specified message store is shared by the catalogs and isn't changed. If the catalogs are updated,
+     * the messages of every old catalog are read into an own message store which gets the extracted messages.
      *
-     * @param messageStore message store which shall store the messages
+     * @param messageStore message store containing the extracted messages
+     * @param update       whether the existing catalogs shall be updated
      *
-     * @throws PericopistException if the extraction of the message or the creation of the new message catalog fails
+     * @throws PericopistException if the creation of a message catalog fails
      */
-    private void generateCatalog(final MessageStore messageStore) throws PericopistException
+    private void createCatalogs(final MessageStore messageStore, final boolean update) throws PericopistException
     {
-        this.createCatalog(this.parseSourceCode(messageStore));
+        List<Callable<Void>> tasks = new ArrayList<>(this.catalogConfigurations.length);
+        for (int i = 0; i < this.catalogConfigurations.length; i++)
+        {
+            final CatalogConfiguration catalogConfiguration = this.catalogConfigurations[i];
+            final CatalogFormat catalogFormat = this.catalogFormats[i];
+
+            tasks.add(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    Pericopist.this.createCatalog(catalogConfiguration, catalogFormat, messageStore, update);
+                    return null;
+                }
+            });
+        }
+
+        this.runTasks(tasks, tasks.size(), "A catalog couldn't be created.");
     }
 
     /**
-     * This method updates a message catalog. It reads the existing file if it exists and extracts the new messages from the project
-     * with a {@link org.cubeengine.pericopist.message.MessageStore} containing the messages from the old catalog.
+     * This method writes the extracted messages into the catalog of the specified configuration and merges
+     * the catalogs of its locales afterwards.
      *
-     * @throws PericopistException if the extraction of the message or the creation of the new message catalog fails
+     * @param catalogConfiguration configuration of the catalog
+     * @param catalogFormat        format of the catalog
+     * @param messageStore         message store containing the extracted messages
+     * @param update               whether the existing catalog shall be updated
+     *
+     * @throws PericopistException if the creation of the message catalog fails
      */
-    public void updateCatalog() throws PericopistException
+    private void createCatalog(final CatalogConfiguration catalogConfiguration, final CatalogFormat catalogFormat, MessageStore messageStore, boolean update) throws PericopistException
     {
-        MessageStore messageStore = null;
-        if (this.catalogConfiguration.getTemplateFile().exists())
+        MessageStore catalogMessageStore = messageStore;
+        if (update && catalogConfiguration.getTemplateFile().exists())
+        {
+            catalogMessageStore = this.readCatalog(catalogConfiguration, catalogFormat, catalogConfiguration.getTemplateFile());
+            catalogMessageStore.addMessages(messageStore);
+        }
+
+        final MessageStore writtenMessageStore = catalogMessageStore;
+        this.createCatalog(catalogConfiguration.getTemplateFile(), new CatalogWriter()
+        {
+            @Override
+            public boolean write(OutputStream outputStream) throws CatalogFormatException
+            {
+                return catalogFormat.write(catalogConfiguration, outputStream, writtenMessageStore);
+            }
+        });
+
+        this.mergeLocaleCatalogs(catalogConfiguration, catalogFormat, messageStore);
+    }
+
+    /**
+     * This method merges the catalogs of the locales with the messages of the template.
+     * The catalogs are merged in parallel if the configuration allows multiple threads.
+     * Nothing is done if the catalog format or its configuration doesn't support locales.
+     *
+     * @param catalogConfiguration configuration of the catalog
+     * @param catalogFormat        format of the catalog
+     * @param messageStore         message store containing the messages of the template
+     *
+     * @throws PericopistException if a catalog of a locale couldn't be merged
+     */
+    private void mergeLocaleCatalogs(final CatalogConfiguration catalogConfiguration, final CatalogFormat catalogFormat, final MessageStore messageStore) throws PericopistException
+    {
+        if (!(catalogFormat instanceof LocaleCatalogFormat) || !(catalogConfiguration instanceof LocaleCatalogConfiguration))
+        {
+            return;
+        }
+
+        LocaleCatalogConfiguration configuration = (LocaleCatalogConfiguration) catalogConfiguration;
+        File[] localeFiles = configuration.getLocaleFiles();
+
+        List<Callable<Void>> tasks = new ArrayList<>(localeFiles.length);
+        for (final File localeFile : localeFiles)
+        {
+            tasks.add(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    Pericopist.this.mergeLocaleCatalog(catalogConfiguration, (LocaleCatalogFormat) catalogFormat, localeFile, messageStore);
+                    return null;
+                }
+            });
+        }
+
+        this.runTasks(tasks, configuration.getMergeThreadCount(), "The catalog of a locale couldn't be merged.");
+    }
+
+    /**
+     * This method runs the specified tasks with the specified amount of threads and waits for them.
+     * The tasks are run by the current thread if only one thread shall be used.
+     *
+     * @param tasks        the tasks
+     * @param threadCount  maximum amount of threads
+     * @param errorMessage message of the exception which is thrown if a task fails with an unexpected exception
+     *
+     * @throws PericopistException if a task failed
+     */
+    private void runTasks(List<Callable<Void>> tasks, int threadCount, String errorMessage) throws PericopistException
+    {
+        threadCount = Math.min(threadCount, tasks.size());
+        if (threadCount <= 1)
+        {
+            for (Callable<Void> task : tasks)
+            {
+                try
+                {
+                    task.call();
+                }
+                catch (PericopistException e)
+                {
+                    throw e;
+                }
+                catch (Exception e)
+                {
+                    throw new PericopistException(errorMessage, e);
+                }
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<>(tasks.size());
+            for (Callable<Void> task : tasks)
+            {
+                futures.add(executor.submit(task));
+            }
+
+            for (Future<Void> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    if (e.getCause() instanceof PericopistException)
+                    {
+                        throw (PericopistException) e.getCause();
+                    }
+                    throw new PericopistException(errorMessage, e.getCause());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new PericopistException(errorMessage, e);
+                }
+            }
+        }
+        finally
         {
-            messageStore = this.readCatalog();
+            executor.shutdownNow();
         }
-        if (messageStore == null)
+    }
+
+    /**
+     * This method merges the catalog of a locale with the messages of the template.
+     * It reads the catalog of the locale and replaces it with the merged one.
+     *
+     * @param catalogConfiguration configuration of the catalog
+     * @param catalogFormat        format of the catalog
+     * @param localeFile           catalog file of the locale
+     * @param messageStore         message store containing the messages of the template
+     *
+     * @throws PericopistException if the catalog of the locale couldn't be merged
+     */
+    private void mergeLocaleCatalog(final CatalogConfiguration catalogConfiguration, final LocaleCatalogFormat catalogFormat, File localeFile, final MessageStore messageStore) throws PericopistException
+    {
+        if (!localeFile.exists())
         {
-            messageStore = new MessageStore();
+            this.logger.warning("The catalog of the locale in '" + localeFile.getAbsolutePath() + "' doesn't exist.");
+            return;
         }
-        this.generateCatalog(messageStore);
+
+        final MessageStore localeMessageStore = this.readCatalog(catalogConfiguration, catalogFormat, localeFile);
+
+        this.createCatalog(localeFile, new CatalogWriter()
+        {
+            @Override
+            public boolean write(OutputStream outputStream) throws CatalogFormatException
+            {
+                return catalogFormat.writeLocale(catalogConfiguration, outputStream, localeMessageStore, messageStore);
+            }
+        });
+    }
+
+    /**
+     * This method updates the message catalogs. It extracts the new messages from the project and adds them to
+     * the messages of every existing catalog.
+     *
+     * @throws PericopistException if the extraction of the message or the creation of a new message catalog fails
+     */
+    public void updateCatalog() throws PericopistException
+    {
+        this.createCatalogs(this.parseSourceCode(new MessageStore()), true);
     }
 
     /**
@@ -208,24 +461,43 @@ public class Pericopist
     }
 
     /**
-     * This method reads the messages of a message catalog.
-     * It creates a {@link java.io.FileInputStream} and locks it for other accesses, reads the messages and releases the file.
+     * This method reads the messages of the message catalog of the first catalog configuration.
      *
      * @return a message store containing the messages which were read from the message catalog
      *
      * @throws PericopistException if the reading fails
      */
     private MessageStore readCatalog() throws PericopistException
+    {
+        return this.readCatalog(this.getCatalogConfiguration(), this.getCatalogFormat(), this.getCatalogConfiguration().getTemplateFile());
+    }
+
+    /**
+     * This method reads the messages of the specified message catalog.
+     * It creates a {@link java.io.FileInputStream} and locks it for other accesses, reads the messages and releases the file.
+     *
+     * @param catalogConfiguration configuration of the catalog
+     * @param catalogFormat        format of the catalog
+     * @param catalogFile          the file of the message catalog
+     *
+     * @return a message store containing the messages which were read from the message catalog
+     *
+     * @throws PericopistException if the reading fails
+     */
+    private MessageStore readCatalog(CatalogConfiguration catalogConfiguration, CatalogFormat catalogFormat, File catalogFile) throws PericopistException
     {
         MessageStore messageStore;
         try
         {
-            try (FileInputStream fileInputStream = new FileInputStream(this.catalogConfiguration.getTemplateFile()))
+            try (FileInputStream fileInputStream = new FileInputStream(catalogFile))
             {
                 FileChannel channel = fileInputStream.getChannel();
                 FileLock lock = channel.lock(0L, Long.MAX_VALUE, true);
 
-                messageStore = this.catalogFormat.read(this.catalogConfiguration, fileInputStream);
+                // the digest of the catalog is calculated while it's read
+                DigestInputStream digestInputStream = new DigestInputStream(fileInputStream, this.createMessageDigest());
+                messageStore = catalogFormat.read(catalogConfiguration, digestInputStream);
+                this.catalogDigests.put(catalogFile.getAbsoluteFile(), new CatalogDigest(catalogFile, this.digest(digestInputStream)));
 
                 if (channel.isOpen())
                 {
@@ -242,16 +514,17 @@ public class Pericopist
     }
 
     /**
-     * This method creates a new message catalog containing the messages from the specified message store.
+     * This method creates a message catalog with the specified catalog writer.
      * <p/>
      * Therefore it creates a new temporary file and writes all the data in that file. After the file was written successfully,
      * it will be moved to the specified location and replaces the existing message catalog.
      *
-     * @param messageStore message store containing all the messages which shall be included in the catalog
+     * @param catalogFile   the file of the message catalog
+     * @param catalogWriter the writer which writes the catalog into the temporary file
      *
      * @throws PericopistException if the creating fails.
      */
-    private void createCatalog(MessageStore messageStore) throws PericopistException
+    private void createCatalog(File catalogFile, CatalogWriter catalogWriter) throws PericopistException
     {
         Path tempPath;
 
@@ -266,16 +539,26 @@ public class Pericopist
         }
 
         boolean wroteFile = false;
+        byte[] digest = null;
         try
         {
-            try (FileOutputStream outputStream = new FileOutputStream(tempPath.toFile()))
+            try (DigestOutputStream outputStream = new DigestOutputStream(new FileOutputStream(tempPath.toFile()), this.createMessageDigest()))
+            {
+                wroteFile = catalogWriter.write(outputStream);
+                digest = outputStream.getMessageDigest().digest();
+            }
+
+            if (wroteFile && this.hasSameContent(catalogFile, tempPath, digest))
             {
-                wroteFile = this.catalogFormat.write(this.catalogConfiguration, outputStream, messageStore);
+                // the catalog isn't replaced to keep its modification time
+                this.logger.info("The catalog in '" + catalogFile.getPath() + "' wasn't replaced, because its content didn't change.");
+                wroteFile = false;
             }
         }
         catch (IOException e)
         {
             this.logger.log(Level.SEVERE, "An error occurred while creating and handling the output stream of the temporary template file.", e);
+            wroteFile = false;
         }
 
         if (!wroteFile)
@@ -293,12 +576,12 @@ public class Pericopist
 
         try
         {
-            final File template = this.catalogConfiguration.getTemplateFile();
-            final File directory = template.getParentFile();
+            final File directory = catalogFile.getAbsoluteFile().getParentFile();
 
             if (directory.exists() || directory.mkdirs())
             {
-                Files.move(tempPath, this.catalogConfiguration.getTemplateFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempPath, catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                this.catalogDigests.put(catalogFile.getAbsoluteFile(), new CatalogDigest(catalogFile, digest));
             }
             else
             {
@@ -310,4 +593,118 @@ public class Pericopist
             throw new PericopistException("The temp file couldn't be moved to the specified place.", e);
         }
     }
+
+    /**
+     * This method checks whether the new catalog has the same content like the existing catalog file.
+     * The digest of the existing catalog is taken from the catalogs which were read or written before if the
+     * file wasn't modified since then. It's only calculated if the sizes of both files are the same.
+     *
+     * @param catalogFile the existing catalog file
+     * @param tempPath    path of the new catalog
+     * @param digest      digest of the new catalog
+     *
+     * @return whether both catalogs have the same content
+     *
+     * @throws PericopistException if the digest can't be calculated
+     * @throws IOException         if the existing catalog couldn't be read
+     */
+    private boolean hasSameContent(File catalogFile, Path tempPath, byte[] digest) throws PericopistException, IOException
+    {
+        if (!catalogFile.isFile() || catalogFile.length() != Files.size(tempPath))
+        {
+            return false;
+        }
+
+        CatalogDigest cachedDigest = this.catalogDigests.get(catalogFile.getAbsoluteFile());
+        byte[] catalogDigest = null;
+        if (cachedDigest != null && cachedDigest.lastModified == catalogFile.lastModified())
+        {
+            catalogDigest = cachedDigest.digest;
+        }
+        else
+        {
+            try (DigestInputStream inputStream = new DigestInputStream(new FileInputStream(catalogFile), this.createMessageDigest()))
+            {
+                catalogDigest = this.digest(inputStream);
+            }
+        }
+
+        return MessageDigest.isEqual(catalogDigest, digest);
+    }
+
+    /**
+     * This method reads the remaining bytes of the specified stream and returns the digest of every byte which was read
+     *
+     * @param inputStream the input stream
+     *
+     * @return the digest
+     *
+     * @throws IOException if the stream couldn't be read
+     */
+    private byte[] digest(DigestInputStream inputStream) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        while (inputStream.read(buffer) != -1)
+        {
+            // the stream updates the digest
+        }
+        return inputStream.getMessageDigest().digest();
+    }
+
+    /**
+     * This method creates the message digest which is used to compare the content of catalogs
+     *
+     * @return the message digest
+     *
+     * @throws PericopistException if the algorithm isn't available
+     */
+    private MessageDigest createMessageDigest() throws PericopistException
+    {
+        try
+        {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new PericopistException("The digest algorithm " + DIGEST_ALGORITHM + " isn't available.", e);
+        }
+    }
+
+    /**
+     * A CatalogWriter writes a message catalog into an output stream.
+     */
+    private interface CatalogWriter
+    {
+        /**
+         * This method writes the message catalog.
+         *
+         * @param outputStream the output stream of the catalog
+         *
+         * @return true if the catalog was written
+         *
+         * @throws CatalogFormatException if the catalog couldn't be written
+         */
+        boolean write(OutputStream outputStream) throws CatalogFormatException;
+    }
+
+    /**
+     * The digest of a catalog file and its modification time when the digest was calculated.
+     */
+    private static final class CatalogDigest
+    {
+        private final byte[] digest;
+        private final long lastModified;
+
+        /**
+         * The constructor creates a new catalog digest
+         *
+         * @param catalogFile the catalog file
+         * @param digest      the digest of the catalog file
+         */
+        private CatalogDigest(File catalogFile, byte[] digest)
+        {
+            this.digest = digest;
+            this.lastModified = catalogFile.lastModified();
+        }
+    }
 }
@@ -22,6 +22,7 @@
  */
 package org.cubeengine.pericopist;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -52,8 +53,10 @@ import org.cubeengine.pericopist.exception.PericopistException;
 import org.cubeengine.pericopist.exception.UnknownCatalogFormatException;
 import org.cubeengine.pericopist.exception.UnknownSourceLanguageException;
 import org.cubeengine.pericopist.extractor.ExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.bytecode.BytecodeExtractorConfiguration;
 import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
 import org.cubeengine.pericopist.format.CatalogConfiguration;
+import org.cubeengine.pericopist.format.gettext.BinaryGettextCatalogConfiguration;
 import org.cubeengine.pericopist.format.gettext.GettextCatalogConfiguration;
 import org.cubeengine.pericopist.util.Misc;
 import org.cubeengine.pericopist.util.Pair;
@@ -204,6 +207,7 @@ public class PericopistFactory
      * The inner source tags are related to the language name. The language name is the name
      * specified with the method {@link #addExtractorConfiguration(String, Class)}.
      * A default language name is 'java' which links to the {@link JavaExtractorConfiguration}.
+     * The language name 'bytecode' links to the {@link BytecodeExtractorConfiguration} which extracts the messages from class files.
      * Have a look at this class to get a deeper knowledge about the xml file.
      * </p>
      *
@@ -252,12 +256,13 @@ public class PericopistFactory
         {
             throw new ConfigurationException("The configuration does not have a source tag.");
         }
-        if (extractorConfiguration.catalogConfiguration == null)
+        if (extractorConfiguration.catalogConfigurations.isEmpty())
         {
             throw new ConfigurationException("The configuration does not have a catalog tag.");
         }
 
-        return new Pericopist(extractorConfiguration.extractorConfiguration, extractorConfiguration.catalogConfiguration, logger);
+        List<CatalogConfiguration> catalogConfigurations = extractorConfiguration.catalogConfigurations;
+        return new Pericopist(extractorConfiguration.extractorConfiguration, catalogConfigurations.toArray(new CatalogConfiguration[catalogConfigurations.size()]), logger);
     }
 
     /**
@@ -282,7 +287,7 @@ public class PericopistFactory
         PericopistConfiguration parent = null;
         Charset defaultCharset = charset;
         Node sourceNode = null;
-        Node catalogNode = null;
+        List<Node> catalogNodes = new ArrayList<>();
 
         Pair<URL, String> urlConfigPair = this.loadConfiguration(configurationUrl, charset, readTimeout, velocityEngine, velocityContext);
         configurationUrl = urlConfigPair.getKey();
@@ -310,7 +315,7 @@ public class PericopistFactory
             }
             else if ("catalog".equals(node.getNodeName()))
             {
-                catalogNode = node;
+                catalogNodes.add(node);
             }
         }
 
@@ -333,20 +338,21 @@ public class PericopistFactory
             jaxbClasses.add(extractorConfigurationClass);
         }
 
-        Class<? extends CatalogConfiguration> catalogConfigurationClass = null;
-        if (catalogNode != null)
+        List<Class<? extends CatalogConfiguration>> catalogConfigurationClasses = new ArrayList<>(catalogNodes.size());
+        for (Node catalogNode : catalogNodes)
         {
             Node catalogFormatNode = catalogNode.getAttributes().getNamedItem("format");
             if (catalogFormatNode == null)
             {
                 throw new UnknownCatalogFormatException("You must specify a format attribute to the catalog tag");
             }
-            catalogConfigurationClass = this.getCatalogConfigurationClass(catalogFormatNode.getTextContent());
+            Class<? extends CatalogConfiguration> catalogConfigurationClass = this.getCatalogConfigurationClass(catalogFormatNode.getTextContent());
             if (catalogConfigurationClass == null)
             {
                 throw new UnknownCatalogFormatException("Unknown catalog format " + catalogFormatNode.getTextContent());
             }
 
+            catalogConfigurationClasses.add(catalogConfigurationClass);
             jaxbClasses.add(catalogConfigurationClass);
         }
 
@@ -363,7 +369,7 @@ public class PericopistFactory
             ExtractorConfiguration extractorConfiguration = null;
             if (sourceNode != null)
             {
-                extractorConfiguration = extractorConfigurationClass.cast(unmarshaller.unmarshal(sourceNode));
+                extractorConfiguration = unmarshaller.unmarshal(sourceNode, extractorConfigurationClass).getValue();
 
                 if (parent != null && parent.extractorConfiguration != null)
                 {
@@ -380,27 +386,34 @@ public class PericopistFactory
                 extractorConfiguration = parent.extractorConfiguration;
             }
 
-            CatalogConfiguration catalogConfiguration = null;
-            if (catalogNode != null)
+            // every catalog configuration is merged with the matching catalog configuration of the parent.
+            // catalog configurations of the parent without a match are inherited.
+            List<CatalogConfiguration> parentCatalogConfigurations = new ArrayList<>();
+            if (parent != null)
             {
-                catalogConfiguration = catalogConfigurationClass.cast(unmarshaller.unmarshal(catalogNode));
+                parentCatalogConfigurations.addAll(parent.catalogConfigurations);
+            }
+
+            List<CatalogConfiguration> catalogConfigurations = new ArrayList<>(catalogNodes.size());
+            for (int i = 0; i < catalogNodes.size(); i++)
+            {
+                CatalogConfiguration catalogConfiguration = unmarshaller.unmarshal(catalogNodes.get(i), catalogConfigurationClasses.get(i)).getValue();
 
-                if (parent != null && parent.catalogConfiguration != null)
+                CatalogConfiguration parentCatalogConfiguration = this.removeParentCatalogConfiguration(catalogConfiguration, parentCatalogConfigurations);
+                if (parentCatalogConfiguration != null)
                 {
-                    this.mergeObjects(catalogConfiguration, parent.catalogConfiguration);
+                    this.mergeObjects(catalogConfiguration, parentCatalogConfiguration);
                 }
 
                 if (catalogConfiguration != null && catalogConfiguration.getCharset() == null)
                 {
                     catalogConfiguration.setCharset(defaultCharset);
                 }
+                catalogConfigurations.add(catalogConfiguration);
             }
-            else if (parent != null)
-            {
-                catalogConfiguration = parent.catalogConfiguration;
-            }
+            catalogConfigurations.addAll(parentCatalogConfigurations);
 
-            return new PericopistConfiguration(extractorConfiguration, catalogConfiguration);
+            return new PericopistConfiguration(extractorConfiguration, catalogConfigurations);
         }
         catch (JAXBException e)
         {
@@ -408,6 +421,72 @@ public class PericopistFactory
         }
     }
 
+    /**
+     * This method removes the catalog configuration of the parent which belongs to the specified
+     * catalog configuration from the list and returns it. The parent configuration has to be of the same
+     * format or of a format which is extended by the format of the child. A parent configuration with the
+     * same template file is preferred, afterwards one with exactly the same format. Otherwise the first
+     * compatible one is taken.
+     *
+     * @param catalogConfiguration        catalog configuration of the child
+     * @param parentCatalogConfigurations catalog configurations of the parent which weren't merged yet
+     *
+     * @return the catalog configuration of the parent or null if none is compatible
+     */
+    private CatalogConfiguration removeParentCatalogConfiguration(CatalogConfiguration catalogConfiguration, List<CatalogConfiguration> parentCatalogConfigurations)
+    {
+        if (catalogConfiguration == null)
+        {
+            return null;
+        }
+
+        CatalogConfiguration match = null;
+        int matchRank = -1;
+        for (CatalogConfiguration parentCatalogConfiguration : parentCatalogConfigurations)
+        {
+            if (!parentCatalogConfiguration.getClass().isAssignableFrom(catalogConfiguration.getClass()))
+            {
+                continue;
+            }
+
+            int rank = 0;
+            if (this.isSameFile(catalogConfiguration.getTemplateFile(), parentCatalogConfiguration.getTemplateFile()))
+            {
+                rank += 2;
+            }
+            if (parentCatalogConfiguration.getClass().equals(catalogConfiguration.getClass()))
+            {
+                rank++;
+            }
+
+            if (rank > matchRank)
+            {
+                match = parentCatalogConfiguration;
+                matchRank = rank;
+            }
+        }
+
+        parentCatalogConfigurations.remove(match);
+        return match;
+    }
+
+    /**
+     * This method checks whether both files are specified and have the same path.
+     *
+     * @param file      the first file
+     * @param otherFile the second file
+     *
+     * @return whether the files have the same path
+     */
+    private boolean isSameFile(File file, File otherFile)
+    {
+        if (file == null || otherFile == null)
+        {
+            return false;
+        }
+        return file.getAbsoluteFile().toPath().normalize().equals(otherFile.getAbsoluteFile().toPath().normalize());
+    }
+
     /**
      * This method loads the configuration and evaluates it with the specified context
      *
@@ -498,7 +577,9 @@ public class PericopistFactory
     private void loadDefaultClasses()
     {
         this.addExtractorConfiguration("java", JavaExtractorConfiguration.class);
+        this.addExtractorConfiguration("bytecode", BytecodeExtractorConfiguration.class);
         this.addCatalogConfiguration("gettext", GettextCatalogConfiguration.class);
+        this.addCatalogConfiguration("mo", BinaryGettextCatalogConfiguration.class);
     }
 
     /**
@@ -686,17 +767,17 @@ public class PericopistFactory
     }
 
     /**
-     * This is a helper class which stores the pericopist configuration and catalog configuration
+     * This is a helper class which stores the pericopist configuration and catalog configurations
      */
     private static class PericopistConfiguration
     {
         public final ExtractorConfiguration extractorConfiguration;
-        public final CatalogConfiguration catalogConfiguration;
+        public final List<CatalogConfiguration> catalogConfigurations;
 
-        public PericopistConfiguration(ExtractorConfiguration extractorConfiguration, CatalogConfiguration catalogConfiguration)
+        public PericopistConfiguration(ExtractorConfiguration extractorConfiguration, List<CatalogConfiguration> catalogConfigurations)
         {
             this.extractorConfiguration = extractorConfiguration;
-            this.catalogConfiguration = catalogConfiguration;
+            this.catalogConfigurations = catalogConfigurations;
         }
     }
 }
@@ -0,0 +1,337 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.cubeengine.pericopist.exception.PericopistException;
+import org.cubeengine.pericopist.extractor.AbstractExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.ExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
+import org.cubeengine.pericopist.format.CatalogConfiguration;
+import org.cubeengine.pericopist.format.LocaleCatalogConfiguration;
+
+/**
+ * <p>
+ * This class watches the source directory of a {@link Pericopist} instance and updates
+ * the message catalog as soon as a file within the directory changes.
+ * </p>
+ *
+ * <p>
+ * The extractor of the pericopist instance stays alive between the updates. The java extractor
+ * keeps its extraction cache in memory and parses just the changed source files if a cache file
+ * is specified by its configuration.
+ * </p>
+ *
+ * @see Pericopist#updateCatalog()
+ */
+public class PericopistWatcher implements Closeable
+{
+    private static final long DEFAULT_QUIET_PERIOD = 300;
+
+    private final Pericopist pericopist;
+    private final Logger logger;
+    private final Path directory;
+    private final long quietPeriod;
+
+    private final CountDownLatch watching;
+
+    private WatchService watchService;
+    private boolean closed;
+
+    /**
+     * The constructor creates a new watcher
+     *
+     * @param pericopist the pericopist instance which updates the catalog
+     * @param logger     logger which shall be used
+     *
+     * @throws PericopistException if the configuration of the extractor doesn't specify a source directory
+     */
+    public PericopistWatcher(Pericopist pericopist, Logger logger) throws PericopistException
+    {
+        this(pericopist, logger, DEFAULT_QUIET_PERIOD);
+    }
+
+    /**
+     * The constructor creates a new watcher
+     *
+     * @param pericopist  the pericopist instance which updates the catalog
+     * @param logger      logger which shall be used
+     * @param quietPeriod time in milliseconds without changes after which the catalog is updated
+     *
+     * @throws PericopistException if the configuration of the extractor doesn't specify a source directory
+     */
+    public PericopistWatcher(Pericopist pericopist, Logger logger, long quietPeriod) throws PericopistException
+    {
+        if (!(pericopist.getExtractorConfiguration() instanceof AbstractExtractorConfiguration))
+        {
+            throw new PericopistException("The extractor configuration doesn't specify a directory which could be watched.");
+        }
+
+        this.pericopist = pericopist;
+        this.logger = logger == null ? Logger.getLogger("pericopist") : logger;
+        this.directory = ((AbstractExtractorConfiguration) pericopist.getExtractorConfiguration()).getDirectory().toPath().toAbsolutePath().normalize();
+        this.quietPeriod = quietPeriod;
+        this.watching = new CountDownLatch(1);
+    }
+
+    /**
+     * This method updates the catalog and watches the source directory afterwards.
+     * Every change of the directory updates the catalog again. The method blocks until the
+     * watcher is closed or the thread is interrupted.
+     *
+     * @throws PericopistException if the first update of the catalog fails or the directory couldn't be watched
+     */
+    public void watch() throws PericopistException
+    {
+        this.pericopist.updateCatalog();
+
+        try
+        {
+            synchronized (this)
+            {
+                if (this.closed)
+                {
+                    return;
+                }
+                this.watchService = FileSystems.getDefault().newWatchService();
+            }
+            this.registerDirectory(this.directory);
+        }
+        catch (IOException e)
+        {
+            throw new PericopistException("The directory '" + this.directory + "' couldn't be watched.", e);
+        }
+
+        this.logger.info("Watches the directory '" + this.directory + "' for changes.");
+        this.watching.countDown();
+
+        try
+        {
+            while (!Thread.currentThread().isInterrupted())
+            {
+                WatchKey key = this.watchService.take();
+                boolean changed = this.handleEvents(key);
+
+                // waits until the directory doesn't change anymore
+                while ((key = this.watchService.poll(this.quietPeriod, TimeUnit.MILLISECONDS)) != null)
+                {
+                    changed |= this.handleEvents(key);
+                }
+
+                if (!changed)
+                {
+                    continue;
+                }
+
+                try
+                {
+                    this.pericopist.updateCatalog();
+                }
+                catch (PericopistException e)
+                {
+                    this.logger.log(Level.SEVERE, "The catalog couldn't be updated.", e);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ClosedWatchServiceException ignored)
+        {
+            // the watcher was closed
+        }
+        finally
+        {
+            this.close();
+        }
+    }
+
+    /**
+     * This method waits until the watcher updated the catalog for the first time and registered the source directory.
+     * Every change of the directory after this method returned true updates the catalog.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of the timeout
+     *
+     * @return whether the directory is watched; false if the timeout elapsed before
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitWatching(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return this.watching.await(timeout, unit);
+    }
+
+    /**
+     * This method stops watching the source directory.
+     */
+    @Override
+    public synchronized void close()
+    {
+        this.closed = true;
+        if (this.watchService == null)
+        {
+            return;
+        }
+
+        try
+        {
+            this.watchService.close();
+        }
+        catch (IOException e)
+        {
+            this.logger.log(Level.WARNING, "The watch service couldn't be closed.", e);
+        }
+    }
+
+    /**
+     * This method handles the events of a watch key. It registers new directories and
+     * resets the key afterwards.
+     *
+     * @param key the watch key
+     *
+     * @return whether a file of the source directory changed
+     */
+    private boolean handleEvents(WatchKey key)
+    {
+        boolean changed = false;
+        Path keyDirectory = (Path) key.watchable();
+
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+            {
+                changed = true;
+                continue;
+            }
+
+            Path path = keyDirectory.resolve((Path) event.context());
+            if (this.isWrittenFile(path))
+            {
+                continue;
+            }
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path))
+            {
+                try
+                {
+                    this.registerDirectory(path);
+                }
+                catch (IOException e)
+                {
+                    this.logger.log(Level.WARNING, "The directory '" + path + "' couldn't be watched.", e);
+                }
+            }
+            changed = true;
+        }
+
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * This method checks whether the specified path is a file which is written by the pericopist instance.
+     * Those are the message catalogs, the catalogs of the locales and the extraction cache. Their changes
+     * mustn't trigger another update.
+     *
+     * @param path the path
+     *
+     * @return whether the file is written by the pericopist instance
+     */
+    private boolean isWrittenFile(Path path)
+    {
+        for (CatalogConfiguration catalogConfiguration : this.pericopist.getCatalogConfigurations())
+        {
+            if (isFile(catalogConfiguration.getTemplateFile(), path))
+            {
+                return true;
+            }
+
+            if (catalogConfiguration instanceof LocaleCatalogConfiguration)
+            {
+                for (File localeFile : ((LocaleCatalogConfiguration) catalogConfiguration).getLocaleFiles())
+                {
+                    if (isFile(localeFile, path))
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        ExtractorConfiguration extractorConfiguration = this.pericopist.getExtractorConfiguration();
+        return extractorConfiguration instanceof JavaExtractorConfiguration && isFile(((JavaExtractorConfiguration) extractorConfiguration).getCacheFile(), path);
+    }
+
+    /**
+     * This method checks whether the specified file is located at the specified path.
+     *
+     * @param file the file; may be null
+     * @param path the absolute and normalized path
+     *
+     * @return whether the file is located at the path
+     */
+    private static boolean isFile(File file, Path path)
+    {
+        return file != null && file.toPath().toAbsolutePath().normalize().equals(path);
+    }
+
+    /**
+     * This method registers the specified directory and its subdirectories at the watch service.
+     *
+     * @param start the directory
+     *
+     * @throws IOException if a directory couldn't be registered
+     */
+    private void registerDirectory(Path start) throws IOException
+    {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                dir.register(PericopistWatcher.this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.bytecode;
+
+import java.nio.charset.Charset;
+import java.util.logging.Logger;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.velocity.context.Context;
+import org.cubeengine.pericopist.PericopistFactory;
+import org.cubeengine.pericopist.extractor.MessageExtractor;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExpression;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
+
+/**
+ * <p>
+ * This configuration is used for extracting the translatable messages from the compiled classes of java projects.
+ * It doesn't need the source files.
+ * </p>
+ *
+ * <p>
+ * The configuration can be set up with an xml file. The directory has to be the directory containing
+ * the class files or a jar file. Every other setting is the same as in the {@link JavaExtractorConfiguration}.
+ * The settings of the source parser like the cache, the threads and the prefilter aren't used.
+ * </p>
+ *
+ * Example:
+ *
+ * <pre>
+ * {@code
+ * <source language="bytecode" charset="utf-8">
+ *     <directory>class file path or jar file</directory> <!-- default: ./src/main/java -->
+ *     <classpath> <!-- default: System.getProperty("java.class.path").split(File.pathSeparator) -->
+ *         <entry>entry</entry>
+ *         <entry>another_entry</entry>
+ *     </classpath>
+ *     <translatables> <!-- register ways how to extract messages -->
+ *         ...
+ *     </translatables>
+ * </source>
+ * }
+ * </pre>
+ *
+ * The translatables tag has to be filled with information about the
+ * {@link JavaExpression} subclasses.
+ *
+ * @see PericopistFactory#getPericopist(String, Charset, int, Context, Logger)
+ * @see BytecodeMessageExtractor
+ */
+@XmlRootElement(name = "source")
+public class BytecodeExtractorConfiguration extends JavaExtractorConfiguration
+{
+    @Override
+    public Class<? extends MessageExtractor> getExtractorClass()
+    {
+        return BytecodeMessageExtractor.class;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.cubeengine.pericopist.exception.MessageExtractionException;
+import org.cubeengine.pericopist.exception.SourceDirectoryNotExistingException;
+import org.cubeengine.pericopist.extractor.ExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.MessageExtractor;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
+import org.cubeengine.pericopist.message.MessageStore;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * <p>
+ * This {@link MessageExtractor} implementation extracts the messages from compiled java classes.
+ * The classes are read from a directory or a jar file and aren't loaded. Just static fields
+ * which are used as arguments are read with reflection.
+ * </p>
+ *
+ * <p>
+ * The source references are created with the package and the source file attribute of the classes.
+ * The lines are taken from the line number tables of the methods. Class files don't contain
+ * comments and the annotations of local variables. Those can't be extracted.
+ * </p>
+ */
+public class BytecodeMessageExtractor implements MessageExtractor
+{
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private Logger logger;
+
+    @Override
+    public MessageStore extract(ExtractorConfiguration config, MessageStore messageStore) throws MessageExtractionException
+    {
+        JavaExtractorConfiguration extractorConfig = (JavaExtractorConfiguration) config;
+
+        if (!extractorConfig.getDirectory().exists())
+        {
+            throw new SourceDirectoryNotExistingException();
+        }
+
+        int messageAmount = messageStore.size();
+
+        try
+        {
+            List<byte[]> classFiles = this.loadClassFiles(extractorConfig.getDirectory());
+
+            try (URLClassLoader classLoader = this.createClassLoader(extractorConfig))
+            {
+                ClassHierarchy hierarchy = new ClassHierarchy(classLoader);
+                List<ClassReader> classReaders = new ArrayList<>(classFiles.size());
+                for (byte[] classFile : classFiles)
+                {
+                    ClassReader classReader = new ClassReader(classFile);
+                    hierarchy.addClass(classReader.getClassName(), classReader.getSuperName(), classReader.getInterfaces());
+                    classReaders.add(classReader);
+                }
+
+                ClassFileProcessor processor = new ClassFileProcessor(extractorConfig, messageStore, hierarchy, classLoader, this.logger);
+                for (ClassReader classReader : classReaders)
+                {
+                    ClassNode classNode = new ClassNode();
+                    classReader.accept(classNode, ClassReader.SKIP_FRAMES);
+                    processor.process(classNode);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            throw new MessageExtractionException("An error occurred while extracting the messages", e);
+        }
+
+        this.logger.info("The " + this.getClass().getSimpleName() + " extracted " + (messageStore.size() - messageAmount) + " messages from the class files.");
+
+        return messageStore;
+    }
+
+    @Override
+    public void setLogger(Logger logger)
+    {
+        this.logger = logger;
+    }
+
+    /**
+     * This method loads the class files of the specified directory or jar file.
+     *
+     * @param directory directory or jar file
+     *
+     * @return content of the class files
+     *
+     * @throws IOException if a class file couldn't be read
+     */
+    private List<byte[]> loadClassFiles(File directory) throws IOException
+    {
+        List<byte[]> classFiles = new ArrayList<>();
+
+        if (directory.isDirectory())
+        {
+            List<File> files = new ArrayList<>();
+            this.collectClassFiles(directory, files);
+            for (File file : files)
+            {
+                classFiles.add(Files.readAllBytes(file.toPath()));
+            }
+            return classFiles;
+        }
+
+        try (ZipFile zipFile = new ZipFile(directory))
+        {
+            List<String> names = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements())
+            {
+                ZipEntry entry = entries.nextElement();
+                if (this.isClassFile(entry.getName()) && !entry.getName().startsWith("META-INF/"))
+                {
+                    names.add(entry.getName());
+                }
+            }
+            Collections.sort(names);
+
+            for (String name : names)
+            {
+                try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(name)))
+                {
+                    classFiles.add(this.readFully(inputStream));
+                }
+            }
+        }
+        return classFiles;
+    }
+
+    /**
+     * This method collects the class files of the specified directory and its subdirectories.
+     *
+     * @param directory  the directory
+     * @param classFiles list which shall contain the class files
+     */
+    private void collectClassFiles(File directory, List<File> classFiles)
+    {
+        File[] files = directory.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+
+        Arrays.sort(files);
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                this.collectClassFiles(file, classFiles);
+            }
+            else if (this.isClassFile(file.getName()))
+            {
+                classFiles.add(file);
+            }
+        }
+    }
+
+    /**
+     * This method checks whether the specified file name belongs to a class file which can contain messages
+     *
+     * @param name file name
+     *
+     * @return whether it's a class file
+     */
+    private boolean isClassFile(String name)
+    {
+        return name.endsWith(CLASS_FILE_EXTENSION) && !name.endsWith("module-info" + CLASS_FILE_EXTENSION);
+    }
+
+    /**
+     * This method reads the whole content of an input stream
+     *
+     * @param inputStream the input stream
+     *
+     * @return content of the stream
+     *
+     * @throws IOException if the stream couldn't be read
+     */
+    private byte[] readFully(InputStream inputStream) throws IOException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1)
+        {
+            outputStream.write(buffer, 0, length);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * This method creates a class loader containing the classes which are scanned and the classpath entries of the configuration.
+     *
+     * @param config the extractor configuration
+     *
+     * @return the class loader
+     *
+     * @throws IOException if an url couldn't be created
+     */
+    private URLClassLoader createClassLoader(JavaExtractorConfiguration config) throws IOException
+    {
+        List<URL> urls = new ArrayList<>();
+        urls.add(config.getDirectory().toURI().toURL());
+        for (String entry : config.getClasspathEntries())
+        {
+            File file = new File(entry);
+            if (!file.exists())
+            {
+                this.logger.warning("The classpath entry '" + entry + "' was removed. It doesn't exist.");
+                continue;
+            }
+            urls.add(file.toURI().toURL());
+        }
+
+        return URLClassLoader.newInstance(urls.toArray(new URL[urls.size()]), Thread.currentThread().getContextClassLoader());
+    }
+}
@@ -0,0 +1,834 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.bytecode;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.cubeengine.pericopist.exception.IllegalTranslatableMessageException;
+import org.cubeengine.pericopist.extractor.java.configuration.Annotation;
+import org.cubeengine.pericopist.extractor.java.configuration.CallableExpression;
+import org.cubeengine.pericopist.extractor.java.configuration.Constructor;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExpression;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.java.configuration.Method;
+import org.cubeengine.pericopist.message.MessageStore;
+import org.cubeengine.pericopist.message.TranslatableMessage;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.SourceValue;
+import spoon.reflect.declaration.CtAnnotatedElementType;
+
+/**
+ * <p>
+ * This class extracts the messages of a single class file. It processes the invocations of the
+ * methods and constructors and the annotations which are described by the translatable expressions.
+ * </p>
+ *
+ * <p>
+ * The arguments of an invocation are resolved with a data flow analysis of the method. An argument can be
+ * a constant, an array of constants or a static field which is read with reflection.
+ * </p>
+ */
+class ClassFileProcessor
+{
+    private static final Object UNRESOLVABLE = new Object();
+
+    private final JavaExtractorConfiguration configuration;
+    private final MessageStore messageStore;
+    private final ClassHierarchy hierarchy;
+    private final ClassLoader classLoader;
+    private final Logger logger;
+
+    /**
+     * The constructor creates a new processor
+     *
+     * @param configuration the extractor configuration
+     * @param messageStore  message store which shall store the messages
+     * @param hierarchy     hierarchy of the classes
+     * @param classLoader   class loader which is used to read static fields
+     * @param logger        the logger
+     */
+    ClassFileProcessor(JavaExtractorConfiguration configuration, MessageStore messageStore, ClassHierarchy hierarchy, ClassLoader classLoader, Logger logger)
+    {
+        this.configuration = configuration;
+        this.messageStore = messageStore;
+        this.hierarchy = hierarchy;
+        this.classLoader = classLoader;
+        this.logger = logger;
+    }
+
+    /**
+     * This method extracts the messages of the specified class
+     *
+     * @param classNode the class
+     */
+    void process(ClassNode classNode)
+    {
+        File file = this.getSourceFile(classNode);
+
+        CtAnnotatedElementType classTarget = CtAnnotatedElementType.TYPE;
+        if (classNode.name.endsWith("/package-info") || "package-info".equals(classNode.name))
+        {
+            classTarget = CtAnnotatedElementType.PACKAGE;
+        }
+        else if ((classNode.access & Opcodes.ACC_ANNOTATION) != 0)
+        {
+            classTarget = CtAnnotatedElementType.ANNOTATION_TYPE;
+        }
+
+        // class files don't store the lines of types and fields
+        this.processAnnotations(file, 0, classTarget, classNode.visibleAnnotations);
+        this.processAnnotations(file, 0, classTarget, classNode.invisibleAnnotations);
+
+        for (FieldNode field : classNode.fields)
+        {
+            this.processAnnotations(file, 0, CtAnnotatedElementType.FIELD, field.visibleAnnotations);
+            this.processAnnotations(file, 0, CtAnnotatedElementType.FIELD, field.invisibleAnnotations);
+        }
+
+        for (MethodNode method : classNode.methods)
+        {
+            // bridge methods are copies of other methods
+            if ((method.access & Opcodes.ACC_BRIDGE) != 0)
+            {
+                continue;
+            }
+
+            int line = this.getFirstLine(method);
+            CtAnnotatedElementType target = "<init>".equals(method.name) ? CtAnnotatedElementType.CONSTRUCTOR : CtAnnotatedElementType.METHOD;
+
+            this.processAnnotations(file, line, target, method.visibleAnnotations);
+            this.processAnnotations(file, line, target, method.invisibleAnnotations);
+            this.processParameterAnnotations(file, line, method.visibleParameterAnnotations);
+            this.processParameterAnnotations(file, line, method.invisibleParameterAnnotations);
+
+            this.processInvocations(file, classNode, method);
+        }
+    }
+
+    /**
+     * This method extracts the messages of the invocations within the specified method
+     *
+     * @param file      source file of the class
+     * @param classNode the class
+     * @param method    the method
+     */
+    private void processInvocations(File file, ClassNode classNode, MethodNode method)
+    {
+        AbstractInsnNode[] instructions = method.instructions.toArray();
+        Frame<SourceValue>[] frames = null;
+
+        int line = 0;
+        for (int i = 0; i < instructions.length; i++)
+        {
+            AbstractInsnNode instruction = instructions[i];
+            if (instruction instanceof LineNumberNode)
+            {
+                line = ((LineNumberNode) instruction).line;
+                continue;
+            }
+            if (!(instruction instanceof MethodInsnNode))
+            {
+                continue;
+            }
+
+            MethodInsnNode invocation = (MethodInsnNode) instruction;
+            CallableExpression expression = this.getCallableExpression(invocation);
+            if (expression == null)
+            {
+                continue;
+            }
+
+            if (frames == null)
+            {
+                try
+                {
+                    frames = new Analyzer<>(new SourceInterpreter()).analyze(classNode.name, method);
+                }
+                catch (AnalyzerException e)
+                {
+                    this.logger.log(Level.WARNING, "The method '" + method.name + "' of the class '" + classNode.name + "' couldn't be analyzed.", e);
+                    return;
+                }
+            }
+
+            if (frames[i] != null)
+            {
+                this.processInvocation(file, line, expression, invocation, instructions, frames, frames[i]);
+            }
+        }
+    }
+
+    /**
+     * This method extracts the message of a single invocation
+     *
+     * @param file         source file of the class
+     * @param line         line of the invocation
+     * @param expression   the callable expression describing the invocation
+     * @param invocation   the invocation instruction
+     * @param instructions every instruction of the method
+     * @param frames       the frames of the instructions
+     * @param frame        the frame of the invocation instruction
+     */
+    private void processInvocation(File file, int line, CallableExpression expression, MethodInsnNode invocation, AbstractInsnNode[] instructions, Frame<SourceValue>[] frames, Frame<SourceValue> frame)
+    {
+        Type[] argumentTypes = Type.getArgumentTypes(invocation.desc);
+        int firstArgument = frame.getStackSize() - argumentTypes.length;
+
+        String context = null;
+        String[] singulars = null;
+        String[] plurals = null;
+
+        if (expression.hasContext())
+        {
+            String[] contexts = this.getMessages(expression, file, line, argumentTypes, frame, firstArgument, expression.getContextIndex(), instructions, frames);
+            if (contexts == null || contexts.length != 1)
+            {
+                return;
+            }
+            context = contexts[0];
+        }
+
+        singulars = this.getMessages(expression, file, line, argumentTypes, frame, firstArgument, expression.getSingularIndex(), instructions, frames);
+        if (singulars == null || singulars.length == 0)
+        {
+            return;
+        }
+
+        if (expression.hasPlural())
+        {
+            plurals = this.getMessages(expression, file, line, argumentTypes, frame, firstArgument, expression.getPluralIndex(), instructions, frames);
+            if (plurals == null || plurals.length == 0)
+            {
+                return;
+            }
+        }
+
+        this.addMessage(expression, file, line, context, singulars, plurals);
+    }
+
+    /**
+     * This method resolves the messages of an argument of an invocation
+     *
+     * @param expression    the callable expression describing the invocation
+     * @param file          source file of the class
+     * @param line          line of the invocation
+     * @param argumentTypes the argument types of the invocation
+     * @param frame         the frame of the invocation instruction
+     * @param firstArgument stack index of the first argument
+     * @param index         index of the argument
+     * @param instructions  every instruction of the method
+     * @param frames        the frames of the instructions
+     *
+     * @return the messages or null if the argument couldn't be resolved
+     */
+    private String[] getMessages(CallableExpression expression, File file, int line, Type[] argumentTypes, Frame<SourceValue> frame, int firstArgument, int index, AbstractInsnNode[] instructions, Frame<SourceValue>[] frames)
+    {
+        Object value = this.resolveValue(frame.getStack(firstArgument + index), instructions, frames);
+        if (value == UNRESOLVABLE)
+        {
+            this.logger.warning("The argument " + index + " of the translatable expression '" + expression.getFQN() + "' in '" + file.getPath() + ":" + line + "' couldn't be resolved from the class file.");
+            return null;
+        }
+
+        // int constants are used for chars and booleans within class files
+        if (value instanceof Integer)
+        {
+            if (argumentTypes[index].getSort() == Type.CHAR)
+            {
+                value = (char) ((Integer) value).intValue();
+            }
+            else if (argumentTypes[index].getSort() == Type.BOOLEAN)
+            {
+                value = ((Integer) value) != 0;
+            }
+        }
+
+        return this.toStrings(value);
+    }
+
+    /**
+     * This method resolves the value which is stored in the specified stack value
+     *
+     * @param value        the stack value
+     * @param instructions every instruction of the method
+     * @param frames       the frames of the instructions
+     *
+     * @return the value or {@link #UNRESOLVABLE} if the value couldn't be resolved
+     */
+    private Object resolveValue(SourceValue value, AbstractInsnNode[] instructions, Frame<SourceValue>[] frames)
+    {
+        if (value.insns.size() != 1)
+        {
+            return UNRESOLVABLE;
+        }
+
+        AbstractInsnNode instruction = value.insns.iterator().next();
+        int opcode = instruction.getOpcode();
+        switch (opcode)
+        {
+            case Opcodes.ACONST_NULL:
+                return null;
+            case Opcodes.ICONST_M1:
+            case Opcodes.ICONST_0:
+            case Opcodes.ICONST_1:
+            case Opcodes.ICONST_2:
+            case Opcodes.ICONST_3:
+            case Opcodes.ICONST_4:
+            case Opcodes.ICONST_5:
+                return opcode - Opcodes.ICONST_0;
+            case Opcodes.LCONST_0:
+            case Opcodes.LCONST_1:
+                return (long) (opcode - Opcodes.LCONST_0);
+            case Opcodes.FCONST_0:
+            case Opcodes.FCONST_1:
+            case Opcodes.FCONST_2:
+                return (float) (opcode - Opcodes.FCONST_0);
+            case Opcodes.DCONST_0:
+            case Opcodes.DCONST_1:
+                return (double) (opcode - Opcodes.DCONST_0);
+            case Opcodes.BIPUSH:
+            case Opcodes.SIPUSH:
+                return ((IntInsnNode) instruction).operand;
+            case Opcodes.LDC:
+                Object constant = ((LdcInsnNode) instruction).cst;
+                if (constant instanceof String || constant instanceof Number)
+                {
+                    return constant;
+                }
+                return UNRESOLVABLE;
+            case Opcodes.GETSTATIC:
+                return this.readStaticField((FieldInsnNode) instruction);
+            case Opcodes.ANEWARRAY:
+                return this.resolveArray(instruction, instructions, frames);
+            default:
+                return UNRESOLVABLE;
+        }
+    }
+
+    /**
+     * This method resolves an array which is created by the specified instruction
+     *
+     * @param newArray     the instruction creating the array
+     * @param instructions every instruction of the method
+     * @param frames       the frames of the instructions
+     *
+     * @return the array or {@link #UNRESOLVABLE} if the array couldn't be resolved
+     */
+    private Object resolveArray(AbstractInsnNode newArray, AbstractInsnNode[] instructions, Frame<SourceValue>[] frames)
+    {
+        int newArrayIndex = -1;
+        for (int i = 0; i < instructions.length; i++)
+        {
+            if (instructions[i] == newArray)
+            {
+                newArrayIndex = i;
+                break;
+            }
+        }
+        if (newArrayIndex == -1 || frames[newArrayIndex] == null)
+        {
+            return UNRESOLVABLE;
+        }
+
+        Frame<SourceValue> newArrayFrame = frames[newArrayIndex];
+        Object length = this.resolveValue(newArrayFrame.getStack(newArrayFrame.getStackSize() - 1), instructions, frames);
+        if (!(length instanceof Integer))
+        {
+            return UNRESOLVABLE;
+        }
+
+        Object[] array = new Object[(Integer) length];
+        for (int i = newArrayIndex + 1; i < instructions.length; i++)
+        {
+            Frame<SourceValue> frame = frames[i];
+            if (instructions[i].getOpcode() != Opcodes.AASTORE || frame == null)
+            {
+                continue;
+            }
+
+            SourceValue arrayReference = frame.getStack(frame.getStackSize() - 3);
+            if (arrayReference.insns.size() != 1 || !arrayReference.insns.contains(newArray))
+            {
+                continue;
+            }
+
+            Object index = this.resolveValue(frame.getStack(frame.getStackSize() - 2), instructions, frames);
+            Object element = this.resolveValue(frame.getStack(frame.getStackSize() - 1), instructions, frames);
+            if (!(index instanceof Integer) || (Integer) index < 0 || (Integer) index >= array.length || element == UNRESOLVABLE)
+            {
+                return UNRESOLVABLE;
+            }
+            array[(Integer) index] = element;
+        }
+        return array;
+    }
+
+    /**
+     * This method reads the value of a static field with reflection
+     *
+     * @param fieldInstruction instruction reading the field
+     *
+     * @return the value of the field or {@link #UNRESOLVABLE} if the field couldn't be read
+     */
+    private Object readStaticField(FieldInsnNode fieldInstruction)
+    {
+        try
+        {
+            Class<?> clazz = Class.forName(Type.getObjectType(fieldInstruction.owner).getClassName(), true, this.classLoader);
+            while (clazz != null)
+            {
+                for (Field field : clazz.getDeclaredFields())
+                {
+                    if (field.getName().equals(fieldInstruction.name))
+                    {
+                        field.setAccessible(true);
+                        return field.get(null);
+                    }
+                }
+                clazz = clazz.getSuperclass();
+            }
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            this.logger.log(Level.FINE, "The field '" + fieldInstruction.owner + "#" + fieldInstruction.name + "' couldn't be read.", e);
+        }
+        return UNRESOLVABLE;
+    }
+
+    /**
+     * This method returns the callable expression which describes the specified invocation
+     *
+     * @param invocation the invocation instruction
+     *
+     * @return the callable expression or null if no expression describes the invocation
+     */
+    private CallableExpression getCallableExpression(MethodInsnNode invocation)
+    {
+        Type[] argumentTypes = null;
+        for (JavaExpression expression : this.configuration.getJavaExpressions())
+        {
+            if (expression instanceof Method)
+            {
+                Method method = (Method) expression;
+                if (!invocation.name.equals(method.getMethodName()) || method.isStatic() != (invocation.getOpcode() == Opcodes.INVOKESTATIC))
+                {
+                    continue;
+                }
+            }
+            else if (expression instanceof Constructor)
+            {
+                if (!"<init>".equals(invocation.name) || !this.toInternalName(expression.getName()).equals(invocation.owner))
+                {
+                    continue;
+                }
+            }
+            else
+            {
+                continue;
+            }
+
+            if (argumentTypes == null)
+            {
+                argumentTypes = Type.getArgumentTypes(invocation.desc);
+            }
+            if (!this.matchesSignature((CallableExpression) expression, argumentTypes))
+            {
+                continue;
+            }
+
+            if (expression instanceof Method && !this.hierarchy.isSubtypeOf(invocation.owner, this.toInternalName(((Method) expression).getClassName())))
+            {
+                continue;
+            }
+
+            return (CallableExpression) expression;
+        }
+        return null;
+    }
+
+    /**
+     * This method checks whether the argument types match the signature of the callable expression
+     *
+     * @param expression    the callable expression
+     * @param argumentTypes argument types of the invocation
+     *
+     * @return whether the argument types match the signature
+     */
+    private boolean matchesSignature(CallableExpression expression, Type[] argumentTypes)
+    {
+        if (expression.getSignature().length != argumentTypes.length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < argumentTypes.length; i++)
+        {
+            String type = expression.getSignature()[i].getType();
+            String className = argumentTypes[i].getClassName();
+            if (!type.equals(className) && !type.equals(className.replace('$', '.')))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method extracts the messages of the specified parameter annotations
+     *
+     * @param file        source file of the class
+     * @param line        line of the method
+     * @param annotations annotations of every parameter
+     */
+    private void processParameterAnnotations(File file, int line, List<AnnotationNode>[] annotations)
+    {
+        if (annotations == null)
+        {
+            return;
+        }
+
+        for (List<AnnotationNode> parameterAnnotations : annotations)
+        {
+            this.processAnnotations(file, line, CtAnnotatedElementType.PARAMETER, parameterAnnotations);
+        }
+    }
+
+    /**
+     * This method extracts the messages of the specified annotations
+     *
+     * @param file        source file of the class
+     * @param line        line of the annotated element
+     * @param target      type of the annotated element
+     * @param annotations annotations of the element
+     */
+    private void processAnnotations(File file, int line, CtAnnotatedElementType target, List<AnnotationNode> annotations)
+    {
+        if (annotations == null)
+        {
+            return;
+        }
+
+        for (AnnotationNode annotation : annotations)
+        {
+            this.processAnnotation(file, line, target, annotation);
+        }
+    }
+
+    /**
+     * This method extracts the messages of the specified annotation and the annotations which are nested in it.
+     *
+     * @param file           source file of the class
+     * @param line           line of the annotated element
+     * @param target         type of the annotated element
+     * @param annotationNode the annotation
+     */
+    private void processAnnotation(File file, int line, CtAnnotatedElementType target, AnnotationNode annotationNode)
+    {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (annotationNode.values != null)
+        {
+            for (int i = 0; i + 1 < annotationNode.values.size(); i += 2)
+            {
+                values.put((String) annotationNode.values.get(i), annotationNode.values.get(i + 1));
+            }
+        }
+
+        // nested annotations have an annotation as annotated element
+        for (Object value : values.values())
+        {
+            List<?> elements = value instanceof List ? (List<?>) value : Arrays.asList(value);
+            for (Object element : elements)
+            {
+                if (element instanceof AnnotationNode)
+                {
+                    this.processAnnotation(file, line, CtAnnotatedElementType.ANNOTATION_TYPE, (AnnotationNode) element);
+                }
+            }
+        }
+
+        Annotation annotation = this.getAnnotation(Type.getType(annotationNode.desc).getClassName(), target);
+        if (annotation == null)
+        {
+            return;
+        }
+
+        String context = null;
+        if (annotation.getContextField() != null && values.containsKey(annotation.getContextField()))
+        {
+            String[] contexts = this.toStrings(this.toAnnotationValue(values.get(annotation.getContextField())));
+            if (contexts.length > 1)
+            {
+                context = Arrays.toString(contexts);
+            }
+            else if (contexts.length == 1 && contexts[0] != null && !contexts[0].isEmpty())
+            {
+                context = contexts[0];
+            }
+        }
+
+        for (Entry<String, Object> valueEntry : values.entrySet())
+        {
+            if (!annotation.hasField(valueEntry.getKey()))
+            {
+                continue;
+            }
+
+            String[] messages = this.toStrings(this.toAnnotationValue(valueEntry.getValue()));
+            if (messages.length == 0)
+            {
+                continue;
+            }
+
+            this.addMessage(annotation, file, line, context, messages, null);
+        }
+    }
+
+    /**
+     * This method returns the annotation expression which describes the specified annotation
+     *
+     * @param name   fully qualified name of the annotation
+     * @param target type of the annotated element
+     *
+     * @return the annotation expression or null if no expression describes the annotation
+     */
+    private Annotation getAnnotation(String name, CtAnnotatedElementType target)
+    {
+        for (JavaExpression expression : this.configuration.getJavaExpressions())
+        {
+            if (!(expression instanceof Annotation) || !expression.getName().equals(name))
+            {
+                continue;
+            }
+
+            Annotation annotation = (Annotation) expression;
+            if (annotation.getTargets() == null || Arrays.asList(annotation.getTargets()).contains(target))
+            {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method converts the value of an annotation node into the value of the annotation
+     *
+     * @param value value of the annotation node
+     *
+     * @return the value of the annotation
+     */
+    private Object toAnnotationValue(Object value)
+    {
+        if (value instanceof List)
+        {
+            List<?> elements = (List<?>) value;
+            List<Object> values = new ArrayList<>(elements.size());
+            for (Object element : elements)
+            {
+                if (!(element instanceof AnnotationNode))
+                {
+                    values.add(this.toAnnotationValue(element));
+                }
+            }
+            return values.toArray();
+        }
+        if (value instanceof String[])
+        {
+            // enum values are stored with their descriptor and their name
+            return ((String[]) value)[1];
+        }
+        if (value instanceof Type)
+        {
+            return ((Type) value).getClassName();
+        }
+        if (value instanceof AnnotationNode)
+        {
+            return new Object[0];
+        }
+        return value;
+    }
+
+    /**
+     * This method converts the specified value into a string array
+     *
+     * @param value the value
+     *
+     * @return the string array
+     */
+    private String[] toStrings(Object value)
+    {
+        if (value == null)
+        {
+            return new String[]{null};
+        }
+        if (!value.getClass().isArray())
+        {
+            return new String[]{value.toString()};
+        }
+
+        String[] strings = new String[Array.getLength(value)];
+        for (int i = 0; i < strings.length; i++)
+        {
+            Object element = Array.get(value, i);
+            strings[i] = element == null ? null : element.toString();
+        }
+        return strings;
+    }
+
+    /**
+     * This method adds the messages to the message store
+     *
+     * @param expression the expression from which the messages were extracted
+     * @param file       source file of the class
+     * @param line       line of the expression
+     * @param context    the message context
+     * @param singulars  the message singulars
+     * @param plurals    the message plurals
+     */
+    private void addMessage(JavaExpression expression, File file, int line, String context, String[] singulars, String[] plurals)
+    {
+        if (context == null)
+        {
+            context = expression.getDefaultContext();
+        }
+
+        if (expression.hasPlural())
+        {
+            if (plurals.length > 1)
+            {
+                throw new IllegalTranslatableMessageException("A message can't have more than one plurals.");
+            }
+
+            if (singulars.length > 1)
+            {
+                throw new IllegalTranslatableMessageException("A message with a plural can't have more than one singular.");
+            }
+
+            if (singulars[0] == null || singulars[0].isEmpty())
+            {
+                this.logger.info("The singular message can't be an empty string. Occurrence: " + file.getPath() + ":" + line);
+                return;
+            }
+
+            TranslatableMessage message = this.messageStore.getOrCreateMessage(context, singulars[0], plurals[0]);
+            this.messageStore.addSourceReference(message, file, line, expression, Collections.<String>emptyList());
+            return;
+        }
+
+        for (String singular : singulars)
+        {
+            if (singular == null || singular.isEmpty())
+            {
+                this.logger.info("The singular message can't be an empty string. Occurrence: " + file.getPath() + ":" + line);
+                continue;
+            }
+
+            TranslatableMessage message = this.messageStore.getOrCreateMessage(context, singular, null);
+            this.messageStore.addSourceReference(message, file, line, expression, Collections.<String>emptyList());
+        }
+    }
+
+    /**
+     * This method returns the first line of the specified method
+     *
+     * @param method the method
+     *
+     * @return first line or 0 if the method doesn't have line numbers
+     */
+    private int getFirstLine(MethodNode method)
+    {
+        int line = 0;
+        for (AbstractInsnNode instruction : method.instructions.toArray())
+        {
+            if (instruction instanceof LineNumberNode && (line == 0 || ((LineNumberNode) instruction).line < line))
+            {
+                line = ((LineNumberNode) instruction).line;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * This method returns the path of the source file of the class relative to the source directory.
+     *
+     * @param classNode the class
+     *
+     * @return source file
+     */
+    private File getSourceFile(ClassNode classNode)
+    {
+        int index = classNode.name.lastIndexOf('/');
+        String directory = classNode.name.substring(0, index + 1);
+
+        String sourceFile = classNode.sourceFile;
+        if (sourceFile == null)
+        {
+            String simpleName = classNode.name.substring(index + 1);
+            int innerClassIndex = simpleName.indexOf('$');
+            if (innerClassIndex > 0)
+            {
+                simpleName = simpleName.substring(0, innerClassIndex);
+            }
+            sourceFile = simpleName + ".java";
+        }
+
+        return new File(directory + sourceFile);
+    }
+
+    /**
+     * This method converts a fully qualified class name into an internal name
+     *
+     * @param name fully qualified class name
+     *
+     * @return internal name
+     */
+    private String toInternalName(String name)
+    {
+        return name.replace('.', '/');
+    }
+}
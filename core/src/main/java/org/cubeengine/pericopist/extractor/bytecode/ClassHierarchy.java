@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.bytecode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * This class stores the super types of classes. The super types of the scanned classes are added
+ * while scanning. Every other class is read from the class loader as soon as it's needed.
+ */
+class ClassHierarchy
+{
+    private static final String[] NO_SUPER_TYPES = new String[0];
+
+    private final ClassLoader classLoader;
+    private final Map<String, String[]> superTypes;
+
+    /**
+     * The constructor creates a new class hierarchy
+     *
+     * @param classLoader class loader which is used to read the classes which weren't added
+     */
+    ClassHierarchy(ClassLoader classLoader)
+    {
+        this.classLoader = classLoader;
+        this.superTypes = new HashMap<>();
+    }
+
+    /**
+     * This method adds the super types of a class
+     *
+     * @param name       internal name of the class
+     * @param superName  internal name of the super class or null
+     * @param interfaces internal names of the interfaces
+     */
+    void addClass(String name, String superName, String[] interfaces)
+    {
+        String[] types = new String[interfaces.length + (superName == null ? 0 : 1)];
+        int i = 0;
+        if (superName != null)
+        {
+            types[i++] = superName;
+        }
+        for (String anInterface : interfaces)
+        {
+            types[i++] = anInterface;
+        }
+        this.superTypes.put(name, types);
+    }
+
+    /**
+     * This method checks whether the class is the specified super type or a subtype of it.
+     *
+     * @param name      internal name of the class
+     * @param superType internal name of the super type
+     *
+     * @return whether the class is a subtype of the super type
+     */
+    boolean isSubtypeOf(String name, String superType)
+    {
+        Set<String> visited = new HashSet<>();
+        Queue<String> queue = new ArrayDeque<>();
+        queue.offer(name);
+
+        while (!queue.isEmpty())
+        {
+            String type = queue.poll();
+            if (type.equals(superType))
+            {
+                return true;
+            }
+            if (!visited.add(type))
+            {
+                continue;
+            }
+
+            for (String parent : this.getSuperTypes(type))
+            {
+                queue.offer(parent);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method returns the direct super types of the specified class.
+     *
+     * @param name internal name of the class
+     *
+     * @return internal names of the super types
+     */
+    private String[] getSuperTypes(String name)
+    {
+        String[] types = this.superTypes.get(name);
+        if (types != null)
+        {
+            return types;
+        }
+
+        types = NO_SUPER_TYPES;
+        try (InputStream inputStream = this.classLoader.getResourceAsStream(name + ".class"))
+        {
+            if (inputStream != null)
+            {
+                ClassReader reader = new ClassReader(inputStream);
+                this.addClass(name, reader.getSuperName(), reader.getInterfaces());
+                return this.superTypes.get(name);
+            }
+        }
+        catch (IOException ignored)
+        {
+            // the class is handled as a class without super types
+        }
+
+        this.superTypes.put(name, types);
+        return types;
+    }
+}
@@ -23,30 +23,48 @@
 package org.cubeengine.pericopist.extractor.java;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.cubeengine.pericopist.exception.MessageExtractionException;
 import org.cubeengine.pericopist.exception.SourceDirectoryNotExistingException;
 import org.cubeengine.pericopist.extractor.ExtractorConfiguration;
 import org.cubeengine.pericopist.extractor.MessageExtractor;
+import org.cubeengine.pericopist.extractor.java.cache.ExtractionCache;
 import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
 import org.cubeengine.pericopist.extractor.java.converter.ConverterManager;
+import org.cubeengine.pericopist.extractor.java.converter.InvocationPolicy;
 import org.cubeengine.pericopist.extractor.java.processor.AnnotationProcessor;
 import org.cubeengine.pericopist.extractor.java.processor.CallableExpressionProcessor;
+import org.cubeengine.pericopist.extractor.java.processor.DependencyProcessor;
+import org.cubeengine.pericopist.extractor.java.processor.MessageScanner;
+import org.cubeengine.pericopist.message.ConcurrentMessageStore;
 import org.cubeengine.pericopist.message.MessageStore;
+import org.cubeengine.pericopist.util.Misc;
 import spoon.Launcher;
 import spoon.SpoonModelBuilder;
 import spoon.processing.Processor;
+import spoon.reflect.cu.CompilationUnit;
 import spoon.reflect.declaration.CtElement;
+import spoon.reflect.factory.Factory;
 
 /**
  * This {@link MessageExtractor} implementation is used for extracting the programming language java.
@@ -55,10 +73,16 @@ public class JavaMessageExtractor implements MessageExtractor
 {
     private Logger logger;
     private final ConverterManager converterManager;
+    private final ClassLoader baseClassLoader;
+    private ExtractionCache cache;
 
     public JavaMessageExtractor()
     {
         this.converterManager = new ConverterManager(true);
+
+        // the class loaders of the extractions are created on top of the same loader. Otherwise they would chain up between the runs.
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        this.baseClassLoader = classLoader == null ? JavaMessageExtractor.class.getClassLoader() : classLoader;
     }
 
     @Override
@@ -72,33 +96,28 @@ public class JavaMessageExtractor implements MessageExtractor
         }
 
         int messageAmount = messageStore.size();
+        extractorConfig.clearTypeHierarchyCache();
+        this.converterManager.clearCache();
+        this.converterManager.setInvocationPolicy(new InvocationPolicy(extractorConfig.getPureMethods(), extractorConfig.getPureMethodsOnly(), extractorConfig.getInvocationTimeout(), extractorConfig.getInvocationBudget(), this.logger));
 
         try
         {
-            Launcher launcher = new Launcher();
-            launcher.getEnvironment().setEncoding(config.getCharset());
-
-            SpoonModelBuilder compiler = launcher.createCompiler();
-            compiler.addInputSource(extractorConfig.getDirectory());
-            String[] classpath = this.loadClasspath(extractorConfig.getClasspathEntries());
-            compiler.setSourceClasspath(classpath);
-            this.loadClassLoader(classpath);
-
-            compiler.build();
-
-            Collection<Processor<? extends CtElement>> processors = Arrays.<Processor<? extends CtElement>>asList(
-                new CallableExpressionProcessor((JavaExtractorConfiguration) config, messageStore, this.converterManager, this.logger),
-                new AnnotationProcessor((JavaExtractorConfiguration) config, messageStore, this.converterManager, this.logger)
-            );
-
-            compiler.process(processors);
+            if (extractorConfig.getCacheFile() == null)
+            {
+                this.processSources(extractorConfig, Collections.singletonList(extractorConfig.getDirectory()), messageStore, null);
+            }
+            else
+            {
+                this.processSourcesIncrementally(extractorConfig, messageStore);
+            }
         }
         catch (Exception e)
         {
             throw new MessageExtractionException("An error occurred while extracting the messages", e);
         }
 
-        this.logger.info("The " + this.getClass().getSimpleName() + " extracted " + (messageStore.size() - messageAmount) + " new messages from the source code.");
+        this.logger.info("The " + this.getClass().getSimpleName() + " extracted " + (messageStore.size() - messageAmount) + " messages from the source code.");
+        this.logger.fine("The conversion cache answered " + this.converterManager.getCacheHits() + " of " + (this.converterManager.getCacheHits() + this.converterManager.getCacheMisses()) + " cacheable conversions.");
 
         return messageStore;
     }
@@ -109,6 +128,448 @@ public class JavaMessageExtractor implements MessageExtractor
         this.logger = logger;
     }
 
+    /**
+     * This method parses the specified source files and directories with spoon and
+     * stores the extracted messages in the message store.
+     * <p/>
+     * The source files which don't contain a name of a translatable expression are skipped if the prefilter
+     * is enabled. Their classes have to be available on the classpath.
+     * <p/>
+     * The source files are split into shards if the configuration specifies more than one thread.
+     * Every shard is parsed by its own spoon model. The shards store their messages in one shared
+     * {@link ConcurrentMessageStore} whose sorted messages are added to the message store afterwards,
+     * thus the result doesn't depend on the order in which the shards finish.
+     *
+     * @param config       the extractor configuration
+     * @param inputSources source files and directories which shall be parsed
+     * @param messageStore message store which shall store the messages
+     * @param cache        extraction cache which shall store the dependencies of the parsed source files or null
+     *
+     * @throws Exception if the parsing fails
+     */
+    private void processSources(final JavaExtractorConfiguration config, List<File> inputSources, MessageStore messageStore, final ExtractionCache cache) throws Exception
+    {
+        final String[] classpath = this.loadClasspath(config.getClasspathEntries());
+        this.converterManager.setClasspath(classpath);
+        final ClassLoader classLoader = this.createClassLoader(classpath);
+        try
+        {
+            this.processSources(config, inputSources, classpath, classLoader, messageStore, cache);
+        }
+        finally
+        {
+            // the classes of the source files are loaded again by the next extraction
+            if (classLoader instanceof URLClassLoader)
+            {
+                try
+                {
+                    ((URLClassLoader) classLoader).close();
+                }
+                catch (IOException e)
+                {
+                    this.logger.log(Level.WARNING, "The class loader of the classpath couldn't be closed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method parses the specified source files and directories with the class loader of the classpath.
+     *
+     * @param config       the extractor configuration
+     * @param inputSources source files and directories which shall be parsed
+     * @param classpath    the classpath
+     * @param classLoader  the class loader containing the classpath
+     * @param messageStore message store which shall store the messages
+     * @param cache        extraction cache which shall store the dependencies of the parsed source files or null
+     *
+     * @throws Exception if the parsing fails
+     *
+     * @see #processSources(org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration, java.util.List, org.cubeengine.pericopist.message.MessageStore, org.cubeengine.pericopist.extractor.java.cache.ExtractionCache)
+     */
+    private void processSources(final JavaExtractorConfiguration config, List<File> inputSources, final String[] classpath, final ClassLoader classLoader, MessageStore messageStore, final ExtractionCache cache) throws Exception
+    {
+        int threadCount = config.getThreadCount();
+        if (threadCount <= 1 && !config.getPrefilter())
+        {
+            this.processShard(config, inputSources, classpath, classLoader, messageStore, cache);
+            return;
+        }
+
+        List<File> sourceFiles = new ArrayList<>();
+        for (File inputSource : inputSources)
+        {
+            if (inputSource.isDirectory())
+            {
+                this.collectSourceFiles(inputSource, sourceFiles);
+            }
+            else
+            {
+                sourceFiles.add(inputSource);
+            }
+        }
+
+        if (config.getPrefilter())
+        {
+            int sourceFileCount = sourceFiles.size();
+            sourceFiles = new SourceFilePrefilter(config).filter(sourceFiles);
+
+            this.logger.info("The " + this.getClass().getSimpleName() + " found " + sourceFiles.size() + " of " + sourceFileCount + " source files which may contain translatable expressions.");
+            if (sourceFiles.isEmpty())
+            {
+                return;
+            }
+        }
+
+        List<List<File>> shards = this.createShards(sourceFiles, threadCount);
+        if (shards.size() <= 1)
+        {
+            this.processShard(config, sourceFiles, classpath, classLoader, messageStore, cache);
+            return;
+        }
+
+        this.logger.info("The " + this.getClass().getSimpleName() + " parses " + sourceFiles.size() + " source files in " + shards.size() + " shards.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+        try
+        {
+            // the shards share one concurrent message store. Its snapshot is sorted, so the result is independent of the thread scheduling.
+            final MessageStore sharedMessageStore = new ConcurrentMessageStore();
+
+            List<Future<Void>> futures = new ArrayList<>(shards.size());
+            for (final List<File> shard : shards)
+            {
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        JavaMessageExtractor.this.processShard(config, shard, classpath, classLoader, sharedMessageStore, cache);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    if (e.getCause() instanceof Exception)
+                    {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+
+            messageStore.addMessages(sharedMessageStore);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * This method parses the specified source files and directories with one spoon model and
+     * stores the extracted messages in the message store.
+     *
+     * @param config       the extractor configuration
+     * @param inputSources source files and directories which shall be parsed
+     * @param classpath    the classpath of the source files
+     * @param classLoader  the class loader containing the classpath
+     * @param messageStore message store which shall store the messages
+     * @param cache        extraction cache which shall store the dependencies of the parsed source files or null
+     *
+     * @throws Exception if the parsing fails
+     */
+    private void processShard(JavaExtractorConfiguration config, List<File> inputSources, String[] classpath, ClassLoader classLoader, MessageStore messageStore, ExtractionCache cache) throws Exception
+    {
+        Thread thread = Thread.currentThread();
+        ClassLoader previousClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try
+        {
+            this.processShard(config, inputSources, classpath, messageStore, cache);
+        }
+        finally
+        {
+            thread.setContextClassLoader(previousClassLoader);
+        }
+    }
+
+    /**
+     * This method parses the specified source files and directories with one spoon model. The class loader
+     * of the classpath has to be the context class loader of the current thread.
+     *
+     * @param config       the extractor configuration
+     * @param inputSources source files and directories which shall be parsed
+     * @param classpath    the classpath
+     * @param messageStore message store which shall store the messages
+     * @param cache        extraction cache which shall store the dependencies of the parsed source files or null
+     *
+     * @throws Exception if the parsing fails
+     */
+    private void processShard(JavaExtractorConfiguration config, List<File> inputSources, String[] classpath, MessageStore messageStore, ExtractionCache cache) throws Exception
+    {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setEncoding(config.getCharset());
+
+        SpoonModelBuilder compiler = launcher.createCompiler();
+        for (File inputSource : inputSources)
+        {
+            compiler.addInputSource(inputSource);
+        }
+        compiler.setSourceClasspath(classpath);
+
+        compiler.build();
+
+        Factory factory = compiler.getFactory();
+        List<Processor<? extends CtElement>> processors = new ArrayList<>(this.createProcessors(config, messageStore));
+
+        DependencyProcessor dependencyProcessor = null;
+        if (cache != null)
+        {
+            dependencyProcessor = new DependencyProcessor();
+            processors.add(dependencyProcessor);
+        }
+
+        MessageScanner scanner = new MessageScanner(factory, processors);
+        scanner.process(factory.Package().getRootPackage());
+
+        if (dependencyProcessor != null)
+        {
+            this.storeDependencies(config, factory, dependencyProcessor, cache);
+        }
+    }
+
+    /**
+     * This method stores the top level types which are declared by every compilation unit of the spoon model
+     * and the top level types which are used by the compilation unit.
+     *
+     * @param config              the extractor configuration
+     * @param factory             the factory of the spoon model
+     * @param dependencyProcessor the processor which collected the types while the messages were extracted
+     * @param cache               extraction cache which shall store the dependencies
+     */
+    private void storeDependencies(JavaExtractorConfiguration config, Factory factory, DependencyProcessor dependencyProcessor, ExtractionCache cache)
+    {
+        for (CompilationUnit compilationUnit : factory.CompilationUnit().getMap().values())
+        {
+            if (compilationUnit.getFile() == null)
+            {
+                continue;
+            }
+
+            Set<String> declaredTypes = dependencyProcessor.getDeclaredTypes(compilationUnit);
+            Set<String> dependencies = dependencyProcessor.getDependencies(compilationUnit);
+            cache.storeDependencies(Misc.getRelativizedFile(config.getDirectory(), compilationUnit.getFile()).getPath(), declaredTypes, dependencies);
+        }
+    }
+
+    /**
+     * This method creates the processors which extract the messages from the spoon model.
+     * All of them process the model within one traversal. Subclasses can override the method
+     * to add their own processors.
+     *
+     * @param config       the configuration of the extractor
+     * @param messageStore the message store to which the messages shall be added
+     *
+     * @return the processors
+     */
+    protected List<Processor<? extends CtElement>> createProcessors(JavaExtractorConfiguration config, MessageStore messageStore)
+    {
+        List<Processor<? extends CtElement>> processors = new ArrayList<>(2);
+        processors.add(new CallableExpressionProcessor(config, messageStore, this.converterManager, this.logger));
+        processors.add(new AnnotationProcessor(config, messageStore, this.converterManager, this.logger));
+        return processors;
+    }
+
+    /**
+     * This method splits the source files into the specified amount of shards.
+     * The shards have nearly the same size and the result just depends on the source files.
+     *
+     * @param sourceFiles source files
+     * @param shardCount  maximal amount of shards
+     *
+     * @return list of shards
+     */
+    private List<List<File>> createShards(List<File> sourceFiles, int shardCount)
+    {
+        List<File> sortedSourceFiles = new ArrayList<>(sourceFiles);
+        Collections.sort(sortedSourceFiles, new Comparator<File>()
+        {
+            @Override
+            public int compare(File o1, File o2)
+            {
+                int comp = Long.compare(o2.length(), o1.length());
+                if (comp != 0)
+                {
+                    return comp;
+                }
+                return o1.compareTo(o2);
+            }
+        });
+
+        shardCount = Math.min(shardCount, sortedSourceFiles.size());
+        List<List<File>> shards = new ArrayList<>(shardCount);
+        long[] shardSizes = new long[shardCount];
+        for (int i = 0; i < shardCount; i++)
+        {
+            shards.add(new ArrayList<File>());
+        }
+
+        // adds the largest remaining file to the smallest shard
+        for (File sourceFile : sortedSourceFiles)
+        {
+            int smallestShard = 0;
+            for (int i = 1; i < shardCount; i++)
+            {
+                if (shardSizes[i] < shardSizes[smallestShard])
+                {
+                    smallestShard = i;
+                }
+            }
+
+            shards.get(smallestShard).add(sourceFile);
+            shardSizes[smallestShard] += sourceFile.length();
+        }
+
+        return shards;
+    }
+
+    /**
+     * This method parses just the source files which changed since the last extraction.
+     * The messages of the unchanged source files are restored from the {@link ExtractionCache}.
+     * <p/>
+     * The unchanged source files aren't part of the spoon model. Their classes have to be
+     * available on the classpath.
+     *
+     * @param config       the extractor configuration
+     * @param messageStore message store which shall store the messages
+     *
+     * @throws Exception if the parsing fails
+     */
+    private void processSourcesIncrementally(JavaExtractorConfiguration config, MessageStore messageStore) throws Exception
+    {
+        // the cache stays in memory. The file is read just once as long as the configuration doesn't change.
+        ExtractionCache cache = this.cache;
+        if (cache == null || !cache.isCreatedFor(config))
+        {
+            try
+            {
+                cache = ExtractionCache.load(config.getCacheFile(), config);
+            }
+            catch (IOException e)
+            {
+                this.logger.log(Level.WARNING, "The extraction cache '" + config.getCacheFile().getAbsolutePath() + "' couldn't be read.", e);
+                cache = new ExtractionCache(config);
+            }
+            this.cache = cache;
+        }
+
+        List<File> sourceFiles = new ArrayList<>();
+        this.collectSourceFiles(config.getDirectory(), sourceFiles);
+
+        // 1. find the changed, added and deleted source files
+        Map<String, File> files = new HashMap<>(sourceFiles.size());
+        Map<String, String> fingerprints = new HashMap<>();
+        Set<String> changedPaths = new HashSet<>(cache.getPaths());
+        for (File sourceFile : sourceFiles)
+        {
+            String path = Misc.getRelativizedFile(config.getDirectory(), sourceFile).getPath();
+            String fingerprint = ExtractionCache.createFingerprint(sourceFile);
+            files.put(path, sourceFile);
+            fingerprints.put(path, fingerprint);
+
+            if (cache.isUpToDate(path, fingerprint))
+            {
+                changedPaths.remove(path);
+            }
+            else
+            {
+                changedPaths.add(path);
+            }
+        }
+
+        // 2. source files which use constants of the changed source files are parsed again
+        Set<String> parsedPaths = new HashSet<>(changedPaths);
+        parsedPaths.addAll(cache.findDependentSourceFiles(changedPaths));
+        parsedPaths.retainAll(files.keySet());
+
+        List<File> changedSourceFiles = new ArrayList<>();
+        for (File sourceFile : sourceFiles)
+        {
+            String path = Misc.getRelativizedFile(config.getDirectory(), sourceFile).getPath();
+            if (parsedPaths.contains(path))
+            {
+                changedSourceFiles.add(sourceFile);
+            }
+            else
+            {
+                cache.restoreMessages(path, messageStore, config.getJavaExpressions());
+            }
+        }
+        fingerprints.keySet().retainAll(parsedPaths);
+
+        this.logger.info("The " + this.getClass().getSimpleName() + " parses " + changedSourceFiles.size() + " of " + sourceFiles.size() + " source files.");
+
+        if (!changedSourceFiles.isEmpty())
+        {
+            this.processSources(config, changedSourceFiles, messageStore, cache);
+        }
+
+        cache.retainSourceFiles(files.keySet());
+        cache.storeMessages(fingerprints, messageStore, config.getJavaExpressions());
+
+        // an unchanged cache isn't written again. A watched cache file would trigger another update otherwise.
+        if (changedPaths.isEmpty() && config.getCacheFile().exists())
+        {
+            return;
+        }
+
+        try
+        {
+            cache.save(config.getCacheFile());
+        }
+        catch (IOException e)
+        {
+            this.logger.log(Level.WARNING, "The extraction cache '" + config.getCacheFile().getAbsolutePath() + "' couldn't be written.", e);
+        }
+    }
+
+    /**
+     * This method collects the java source files of the specified directory and its subdirectories.
+     *
+     * @param directory   the directory
+     * @param sourceFiles list which shall contain the source files
+     */
+    private void collectSourceFiles(File directory, List<File> sourceFiles)
+    {
+        File[] files = directory.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+
+        Arrays.sort(files);
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                this.collectSourceFiles(file, sourceFiles);
+            }
+            else if (file.getName().endsWith(".java"))
+            {
+                sourceFiles.add(file);
+            }
+        }
+    }
+
     /**
      * This method creates a classpath from the specified classpath entries. It also removes non existing entries
      * and directories which contains java files.
@@ -142,16 +603,18 @@ public class JavaMessageExtractor implements MessageExtractor
     }
 
     /**
-     * This method creates a new ClassLoader instance which
-     * contains the specified classpath and the current one.
+     * This method creates a new ClassLoader instance which contains the specified classpath.
+     * Its parent is the context class loader of the thread which created the extractor.
      *
      * @param classpath the new classpath entries
+     *
+     * @return the new ClassLoader instance
      */
-    private void loadClassLoader(String[] classpath) throws MalformedURLException
+    private ClassLoader createClassLoader(String[] classpath) throws MalformedURLException
     {
         if (classpath == null)
         {
-            return;
+            return this.baseClassLoader;
         }
 
         Set<URI> uris = new HashSet<>();
@@ -167,7 +630,6 @@ public class JavaMessageExtractor implements MessageExtractor
             urls[i++] = uri.toURL();
         }
 
-        ClassLoader contextClassLoader = URLClassLoader.newInstance(urls, Thread.currentThread().getContextClassLoader());
-        Thread.currentThread().setContextClassLoader(contextClassLoader);
+        return URLClassLoader.newInstance(urls, this.baseClassLoader);
     }
 }
@@ -0,0 +1,161 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cubeengine.pericopist.extractor.java.configuration.Annotation;
+import org.cubeengine.pericopist.extractor.java.configuration.Constructor;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExpression;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.java.configuration.Method;
+
+/**
+ * <p>
+ * The SourceFilePrefilter scans the content of source files for the simple names of the
+ * translatable expressions of a {@link JavaExtractorConfiguration}. A source file which doesn't contain
+ * one of these names can't contain a translatable expression and doesn't have to be parsed.
+ * </p>
+ *
+ * <p>
+ * The scan is lexical. A name which occurs within a comment or a string marks the file as candidate as well.
+ * </p>
+ */
+public class SourceFilePrefilter
+{
+    private final Charset charset;
+    private final String[] names;
+
+    /**
+     * The constructor creates a new prefilter for the translatable expressions of the specified configuration
+     *
+     * @param configuration the extractor configuration
+     */
+    public SourceFilePrefilter(JavaExtractorConfiguration configuration)
+    {
+        this.charset = configuration.getCharset() == null ? Charset.defaultCharset() : configuration.getCharset();
+        this.names = this.loadNames(configuration.getJavaExpressions());
+    }
+
+    /**
+     * This method returns the source files which may contain a translatable expression
+     *
+     * @param sourceFiles source files
+     *
+     * @return the candidate source files
+     *
+     * @throws IOException if a source file couldn't be read
+     */
+    public List<File> filter(List<File> sourceFiles) throws IOException
+    {
+        if (this.names == null)
+        {
+            return sourceFiles;
+        }
+
+        List<File> candidates = new ArrayList<>();
+        for (File sourceFile : sourceFiles)
+        {
+            if (this.isCandidate(sourceFile))
+            {
+                candidates.add(sourceFile);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * This method checks whether the specified source file contains the simple name of a translatable expression
+     *
+     * @param sourceFile the source file
+     *
+     * @return whether the file may contain a translatable expression
+     *
+     * @throws IOException if the source file couldn't be read
+     */
+    public boolean isCandidate(File sourceFile) throws IOException
+    {
+        if (this.names == null)
+        {
+            return true;
+        }
+
+        String content = new String(Files.readAllBytes(sourceFile.toPath()), this.charset);
+        for (String name : this.names)
+        {
+            if (content.contains(name))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method loads the names which have to occur in a source file containing one of the specified expressions.
+     *
+     * @param expressions translatable expressions
+     *
+     * @return the names or null if an expression isn't supported by the prefilter
+     */
+    private String[] loadNames(JavaExpression[] expressions)
+    {
+        Set<String> names = new LinkedHashSet<>();
+        for (JavaExpression expression : expressions)
+        {
+            if (expression instanceof Method)
+            {
+                names.add(((Method) expression).getMethodName());
+            }
+            else if (expression instanceof Constructor || expression instanceof Annotation)
+            {
+                // a constructor can be called with 'super' or 'this' just within subclasses or the class itself
+                names.add(this.getSimpleName(expression.getName()));
+            }
+            else
+            {
+                return null;
+            }
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * This method returns the simple name of a fully qualified class name
+     *
+     * @param name fully qualified class name
+     *
+     * @return simple name
+     */
+    private String getSimpleName(String name)
+    {
+        return name.substring(Math.max(name.lastIndexOf('.'), name.lastIndexOf('$')) + 1);
+    }
+}
@@ -0,0 +1,606 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.cubeengine.pericopist.extractor.java.configuration.Annotation;
+import org.cubeengine.pericopist.extractor.java.configuration.CallableExpression;
+import org.cubeengine.pericopist.extractor.java.configuration.CallableSignatureType;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExpression;
+import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.java.configuration.Method;
+import org.cubeengine.pericopist.message.MessageStore;
+import org.cubeengine.pericopist.message.SourceReference;
+import org.cubeengine.pericopist.message.TranslatableExpression;
+import org.cubeengine.pericopist.message.TranslatableMessage;
+
+/**
+ * <p>
+ * The ExtractionCache stores the messages which were extracted from every single source file together with a
+ * fingerprint of the content of the file. It is used by the {@link org.cubeengine.pericopist.extractor.java.JavaMessageExtractor}
+ * to parse just the source files which were changed or added since the last extraction.
+ * </p>
+ *
+ * <p>
+ * Every source file stores the top level types it declares and the top level types it uses. Those are the types whose
+ * static fields it accesses and whose methods or constructors it invokes. A source file whose messages may use a
+ * constant or an invocation of a changed, added or deleted source file is parsed again, even if its own content
+ * didn't change.
+ * </p>
+ *
+ * <p>
+ * The cache is bound to the translatable expressions, the charset and the classpath of the configuration.
+ * It is discarded completely if they change.
+ * </p>
+ */
+public class ExtractionCache
+{
+    private static final int FORMAT_VERSION = 3;
+    private static final String JAVA_FILE_EXTENSION = ".java";
+    private static final String DIGEST_ALGORITHM = "SHA-1";
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final String configurationFingerprint;
+    private final Map<String, CachedSourceFile> sourceFiles;
+    private final Map<String, CachedSourceFile> parsedSourceFiles;
+
+    /**
+     * The constructor creates a new empty cache for the specified configuration
+     *
+     * @param configuration the configuration which is used for the extraction
+     */
+    public ExtractionCache(JavaExtractorConfiguration configuration)
+    {
+        this(createConfigurationFingerprint(configuration));
+    }
+
+    private ExtractionCache(String configurationFingerprint)
+    {
+        this.configurationFingerprint = configurationFingerprint;
+        this.sourceFiles = new HashMap<>();
+        this.parsedSourceFiles = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * This method loads the cache from the specified file. It returns an empty cache if the file doesn't exist
+     * or was created with another configuration.
+     *
+     * @param file          the cache file
+     * @param configuration the configuration which is used for the extraction
+     *
+     * @return the loaded cache
+     *
+     * @throws IOException if the file couldn't be read
+     */
+    public static ExtractionCache load(File file, JavaExtractorConfiguration configuration) throws IOException
+    {
+        ExtractionCache cache = new ExtractionCache(configuration);
+        if (!file.exists())
+        {
+            return cache;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            if (in.readInt() != FORMAT_VERSION || !cache.configurationFingerprint.equals(readString(in)))
+            {
+                return cache;
+            }
+
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++)
+            {
+                String path = readString(in);
+                CachedSourceFile sourceFile = new CachedSourceFile(readString(in));
+                readStrings(in, sourceFile.declaredTypes);
+                readStrings(in, sourceFile.dependencies);
+
+                int messageCount = in.readInt();
+                for (int j = 0; j < messageCount; j++)
+                {
+                    CachedMessage message = new CachedMessage(readString(in), readString(in), readString(in), in.readInt(), in.readInt());
+
+                    int commentCount = in.readInt();
+                    for (int k = 0; k < commentCount; k++)
+                    {
+                        message.extractedComments.add(readString(in));
+                    }
+                    sourceFile.messages.add(message);
+                }
+
+                cache.sourceFiles.put(path, sourceFile);
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * This method saves the cache to the specified file
+     *
+     * @param file the cache file
+     *
+     * @throws IOException if the file couldn't be written
+     */
+    public void save(File file) throws IOException
+    {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs())
+        {
+            throw new IOException("The directory of the cache file in '" + directory.getAbsolutePath() + "' couldn't be created.");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+        {
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, this.configurationFingerprint);
+
+            out.writeInt(this.sourceFiles.size());
+            for (Entry<String, CachedSourceFile> entry : this.sourceFiles.entrySet())
+            {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue().fingerprint);
+                writeStrings(out, entry.getValue().declaredTypes);
+                writeStrings(out, entry.getValue().dependencies);
+
+                out.writeInt(entry.getValue().messages.size());
+                for (CachedMessage message : entry.getValue().messages)
+                {
+                    writeString(out, message.context);
+                    writeString(out, message.singular);
+                    writeString(out, message.plural);
+                    out.writeInt(message.line);
+                    out.writeInt(message.expressionIndex);
+
+                    out.writeInt(message.extractedComments.size());
+                    for (String comment : message.extractedComments)
+                    {
+                        writeString(out, comment);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This method checks whether the cache was created for the specified configuration
+     *
+     * @param configuration the configuration which is used for the extraction
+     *
+     * @return whether the cache can be used with the configuration
+     */
+    public boolean isCreatedFor(JavaExtractorConfiguration configuration)
+    {
+        return this.configurationFingerprint.equals(createConfigurationFingerprint(configuration));
+    }
+
+    /**
+     * This method creates the fingerprint of the content of a source file
+     *
+     * @param file the source file
+     *
+     * @return fingerprint of the file
+     *
+     * @throws IOException if the file couldn't be read
+     */
+    public static String createFingerprint(File file) throws IOException
+    {
+        return digest(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * This method returns the paths of the source files which are stored by the cache.
+     *
+     * @return paths of the source files relative to the source directory
+     */
+    public Set<String> getPaths()
+    {
+        return Collections.unmodifiableSet(this.sourceFiles.keySet());
+    }
+
+    /**
+     * This method checks whether the cache contains the messages of the source file with the specified fingerprint.
+     *
+     * @param path        path of the source file relative to the source directory
+     * @param fingerprint current fingerprint of the source file
+     *
+     * @return whether the cached messages of the source file can be used
+     */
+    public boolean isUpToDate(String path, String fingerprint)
+    {
+        CachedSourceFile sourceFile = this.sourceFiles.get(path);
+        return sourceFile != null && sourceFile.fingerprint.equals(fingerprint);
+    }
+
+    /**
+     * This method returns the cached source files which have to be parsed again, because they use a type
+     * which is declared by one of the specified source files. The types of the specified source files are
+     * the types which were declared by them before and the type which is named like the source file. The source files
+     * which are parsed again change their constants as well, thus their dependents are added too.
+     *
+     * @param changedPaths paths of the changed, added and deleted source files relative to the source directory
+     *
+     * @return paths of the dependent source files relative to the source directory
+     */
+    public Set<String> findDependentSourceFiles(Collection<String> changedPaths)
+    {
+        Set<String> changedTypes = new HashSet<>();
+        for (String path : changedPaths)
+        {
+            this.addDeclaredTypes(path, changedTypes);
+        }
+
+        Set<String> dependents = new HashSet<>();
+        boolean found = !changedTypes.isEmpty();
+        while (found)
+        {
+            found = false;
+            for (Entry<String, CachedSourceFile> entry : this.sourceFiles.entrySet())
+            {
+                String path = entry.getKey();
+                if (changedPaths.contains(path) || dependents.contains(path) || Collections.disjoint(entry.getValue().dependencies, changedTypes))
+                {
+                    continue;
+                }
+
+                dependents.add(path);
+                this.addDeclaredTypes(path, changedTypes);
+                found = true;
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * This method adds the top level types of the specified source file to the set. Those are the cached types of the
+     * source file and the type which is named like the source file.
+     *
+     * @param path  path of the source file relative to the source directory
+     * @param types set which shall contain the types
+     */
+    private void addDeclaredTypes(String path, Set<String> types)
+    {
+        CachedSourceFile sourceFile = this.sourceFiles.get(path);
+        if (sourceFile != null)
+        {
+            types.addAll(sourceFile.declaredTypes);
+        }
+
+        String typePath = path.replace(File.separatorChar, '/');
+        if (typePath.endsWith(JAVA_FILE_EXTENSION))
+        {
+            types.add(typePath.substring(0, typePath.length() - JAVA_FILE_EXTENSION.length()).replace('/', '.'));
+        }
+    }
+
+    /**
+     * This method stores the top level types which are declared by a parsed source file and the top level types
+     * which are used by it. They're stored with the messages of the source file.
+     * The method can be called by multiple threads.
+     *
+     * @param path          path of the source file relative to the source directory
+     * @param declaredTypes qualified names of the declared top level types
+     * @param dependencies  qualified names of the top level types whose static fields, methods or constructors are used
+     *
+     * @see #storeMessages(java.util.Map, org.cubeengine.pericopist.message.MessageStore, org.cubeengine.pericopist.extractor.java.configuration.JavaExpression[])
+     */
+    public void storeDependencies(String path, Collection<String> declaredTypes, Collection<String> dependencies)
+    {
+        CachedSourceFile sourceFile = new CachedSourceFile(null);
+        sourceFile.declaredTypes.addAll(declaredTypes);
+        sourceFile.dependencies.addAll(dependencies);
+        this.parsedSourceFiles.put(path, sourceFile);
+    }
+
+    /**
+     * This method adds the cached messages of the specified source file to the message store.
+     *
+     * @param path         path of the source file relative to the source directory
+     * @param messageStore message store which shall store the messages
+     * @param expressions  the translatable expressions of the configuration
+     */
+    public void restoreMessages(String path, MessageStore messageStore, JavaExpression[] expressions)
+    {
+        CachedSourceFile sourceFile = this.sourceFiles.get(path);
+        if (sourceFile == null)
+        {
+            return;
+        }
+
+        File file = new File(path);
+        for (CachedMessage cachedMessage : sourceFile.messages)
+        {
+            TranslatableExpression expression = null;
+            if (cachedMessage.expressionIndex >= 0 && cachedMessage.expressionIndex < expressions.length)
+            {
+                expression = expressions[cachedMessage.expressionIndex];
+            }
+
+            TranslatableMessage message = messageStore.getOrCreateMessage(cachedMessage.context, cachedMessage.singular, cachedMessage.plural);
+            messageStore.addSourceReference(message, file, cachedMessage.line, expression, cachedMessage.extractedComments);
+        }
+    }
+
+    /**
+     * This method removes every source file from the cache which isn't contained by the specified paths.
+     *
+     * @param paths paths of the existing source files relative to the source directory
+     */
+    public void retainSourceFiles(Collection<String> paths)
+    {
+        this.sourceFiles.keySet().retainAll(paths);
+    }
+
+    /**
+     * This method stores the messages of the specified source files. The messages are loaded from the source references
+     * of the message store.
+     *
+     * @param fingerprints map containing the paths of the parsed source files relative to the source directory and their fingerprints
+     * @param messageStore message store containing the extracted messages
+     * @param expressions  the translatable expressions of the configuration
+     */
+    public void storeMessages(Map<String, String> fingerprints, MessageStore messageStore, JavaExpression[] expressions)
+    {
+        if (fingerprints.isEmpty())
+        {
+            this.parsedSourceFiles.clear();
+            return;
+        }
+
+        Map<TranslatableExpression, Integer> expressionIndices = new IdentityHashMap<>();
+        for (int i = 0; i < expressions.length; i++)
+        {
+            expressionIndices.put(expressions[i], i);
+        }
+
+        Map<String, CachedSourceFile> parsedFiles = new HashMap<>(fingerprints.size());
+        for (Entry<String, String> entry : fingerprints.entrySet())
+        {
+            CachedSourceFile sourceFile = new CachedSourceFile(entry.getValue());
+
+            CachedSourceFile dependencies = this.parsedSourceFiles.get(entry.getKey());
+            if (dependencies != null)
+            {
+                sourceFile.declaredTypes.addAll(dependencies.declaredTypes);
+                sourceFile.dependencies.addAll(dependencies.dependencies);
+            }
+            parsedFiles.put(entry.getKey(), sourceFile);
+        }
+        this.parsedSourceFiles.clear();
+
+        for (TranslatableMessage message : messageStore)
+        {
+            for (SourceReference sourceReference : message.getSourceReferences())
+            {
+                CachedSourceFile sourceFile = parsedFiles.get(sourceReference.getFile().getPath());
+                if (sourceFile == null)
+                {
+                    continue;
+                }
+
+                Integer expressionIndex = expressionIndices.get(sourceReference.getExpression());
+                CachedMessage cachedMessage = new CachedMessage(message.getContext(), message.getSingular(), message.getPlural(), sourceReference.getLine(), expressionIndex == null ? -1 : expressionIndex);
+                cachedMessage.extractedComments.addAll(sourceReference.getExtractedComments());
+
+                sourceFile.messages.add(cachedMessage);
+            }
+        }
+
+        this.sourceFiles.putAll(parsedFiles);
+    }
+
+    /**
+     * This method returns the amount of source files which are stored by the cache
+     *
+     * @return amount of source files
+     */
+    public int size()
+    {
+        return this.sourceFiles.size();
+    }
+
+    /**
+     * This method creates the fingerprint of the translatable expressions, the charset, the classpath
+     * and the invocation settings of the configuration.
+     *
+     * @param configuration the configuration
+     *
+     * @return fingerprint of the configuration
+     */
+    private static String createConfigurationFingerprint(JavaExtractorConfiguration configuration)
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append(configuration.getDirectory().getAbsolutePath()).append('\n');
+        builder.append(configuration.getCharset()).append('\n');
+        builder.append(Arrays.toString(configuration.getClasspathEntries())).append('\n');
+        builder.append(Arrays.toString(configuration.getPureMethods())).append('\n');
+        builder.append(configuration.getPureMethodsOnly()).append('\n');
+        builder.append(configuration.getInvocationTimeout()).append('\n');
+        builder.append(configuration.getInvocationBudget()).append('\n');
+        for (JavaExpression expression : configuration.getJavaExpressions())
+        {
+            builder.append(expression.getClass().getName()).append('\n');
+            builder.append(expression.getFQN()).append('\n');
+            builder.append(expression.getDefaultContext()).append('\n');
+            builder.append(expression.getDescription()).append('\n');
+            builder.append(expression).append('\n');
+
+            if (expression instanceof CallableExpression)
+            {
+                for (CallableSignatureType signatureType : ((CallableExpression) expression).getSignature())
+                {
+                    builder.append(signatureType.getUsage()).append(' ');
+                }
+                builder.append('\n');
+            }
+            if (expression instanceof Method)
+            {
+                builder.append(((Method) expression).isStatic()).append('\n');
+            }
+            else if (expression instanceof Annotation)
+            {
+                builder.append(((Annotation) expression).getContextField()).append('\n');
+                builder.append(Arrays.toString(((Annotation) expression).getTargets())).append('\n');
+            }
+        }
+        return digest(builder.toString().getBytes(CHARSET));
+    }
+
+    /**
+     * This method creates a hex string of the digest of the specified bytes
+     *
+     * @param bytes bytes
+     *
+     * @return hex string of the digest
+     */
+    private static String digest(byte[] bytes)
+    {
+        MessageDigest messageDigest;
+        try
+        {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("The digest algorithm " + DIGEST_ALGORITHM + " isn't supported.", e);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (byte b : messageDigest.digest(bytes))
+        {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    private static void readStrings(DataInputStream in, Collection<String> strings) throws IOException
+    {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++)
+        {
+            strings.add(readString(in));
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException
+    {
+        out.writeInt(strings.size());
+        for (String string : strings)
+        {
+            writeString(out, string);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException
+    {
+        if (string == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = string.getBytes(CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * helper class which stores the fingerprint, the extracted messages, the declared types and the dependencies of a source file
+     */
+    private static class CachedSourceFile
+    {
+        private final String fingerprint;
+        private final List<CachedMessage> messages;
+        private final Set<String> declaredTypes;
+        private final Set<String> dependencies;
+
+        private CachedSourceFile(String fingerprint)
+        {
+            this.fingerprint = fingerprint;
+            this.messages = new ArrayList<>();
+            this.declaredTypes = new HashSet<>();
+            this.dependencies = new HashSet<>();
+        }
+    }
+
+    /**
+     * helper class which stores a single occurrence of an extracted message
+     */
+    private static class CachedMessage
+    {
+        private final String context;
+        private final String singular;
+        private final String plural;
+        private final int line;
+        private final int expressionIndex;
+        private final List<String> extractedComments;
+
+        private CachedMessage(String context, String singular, String plural, int line, int expressionIndex)
+        {
+            this.context = context;
+            this.singular = singular;
+            this.plural = plural;
+            this.line = line;
+            this.expressionIndex = expressionIndex;
+            this.extractedComments = new ArrayList<>(0);
+        }
+    }
+}
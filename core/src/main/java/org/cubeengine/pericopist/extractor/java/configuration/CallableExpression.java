@@ -39,6 +39,7 @@ import spoon.reflect.reference.CtTypeReference;
 public abstract class CallableExpression extends JavaExpression
 {
     private CallableSignatureType[] signature;
+    private String signatureKey;
 
     /**
      * This method returns the signature of the callable expression
@@ -60,6 +61,59 @@ public abstract class CallableExpression extends JavaExpression
     public void setSignature(CallableSignatureType... signature)
     {
         this.signature = signature;
+        this.signatureKey = null;
+    }
+
+    /**
+     * This method returns the key of the signature. It contains the types of the signature separated by commas.
+     * The names of nested classes are separated by a dot. The key is created with the first call.
+     *
+     * @return key of the signature
+     */
+    String getSignatureKey()
+    {
+        String key = this.signatureKey;
+        if (key == null)
+        {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < this.getSignature().length; i++)
+            {
+                if (i > 0)
+                {
+                    builder.append(',');
+                }
+                builder.append(this.getSignature()[i].getType().replace('$', '.'));
+            }
+            key = builder.toString();
+            this.signatureKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * This method creates the key of the erased parameter types of the specified executable.
+     * It can be compared with the key of a signature.
+     *
+     * @param executable CtExecutableReference instance
+     *
+     * @return key of the parameter types
+     *
+     * @see #getSignatureKey()
+     */
+    static String createSignatureKey(CtExecutableReference<?> executable)
+    {
+        List<CtTypeReference<?>> parameters = executable.getParameters();
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < parameters.size(); i++)
+        {
+            if (i > 0)
+            {
+                builder.append(',');
+            }
+            builder.append(parameters.get(i).getQualifiedName().replace('$', '.'));
+        }
+        return builder.toString();
     }
 
     /**
@@ -159,7 +213,7 @@ public abstract class CallableExpression extends JavaExpression
     }
 
     /**
-     * This method checks whether the specified executable matches the signature
+     * This method checks whether the erased parameter types of the specified executable match the signature
      *
      * @param executable CtExecutableReference instance
      *
@@ -167,21 +221,11 @@ public abstract class CallableExpression extends JavaExpression
      */
     protected boolean matchesSignature(CtExecutableReference<?> executable)
     {
-        List<CtTypeReference<?>> parameters = executable.getParameters();
-
-        if (parameters.size() != this.getSignature().length)
+        if (executable.getParameters().size() != this.getSignature().length)
         {
             return false;
         }
-
-        for (int i = 0; i < parameters.size(); i++)
-        {
-            if (!parameters.get(i).toString().equals(this.getSignature()[i].getType()))
-            {
-                return false;
-            }
-        }
-        return true;
+        return this.getSignatureKey().equals(createSignatureKey(executable));
     }
 
     @Override
@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java.configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.declaration.CtAnnotation;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.reference.CtTypeReference;
+
+/**
+ * <p>
+ * This class is an index of the {@link JavaExpression} instances of a configuration. It maps a key
+ * of an element to the expressions which can match the element. Methods are indexed by their simple name
+ * and their amount of parameters, constructors by their class and their amount of parameters and annotations
+ * by their fully qualified name.
+ * </p>
+ *
+ * <p>
+ * The candidates of a key keep the order of the configuration. Expressions of unknown subclasses
+ * are candidates for every element. The signature keys of the callable expressions are created with the index,
+ * thus the candidates just compare them with the parameter types of an element.
+ * </p>
+ */
+class JavaExpressionIndex
+{
+    private static final String METHOD_KEY_PREFIX = "method:";
+    private static final String CONSTRUCTOR_KEY_PREFIX = "constructor:";
+    private static final String ANNOTATION_KEY_PREFIX = "annotation:";
+
+    private final JavaExpression[] expressions;
+    private final Map<String, List<JavaExpression>> candidates;
+    private final List<JavaExpression> unindexedExpressions;
+
+    /**
+     * The constructor creates the index of the specified expressions
+     *
+     * @param expressions the expressions of the configuration
+     */
+    JavaExpressionIndex(JavaExpression[] expressions)
+    {
+        this.expressions = expressions;
+
+        Map<String, List<Integer>> indices = new HashMap<>();
+        List<Integer> unindexedIndices = new ArrayList<>();
+        for (int i = 0; i < expressions.length; i++)
+        {
+            if (expressions[i] instanceof CallableExpression && ((CallableExpression) expressions[i]).getSignature() != null)
+            {
+                ((CallableExpression) expressions[i]).getSignatureKey();
+            }
+
+            String key = this.createKey(expressions[i]);
+            if (key == null)
+            {
+                unindexedIndices.add(i);
+                continue;
+            }
+
+            List<Integer> keyIndices = indices.get(key);
+            if (keyIndices == null)
+            {
+                keyIndices = new ArrayList<>(1);
+                indices.put(key, keyIndices);
+            }
+            keyIndices.add(i);
+        }
+
+        this.unindexedExpressions = this.toExpressions(unindexedIndices);
+        this.candidates = new HashMap<>(indices.size());
+        for (Entry<String, List<Integer>> entry : indices.entrySet())
+        {
+            List<Integer> keyIndices = new ArrayList<>(entry.getValue());
+            keyIndices.addAll(unindexedIndices);
+            Collections.sort(keyIndices);
+
+            this.candidates.put(entry.getKey(), this.toExpressions(keyIndices));
+        }
+    }
+
+    /**
+     * This method checks whether the index was created for the specified expressions
+     *
+     * @param expressions the expressions
+     *
+     * @return whether the index belongs to the expressions
+     */
+    boolean isIndexOf(JavaExpression[] expressions)
+    {
+        return this.expressions == expressions;
+    }
+
+    /**
+     * This method returns the expressions which can match the specified element in the order of the configuration.
+     *
+     * @param element the element
+     *
+     * @return candidates of the element
+     */
+    List<JavaExpression> getCandidates(CtElement element)
+    {
+        String key = this.createKey(element);
+        if (key == null)
+        {
+            return this.unindexedExpressions;
+        }
+
+        List<JavaExpression> keyCandidates = this.candidates.get(key);
+        if (keyCandidates == null)
+        {
+            return this.unindexedExpressions;
+        }
+        return keyCandidates;
+    }
+
+    /**
+     * This method creates the key of an expression
+     *
+     * @param expression the expression
+     *
+     * @return the key or null if the expression can't be indexed
+     */
+    private String createKey(JavaExpression expression)
+    {
+        if (expression instanceof Method)
+        {
+            Method method = (Method) expression;
+            if (method.getSignature() == null)
+            {
+                return null;
+            }
+            return METHOD_KEY_PREFIX + method.getMethodName() + '/' + method.getSignature().length;
+        }
+        if (expression instanceof Constructor)
+        {
+            Constructor constructor = (Constructor) expression;
+            if (constructor.getSignature() == null)
+            {
+                return null;
+            }
+            return CONSTRUCTOR_KEY_PREFIX + constructor.getName() + '/' + constructor.getSignature().length;
+        }
+        if (expression instanceof Annotation)
+        {
+            return ANNOTATION_KEY_PREFIX + expression.getName();
+        }
+        return null;
+    }
+
+    /**
+     * This method creates the key of an element
+     *
+     * @param element the element
+     *
+     * @return the key or null if the element doesn't have a key
+     */
+    private String createKey(CtElement element)
+    {
+        if (element instanceof CtAbstractInvocation<?>)
+        {
+            CtExecutableReference<?> executable = ((CtAbstractInvocation<?>) element).getExecutable();
+            if (executable == null)
+            {
+                return null;
+            }
+
+            if (executable.isConstructor())
+            {
+                CtTypeReference<?> declaringType = executable.getDeclaringType();
+                if (declaringType == null)
+                {
+                    return null;
+                }
+                return CONSTRUCTOR_KEY_PREFIX + declaringType.getQualifiedName() + '/' + executable.getParameters().size();
+            }
+            return METHOD_KEY_PREFIX + executable.getSimpleName() + '/' + executable.getParameters().size();
+        }
+        if (element instanceof CtAnnotation<?>)
+        {
+            CtTypeReference<?> annotationType = ((CtAnnotation<?>) element).getAnnotationType();
+            if (annotationType == null)
+            {
+                return null;
+            }
+            return ANNOTATION_KEY_PREFIX + annotationType.getQualifiedName();
+        }
+        return null;
+    }
+
+    /**
+     * This method returns the expressions with the specified indices
+     *
+     * @param indices indices of the expressions
+     *
+     * @return the expressions
+     */
+    private List<JavaExpression> toExpressions(List<Integer> indices)
+    {
+        List<JavaExpression> list = new ArrayList<>(indices.size());
+        for (Integer index : indices)
+        {
+            list.add(this.expressions[index]);
+        }
+        return Collections.unmodifiableList(list);
+    }
+}
@@ -61,6 +61,16 @@ import spoon.reflect.declaration.CtElement;
  *         <entry>entry</entry>
  *         <entry>another_entry</entry>
  *     </classpath>
+ *     <cache>cache file path</cache> <!-- optional; enables the incremental extraction -->
+ *     <threads>4</threads> <!-- default: 1; 0 uses every available processor -->
+ *     <prefilter>true</prefilter> <!-- default: false -->
+ *     <pureMethods> <!-- methods without side effects; the methods of String and the wrapper classes are always pure -->
+ *         <method>class name</method> <!-- every method of the class -->
+ *         <method>class name#method name</method>
+ *     </pureMethods>
+ *     <pureMethodsOnly>false</pureMethodsOnly> <!-- default: false; whether just pure methods are invoked -->
+ *     <invocationTimeout>500</invocationTimeout> <!-- default: 0; timeout of a method invocation in milliseconds, 0 disables it -->
+ *     <invocationBudget>10000</invocationBudget> <!-- default: 0; maximum amount of method invocations, 0 disables it -->
  *     <translatables> <!-- register ways how to extract messages -->
  *         <method>
  *             ...
@@ -90,6 +100,16 @@ public class JavaExtractorConfiguration extends AbstractExtractorConfiguration
     private JavaExpression[] javaExpressions;
     @MergeableArray
     private String[] classpathEntries;
+    private File cacheFile;
+    private Integer threadCount;
+    private Boolean prefilter;
+    @MergeableArray
+    private String[] pureMethods;
+    private Boolean pureMethodsOnly;
+    private Long invocationTimeout;
+    private Integer invocationBudget;
+    private volatile JavaExpressionIndex expressionIndex;
+    private final TypeHierarchyCache typeHierarchyCache = new TypeHierarchyCache();
 
     /**
      * This method returns the TranslatableExpression instances describing where the messages shall be extracted.
@@ -148,6 +168,196 @@ public class JavaExtractorConfiguration extends AbstractExtractorConfiguration
         this.classpathEntries = classpathEntries;
     }
 
+    /**
+     * This method returns the file which caches the messages of every source file between two extractions.
+     * The extraction isn't incremental if it's null.
+     *
+     * @return cache file or null
+     */
+    public File getCacheFile()
+    {
+        return this.cacheFile;
+    }
+
+    /**
+     * This method sets the file which caches the messages of every source file between two extractions.
+     * Source files whose content didn't change since the last extraction aren't parsed again.
+     *
+     * @param cacheFile cache file
+     */
+    @XmlElement(name = "cache")
+    public void setCacheFile(File cacheFile)
+    {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * This method returns the amount of threads which are used to parse the source files.
+     * The source files are split into this amount of shards and every shard is parsed by its own spoon model.
+     *
+     * @return amount of threads
+     */
+    public int getThreadCount()
+    {
+        if (this.threadCount == null)
+        {
+            // default value
+            return 1;
+        }
+        if (this.threadCount == 0)
+        {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return this.threadCount;
+    }
+
+    /**
+     * This method sets the amount of threads which are used to parse the source files.
+     * The value 0 uses every available processor.
+     *
+     * @param threadCount amount of threads
+     */
+    @XmlElement(name = "threads")
+    public void setThreadCount(Integer threadCount)
+    {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * This method returns whether the source files shall be scanned for the names of the translatable expressions
+     * before they're parsed. Source files which don't contain one of the names aren't parsed.
+     *
+     * @return whether the source files shall be prefiltered
+     */
+    public boolean getPrefilter()
+    {
+        if (this.prefilter == null)
+        {
+            // default value
+            return false;
+        }
+        return this.prefilter;
+    }
+
+    /**
+     * This method sets whether the source files shall be scanned for the names of the translatable expressions
+     * before they're parsed.
+     *
+     * @param prefilter whether the source files shall be prefiltered
+     */
+    @XmlElement(name = "prefilter")
+    public void setPrefilter(boolean prefilter)
+    {
+        this.prefilter = prefilter;
+    }
+
+    /**
+     * This method returns the methods which are pure in addition to the methods of immutable value classes like String.
+     * The results of pure methods are stored, thus they're invoked once for every distinct call.
+     *
+     * @return pure methods; either class names or class and method names separated by a '#'
+     */
+    public String[] getPureMethods()
+    {
+        if (this.pureMethods == null)
+        {
+            return new String[0];
+        }
+        return this.pureMethods;
+    }
+
+    /**
+     * This method sets the methods which are pure in addition to the methods of immutable value classes like String.
+     *
+     * @param pureMethods pure methods; either class names or class and method names separated by a '#'
+     */
+    @XmlElementWrapper(name = "pureMethods")
+    @XmlElement(name = "method")
+    public void setPureMethods(String... pureMethods)
+    {
+        this.pureMethods = pureMethods;
+    }
+
+    /**
+     * This method returns whether just pure methods shall be invoked while converting the messages
+     *
+     * @return whether just pure methods shall be invoked
+     */
+    public boolean getPureMethodsOnly()
+    {
+        if (this.pureMethodsOnly == null)
+        {
+            // default value
+            return false;
+        }
+        return this.pureMethodsOnly;
+    }
+
+    /**
+     * This method sets whether just pure methods shall be invoked while converting the messages
+     *
+     * @param pureMethodsOnly whether just pure methods shall be invoked
+     */
+    @XmlElement(name = "pureMethodsOnly")
+    public void setPureMethodsOnly(boolean pureMethodsOnly)
+    {
+        this.pureMethodsOnly = pureMethodsOnly;
+    }
+
+    /**
+     * This method returns the timeout of a method invocation in milliseconds.
+     * A method which exceeds the timeout isn't invoked again. The value 0 disables the timeout.
+     *
+     * @return timeout in milliseconds
+     */
+    public long getInvocationTimeout()
+    {
+        if (this.invocationTimeout == null)
+        {
+            // default value
+            return 0;
+        }
+        return this.invocationTimeout;
+    }
+
+    /**
+     * This method sets the timeout of a method invocation in milliseconds
+     *
+     * @param invocationTimeout timeout in milliseconds
+     */
+    @XmlElement(name = "invocationTimeout")
+    public void setInvocationTimeout(Long invocationTimeout)
+    {
+        this.invocationTimeout = invocationTimeout;
+    }
+
+    /**
+     * This method returns the maximum amount of method invocations of an extraction.
+     * The value 0 disables the budget.
+     *
+     * @return maximum amount of invocations
+     */
+    public int getInvocationBudget()
+    {
+        if (this.invocationBudget == null)
+        {
+            // default value
+            return 0;
+        }
+        return this.invocationBudget;
+    }
+
+    /**
+     * This method sets the maximum amount of method invocations of an extraction
+     *
+     * @param invocationBudget maximum amount of invocations
+     */
+    @XmlElement(name = "invocationBudget")
+    public void setInvocationBudget(Integer invocationBudget)
+    {
+        this.invocationBudget = invocationBudget;
+    }
+
     /**
      * This method returns a TranslatableExpression instance which describes the specified CtElement.
      *
@@ -160,7 +370,7 @@ public class JavaExtractorConfiguration extends AbstractExtractorConfiguration
     @SuppressWarnings("unchecked")
     public <T> T getTranslatable(Class<T> clazz, CtElement element)
     {
-        for (JavaExpression expression : this.getJavaExpressions())
+        for (JavaExpression expression : this.getExpressionIndex().getCandidates(element))
         {
             // checks whether expression is a subclass of the specified class
             if (!clazz.isAssignableFrom(expression.getClass()))
@@ -177,6 +387,40 @@ public class JavaExtractorConfiguration extends AbstractExtractorConfiguration
         return null;
     }
 
+    /**
+     * This method removes the results of the type hierarchy checks which were cached during the previous extraction.
+     * It shall be called before the source code is extracted again, because the type hierarchy may have changed.
+     */
+    public void clearTypeHierarchyCache()
+    {
+        this.typeHierarchyCache.clear();
+    }
+
+    /**
+     * This method returns the index of the TranslatableExpression instances. The index is created again
+     * as soon as the TranslatableExpression instances change.
+     *
+     * @return index of the TranslatableExpression instances
+     */
+    private JavaExpressionIndex getExpressionIndex()
+    {
+        JavaExpression[] expressions = this.getJavaExpressions();
+        JavaExpressionIndex index = this.expressionIndex;
+        if (index == null || !index.isIndexOf(expressions))
+        {
+            for (JavaExpression expression : expressions)
+            {
+                if (expression instanceof Method)
+                {
+                    ((Method) expression).setTypeHierarchyCache(this.typeHierarchyCache);
+                }
+            }
+            index = new JavaExpressionIndex(expressions);
+            this.expressionIndex = index;
+        }
+        return index;
+    }
+
     @Override
     public Class<? extends MessageExtractor> getExtractorClass()
     {
@@ -191,6 +435,21 @@ public class JavaExtractorConfiguration extends AbstractExtractorConfiguration
             throw new ConfigurationException("No translatable expression given!");
         }
 
+        if (this.threadCount != null && this.threadCount < 0)
+        {
+            throw new ConfigurationException("The amount of threads can't be negative.");
+        }
+
+        if (this.invocationTimeout != null && this.invocationTimeout < 0)
+        {
+            throw new ConfigurationException("The invocation timeout can't be negative.");
+        }
+
+        if (this.invocationBudget != null && this.invocationBudget < 0)
+        {
+            throw new ConfigurationException("The invocation budget can't be negative.");
+        }
+
         for (JavaExpression expression : this.getJavaExpressions())
         {
             expression.validate();
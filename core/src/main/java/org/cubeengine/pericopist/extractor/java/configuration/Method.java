@@ -69,6 +69,7 @@ public class Method extends CallableExpression
     public static final String CLASS_METHOD_NAME_DIVIDER = "#";
 
     private boolean isStatic;
+    private TypeHierarchyCache typeHierarchyCache;
 
     /**
      * This method returns the information whether it's a static method
@@ -91,6 +92,16 @@ public class Method extends CallableExpression
         this.isStatic = isStatic;
     }
 
+    /**
+     * This method sets the cache which stores the results of the type hierarchy checks.
+     *
+     * @param typeHierarchyCache the cache or null if the hierarchy shall be checked every time
+     */
+    void setTypeHierarchyCache(TypeHierarchyCache typeHierarchyCache)
+    {
+        this.typeHierarchyCache = typeHierarchyCache;
+    }
+
     /**
      * This method returns the method name of the method.
      *
@@ -152,10 +163,37 @@ public class Method extends CallableExpression
      */
     private boolean isAssignableFrom(CtExecutableReference<?> executable)
     {
+        TypeHierarchyCache cache = this.typeHierarchyCache;
+        if (cache == null)
+        {
+            return this.isSubtype(executable.getDeclaringType(), this.getClassName());
+        }
+
+        String typeName = executable.getDeclaringType().getQualifiedName();
         String className = this.getClassName();
 
+        Boolean subtype = cache.isSubtype(typeName, className);
+        if (subtype == null)
+        {
+            subtype = this.isSubtype(executable.getDeclaringType(), className);
+            cache.setSubtype(typeName, className, subtype);
+        }
+        return subtype;
+    }
+
+    /**
+     * This method checks whether the specified type is a subclass of the specified class.
+     * Therefore it searches the class within the super classes and interfaces of the type.
+     *
+     * @param type      the type
+     * @param className qualified name of the class
+     *
+     * @return whether the type is a subclass of the class
+     */
+    private boolean isSubtype(CtTypeReference<?> type, String className)
+    {
         Queue<CtTypeReference<?>> queue = new ArrayDeque<>();
-        queue.offer(executable.getDeclaringType());
+        queue.offer(type);
 
         while (!queue.isEmpty())
         {
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java.configuration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class stores whether a type is a subtype of another one. The types are identified by their
+ * qualified names. The cache is used by the {@link Method} instances of a configuration
+ * and can be shared by multiple threads.
+ */
+public class TypeHierarchyCache
+{
+    private static final char KEY_DIVIDER = '>';
+
+    private final Map<String, Boolean> subtypes;
+
+    /**
+     * The constructor creates a new empty cache
+     */
+    public TypeHierarchyCache()
+    {
+        this.subtypes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * This method returns whether the specified type is a subtype of the specified super type
+     *
+     * @param type      qualified name of the type
+     * @param superType qualified name of the super type
+     *
+     * @return whether it's a subtype or null if the types weren't checked before
+     */
+    public Boolean isSubtype(String type, String superType)
+    {
+        return this.subtypes.get(this.createKey(type, superType));
+    }
+
+    /**
+     * This method stores whether the specified type is a subtype of the specified super type
+     *
+     * @param type      qualified name of the type
+     * @param superType qualified name of the super type
+     * @param subtype   whether it's a subtype
+     */
+    public void setSubtype(String type, String superType, boolean subtype)
+    {
+        this.subtypes.put(this.createKey(type, superType), subtype);
+    }
+
+    /**
+     * This method removes every entry of the cache
+     */
+    public void clear()
+    {
+        this.subtypes.clear();
+    }
+
+    /**
+     * This method returns the amount of entries
+     *
+     * @return amount of entries
+     */
+    public int size()
+    {
+        return this.subtypes.size();
+    }
+
+    /**
+     * This method creates the key of the specified types
+     *
+     * @param type      qualified name of the type
+     * @param superType qualified name of the super type
+     *
+     * @return key of the types
+     */
+    private String createKey(String type, String superType)
+    {
+        return type + KEY_DIVIDER + superType;
+    }
+}
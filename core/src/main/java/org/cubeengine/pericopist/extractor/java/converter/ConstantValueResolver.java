@@ -0,0 +1,370 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java.converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+/**
+ * This class reads the values of constants from the <code>ConstantValue</code> attribute of the class files
+ * within the classpath. The classes aren't loaded, thus their static initializers are never executed.
+ * <p/>
+ * The names of the entries of every jar file are indexed once. The index and the constants which were read
+ * from the jar file are dropped as soon as the jar file changes. Jar files which can't be read are skipped
+ * until they change. The constants of class files within a directory are cached until the class file changes.
+ * <p/>
+ * The resolver can be shared by multiple threads.
+ */
+class ConstantValueResolver
+{
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private final Map<File, JarIndex> jarIndices;
+    private final Map<File, ClassConstants> classFileConstants;
+    private volatile File[] classpath;
+
+    /**
+     * The constructor creates a new resolver with an empty classpath
+     */
+    public ConstantValueResolver()
+    {
+        this.jarIndices = new ConcurrentHashMap<>();
+        this.classFileConstants = new ConcurrentHashMap<>();
+        this.classpath = new File[0];
+    }
+
+    /**
+     * This method sets the classpath which is searched for the class files.
+     *
+     * @param classpath directories and jar files
+     */
+    public void setClasspath(String[] classpath)
+    {
+        File[] files = new File[classpath.length];
+        for (int i = 0; i < classpath.length; i++)
+        {
+            files[i] = new File(classpath[i]).getAbsoluteFile();
+        }
+        this.classpath = files;
+    }
+
+    /**
+     * This method returns the value of the specified constant. The first classpath entry containing the class is used.
+     * Classpath entries which can't be read are skipped.
+     *
+     * @param className binary name of the class declaring the constant
+     * @param fieldName name of the constant
+     *
+     * @return the value or null if the class isn't within the classpath or the field isn't a constant of the class
+     */
+    public Object getConstantValue(String className, String fieldName)
+    {
+        String entryName = className.replace('.', '/') + CLASS_FILE_EXTENSION;
+        for (File classpathEntry : this.classpath)
+        {
+            try
+            {
+                Map<String, Object> constants;
+                if (classpathEntry.isDirectory())
+                {
+                    constants = this.getClassFileConstants(new File(classpathEntry, entryName));
+                }
+                else
+                {
+                    constants = this.getJarConstants(classpathEntry, entryName);
+                }
+
+                if (constants != null)
+                {
+                    return constants.get(fieldName);
+                }
+            }
+            catch (IOException e)
+            {
+                // the next classpath entry may contain the class
+                continue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method returns the constants of the specified class file within a directory.
+     *
+     * @param classFile the class file
+     *
+     * @return constants of the class or null if the class file doesn't exist
+     *
+     * @throws IOException if the class file couldn't be read
+     */
+    private Map<String, Object> getClassFileConstants(File classFile) throws IOException
+    {
+        if (!classFile.isFile())
+        {
+            return null;
+        }
+
+        long lastModified = classFile.lastModified();
+        ClassConstants classConstants = this.classFileConstants.get(classFile);
+        if (classConstants == null || classConstants.lastModified != lastModified)
+        {
+            classConstants = new ClassConstants(lastModified, this.readConstants(Files.readAllBytes(classFile.toPath())));
+            this.classFileConstants.put(classFile, classConstants);
+        }
+        return classConstants.constants;
+    }
+
+    /**
+     * This method returns the constants of the specified class within a jar file.
+     *
+     * @param jarFile   the jar file
+     * @param entryName name of the class file within the jar file
+     *
+     * @return constants of the class or null if the jar file doesn't contain the class
+     *
+     * @throws IOException if the jar file couldn't be read
+     */
+    private Map<String, Object> getJarConstants(File jarFile, String entryName) throws IOException
+    {
+        JarIndex jarIndex = this.jarIndices.get(jarFile);
+        if (jarIndex == null || !jarIndex.isValid(jarFile))
+        {
+            try
+            {
+                jarIndex = new JarIndex(jarFile);
+            }
+            catch (IOException e)
+            {
+                // the broken jar file is remembered with an empty index until it changes
+                this.jarIndices.put(jarFile, new JarIndex(jarFile.lastModified(), jarFile.length()));
+                throw e;
+            }
+            this.jarIndices.put(jarFile, jarIndex);
+        }
+
+        if (!jarIndex.entryNames.contains(entryName))
+        {
+            return null;
+        }
+
+        Map<String, Object> constants = jarIndex.constants.get(entryName);
+        if (constants == null)
+        {
+            try (ZipFile zipFile = new ZipFile(jarFile))
+            {
+                ZipEntry entry = zipFile.getEntry(entryName);
+                if (entry == null)
+                {
+                    return null;
+                }
+                try (InputStream inputStream = zipFile.getInputStream(entry))
+                {
+                    constants = this.readConstants(this.readFully(inputStream));
+                }
+            }
+            jarIndex.constants.put(entryName, constants);
+        }
+        return constants;
+    }
+
+    /**
+     * This method reads the static final fields of the specified class file which have a <code>ConstantValue</code> attribute.
+     * The code of the class isn't read.
+     *
+     * @param classFile content of the class file
+     *
+     * @return map from the field names to their values
+     */
+    private Map<String, Object> readConstants(byte[] classFile)
+    {
+        ClassNode classNode = new ClassNode();
+        new ClassReader(classFile).accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        Map<String, Object> constants = new HashMap<>();
+        for (FieldNode field : classNode.fields)
+        {
+            int modifiers = Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+            if ((field.access & modifiers) == modifiers && field.value != null)
+            {
+                constants.put(field.name, this.toFieldType(field.value, field.desc));
+            }
+        }
+        return Collections.unmodifiableMap(constants);
+    }
+
+    /**
+     * This method converts the value of a <code>ConstantValue</code> attribute into the type of the field.
+     * The class file stores boolean, byte, char and short constants as an integer.
+     *
+     * @param value      the value of the attribute
+     * @param descriptor type descriptor of the field
+     *
+     * @return the converted value
+     */
+    private Object toFieldType(Object value, String descriptor)
+    {
+        if (!(value instanceof Integer))
+        {
+            return value;
+        }
+
+        int intValue = (Integer)value;
+        switch (descriptor)
+        {
+            case "Z":
+                return intValue != 0;
+            case "B":
+                return (byte)intValue;
+            case "C":
+                return (char)intValue;
+            case "S":
+                return (short)intValue;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * This method reads the whole input stream
+     *
+     * @param inputStream the input stream
+     *
+     * @return content of the input stream
+     *
+     * @throws IOException if the input stream couldn't be read
+     */
+    private byte[] readFully(InputStream inputStream) throws IOException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1)
+        {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * This class stores the constants of a class file and the modification time of the class file
+     */
+    private static final class ClassConstants
+    {
+        private final long lastModified;
+        private final Map<String, Object> constants;
+
+        /**
+         * The constructor creates a new instance
+         *
+         * @param lastModified modification time of the class file
+         * @param constants    constants of the class file
+         */
+        private ClassConstants(long lastModified, Map<String, Object> constants)
+        {
+            this.lastModified = lastModified;
+            this.constants = constants;
+        }
+    }
+
+    /**
+     * This class stores the names of the class files within a jar file and the constants
+     * which were already read from the jar file.
+     */
+    private static final class JarIndex
+    {
+        private final long lastModified;
+        private final long length;
+        private final Set<String> entryNames;
+        private final Map<String, Map<String, Object>> constants;
+
+        /**
+         * The constructor indexes the entries of the specified jar file
+         *
+         * @param jarFile the jar file
+         *
+         * @throws IOException if the jar file couldn't be read
+         */
+        private JarIndex(File jarFile) throws IOException
+        {
+            this.lastModified = jarFile.lastModified();
+            this.length = jarFile.length();
+            this.entryNames = new HashSet<>();
+            this.constants = new ConcurrentHashMap<>();
+
+            try (ZipFile zipFile = new ZipFile(jarFile))
+            {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements())
+                {
+                    String name = entries.nextElement().getName();
+                    if (name.endsWith(CLASS_FILE_EXTENSION))
+                    {
+                        this.entryNames.add(name);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The constructor creates an empty index for a jar file which couldn't be read
+         *
+         * @param lastModified modification time of the jar file
+         * @param length       length of the jar file
+         */
+        private JarIndex(long lastModified, long length)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.entryNames = Collections.emptySet();
+            this.constants = new ConcurrentHashMap<>();
+        }
+
+        /**
+         * This method checks whether the index still belongs to the current version of the jar file
+         *
+         * @param jarFile the jar file
+         *
+         * @return whether the jar file didn't change
+         */
+        private boolean isValid(File jarFile)
+        {
+            return this.lastModified == jarFile.lastModified() && this.length == jarFile.length();
+        }
+    }
+}
@@ -23,9 +23,11 @@
 package org.cubeengine.pericopist.extractor.java.converter;
 
 import java.lang.reflect.Array;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.cubeengine.pericopist.extractor.java.converter.binary.CtBinaryOperatorExpressionConverter;
 import org.cubeengine.pericopist.extractor.java.converter.exception.ConversionException;
 import org.cubeengine.pericopist.extractor.java.converter.exception.ConverterNotFoundException;
@@ -40,18 +42,71 @@ import spoon.reflect.code.CtLiteral;
 import spoon.reflect.code.CtNewArray;
 import spoon.reflect.code.CtTypeAccess;
 import spoon.reflect.code.CtUnaryOperator;
+import spoon.reflect.code.UnaryOperatorKind;
+import spoon.reflect.reference.CtFieldReference;
 
 /**
  * This class manages all converters which convert a <code>CtExpression</code> into
  * an <code>Object</code>.
+ * <p/>
+ * The manager can be shared by multiple threads.
+ * <p/>
+ * The results of expressions without side effects are cached. Those expressions consist of literals,
+ * accesses of static final fields, type accesses, operators, conditionals and new arrays. The cache is keyed by
+ * the structure of the expression and the referenced fields and holds the recently used results.
+ * Invocations and constructor calls aren't cached, because they may have side effects. Just the expressions
+ * which are passed to the manager from outside of a conversion are cached. Their sub expressions are converted
+ * directly, so the key is built once per expression and partial results don't displace the cached results.
  */
 public class ConverterManager
 {
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+    private static final Object NULL_VALUE = new Object();
+
     private final Map<Class<? extends CtExpression>, Converter> converters;
+    private final ConstantValueResolver constantValueResolver;
+    private volatile InvocationPolicy invocationPolicy;
+
+    private final Map<String, Object> cache;
+    private final AtomicLong cacheHits;
+    private final AtomicLong cacheMisses;
+    private final ThreadLocal<int[]> conversionDepth;
 
     public ConverterManager(boolean registerDefaultConverter)
     {
-        this.converters = new HashMap<>();
+        this(registerDefaultConverter, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * The constructor creates a new manager
+     *
+     * @param registerDefaultConverter whether the default converters shall be registered
+     * @param cacheSize                maximum amount of cached conversion results; 0 disables the cache
+     */
+    public ConverterManager(boolean registerDefaultConverter, final int cacheSize)
+    {
+        this.converters = new ConcurrentHashMap<>();
+        this.constantValueResolver = new ConstantValueResolver();
+        this.invocationPolicy = new InvocationPolicy();
+
+        this.cache = cacheSize <= 0 ? null : new LinkedHashMap<String, Object>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Entry<String, Object> eldest)
+            {
+                return this.size() > cacheSize;
+            }
+        };
+        this.cacheHits = new AtomicLong();
+        this.cacheMisses = new AtomicLong();
+        this.conversionDepth = new ThreadLocal<int[]>()
+        {
+            @Override
+            protected int[] initialValue()
+            {
+                return new int[1];
+            }
+        };
 
         if (registerDefaultConverter)
         {
@@ -132,6 +187,60 @@ public class ConverterManager
         throw new ConverterNotFoundException(expression);
     }
 
+    /**
+     * This method sets the classpath which is used to read the values of constants
+     * without loading their classes.
+     *
+     * @param classpath directories and jar files
+     *
+     * @see #getConstantValue(String, String)
+     */
+    public void setClasspath(String[] classpath)
+    {
+        this.constantValueResolver.setClasspath(classpath);
+    }
+
+    /**
+     * This method reads the value of a constant from the class file of the declaring class within the classpath.
+     * The class isn't loaded, thus its static initializer isn't executed.
+     *
+     * @param className binary name of the class declaring the constant
+     * @param fieldName name of the constant
+     *
+     * @return the value or null if the class file couldn't be found or the field isn't a constant
+     */
+    public Object getConstantValue(String className, String fieldName)
+    {
+        return this.constantValueResolver.getConstantValue(className, fieldName);
+    }
+
+    /**
+     * This method returns the policy which decides how invoked methods are evaluated
+     *
+     * @return the invocation policy
+     */
+    public InvocationPolicy getInvocationPolicy()
+    {
+        return this.invocationPolicy;
+    }
+
+    /**
+     * This method sets the policy which decides how invoked methods are evaluated.
+     * The previous policy is shut down.
+     *
+     * @param invocationPolicy the invocation policy
+     */
+    public void setInvocationPolicy(InvocationPolicy invocationPolicy)
+    {
+        InvocationPolicy previousPolicy = this.invocationPolicy;
+        this.invocationPolicy = invocationPolicy;
+
+        if (previousPolicy != invocationPolicy)
+        {
+            previousPolicy.shutdown();
+        }
+    }
+
     /**
      * This method converts an expression into a string array
      *
@@ -182,7 +291,250 @@ public class ConverterManager
         {
             return null;
         }
-        return this.matchConverter(expression).convert(expression, this);
+
+        int[] depth = this.conversionDepth.get();
+        depth[0]++;
+        try
+        {
+            if (this.cache == null || depth[0] > 1 || expression instanceof CtLiteral)
+            {
+                return this.matchConverter(expression).convert(expression, this);
+            }
+            return this.convertCached(expression);
+        }
+        finally
+        {
+            depth[0]--;
+        }
+    }
+
+    /**
+     * This method converts an expression with the help of the cache. Expressions which may have side effects
+     * are converted without the cache.
+     *
+     * @param expression the expression
+     *
+     * @throws ConversionException if the conversion process fails
+     *
+     * @return the object
+     */
+    private Object convertCached(CtExpression<?> expression) throws ConversionException
+    {
+        String key = this.createCacheKey(expression);
+        if (key == null)
+        {
+            return this.matchConverter(expression).convert(expression, this);
+        }
+
+        Object value;
+        synchronized (this.cache)
+        {
+            value = this.cache.get(key);
+        }
+        if (value != null)
+        {
+            this.cacheHits.incrementAndGet();
+            return value == NULL_VALUE ? null : copyArray(value);
+        }
+
+        this.cacheMisses.incrementAndGet();
+        value = this.matchConverter(expression).convert(expression, this);
+        synchronized (this.cache)
+        {
+            this.cache.put(key, value == null ? NULL_VALUE : value);
+        }
+        return copyArray(value);
+    }
+
+    /**
+     * This method clears the cache of the conversion results and resets its counters.
+     * It has to be called if the values of the constants may have changed.
+     */
+    public void clearCache()
+    {
+        if (this.cache != null)
+        {
+            synchronized (this.cache)
+            {
+                this.cache.clear();
+            }
+        }
+        this.cacheHits.set(0);
+        this.cacheMisses.set(0);
+    }
+
+    /**
+     * This method returns the amount of conversions which were answered by the cache
+     *
+     * @return amount of cache hits
+     */
+    public long getCacheHits()
+    {
+        return this.cacheHits.get();
+    }
+
+    /**
+     * This method returns the amount of cacheable conversions which weren't answered by the cache
+     *
+     * @return amount of cache misses
+     */
+    public long getCacheMisses()
+    {
+        return this.cacheMisses.get();
+    }
+
+    /**
+     * This method creates the key of the specified expression for the cache
+     *
+     * @param expression the expression
+     *
+     * @return the key or null if the expression may have side effects
+     */
+    private String createCacheKey(CtExpression<?> expression)
+    {
+        StringBuilder key = new StringBuilder();
+        return this.appendCacheKey(expression, key) ? key.toString() : null;
+    }
+
+    /**
+     * This method appends the key of the specified expression to the string builder.
+     * The key describes the structure of the expression and contains the values of the literals
+     * and the qualified names of the referenced fields and types.
+     *
+     * @param expression the expression
+     * @param key        the string builder
+     *
+     * @return false if the expression may have side effects
+     */
+    private boolean appendCacheKey(CtExpression<?> expression, StringBuilder key)
+    {
+        if (expression == null)
+        {
+            key.append("N");
+            return true;
+        }
+        if (expression instanceof CtLiteral)
+        {
+            Object value = ((CtLiteral<?>)expression).getValue();
+            if (value == null)
+            {
+                key.append("L()");
+                return true;
+            }
+
+            // the length prevents that the content of a string literal is confused with the structure
+            String content = value.toString();
+            key.append("L(").append(value.getClass().getName()).append(':').append(content.length()).append(':').append(content).append(')');
+            return true;
+        }
+        if (expression instanceof CtFieldAccess)
+        {
+            CtFieldReference<?> fieldReference = ((CtFieldAccess<?>)expression).getVariable();
+            if (!fieldReference.isStatic() || !fieldReference.isFinal())
+            {
+                return false;
+            }
+            key.append("F(").append(fieldReference.getQualifiedName()).append(')');
+            return true;
+        }
+        if (expression instanceof CtTypeAccess)
+        {
+            key.append("T(").append(((CtTypeAccess<?>)expression).getAccessedType().getQualifiedName()).append(')');
+            return true;
+        }
+        if (expression instanceof CtBinaryOperator)
+        {
+            CtBinaryOperator<?> operator = (CtBinaryOperator<?>)expression;
+            key.append("B(").append(operator.getKind().name()).append(',');
+            if (!this.appendCacheKey(operator.getLeftHandOperand(), key))
+            {
+                return false;
+            }
+            key.append(',');
+            if (!this.appendCacheKey(operator.getRightHandOperand(), key))
+            {
+                return false;
+            }
+            key.append(')');
+            return true;
+        }
+        if (expression instanceof CtUnaryOperator)
+        {
+            CtUnaryOperator<?> operator = (CtUnaryOperator<?>)expression;
+            UnaryOperatorKind kind = operator.getKind();
+            if (kind == UnaryOperatorKind.PREINC || kind == UnaryOperatorKind.PREDEC || kind == UnaryOperatorKind.POSTINC || kind == UnaryOperatorKind.POSTDEC)
+            {
+                return false;
+            }
+            key.append("U(").append(kind.name()).append(',');
+            if (!this.appendCacheKey(operator.getOperand(), key))
+            {
+                return false;
+            }
+            key.append(')');
+            return true;
+        }
+        if (expression instanceof CtConditional)
+        {
+            CtConditional<?> conditional = (CtConditional<?>)expression;
+            key.append("C(");
+            if (!this.appendCacheKey(conditional.getCondition(), key))
+            {
+                return false;
+            }
+            key.append(',');
+            if (!this.appendCacheKey(conditional.getThenExpression(), key))
+            {
+                return false;
+            }
+            key.append(',');
+            if (!this.appendCacheKey(conditional.getElseExpression(), key))
+            {
+                return false;
+            }
+            key.append(')');
+            return true;
+        }
+        if (expression instanceof CtNewArray)
+        {
+            CtNewArray<?> newArray = (CtNewArray<?>)expression;
+            key.append("A(").append(newArray.getType().getQualifiedName());
+            for (CtExpression<?> element : newArray.getElements())
+            {
+                key.append(',');
+                if (!this.appendCacheKey(element, key))
+                {
+                    return false;
+                }
+            }
+            key.append(')');
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method copies the specified array and its sub arrays. Cached arrays are copied
+     * before they're returned, because arrays can be modified.
+     *
+     * @param value the value
+     *
+     * @return a copy of the array or the value itself if it isn't an array
+     */
+    static Object copyArray(Object value)
+    {
+        if (value == null || !value.getClass().isArray())
+        {
+            return value;
+        }
+
+        int length = Array.getLength(value);
+        Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+        for (int i = 0; i < length; i++)
+        {
+            Array.set(copy, i, copyArray(Array.get(value, i)));
+        }
+        return copy;
     }
 
     /**
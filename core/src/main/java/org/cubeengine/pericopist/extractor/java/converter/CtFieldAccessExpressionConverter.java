@@ -25,17 +25,191 @@ package org.cubeengine.pericopist.extractor.java.converter;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import org.cubeengine.pericopist.extractor.java.converter.exception.ConversionException;
+import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtFieldAccess;
+import spoon.reflect.declaration.CtEnumValue;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.reference.CtArrayTypeReference;
 import spoon.reflect.reference.CtFieldReference;
+import spoon.reflect.reference.CtTypeReference;
 
 /**
  * This converter is responsible for constant expressions like
  * <code>translate(CLASS.CONSTANT)</code>
+ * <p/>
+ * Constants which are declared within the source code are evaluated from their initializer expression.
+ * The class of the constant doesn't have to be loaded in this case. The value is stored as metadata of
+ * the field declaration, thus every constant is evaluated once per spoon model.
+ * <p/>
+ * Constants of classes which aren't part of the source code are read from the class files within the classpath
+ * if possible. Reflection is used for every other constant or if the initializer couldn't be evaluated.
  */
 class CtFieldAccessExpressionConverter implements Converter<CtFieldAccess<?>>
 {
+    private static final String VALUE_METADATA_KEY = CtFieldAccessExpressionConverter.class.getName() + ".value";
+    private static final Object NOT_EVALUABLE = new Object();
+    private static final Object NULL_VALUE = new Object();
+
     @Override
     public Object convert(CtFieldAccess<?> expression, ConverterManager manager) throws ConversionException
+    {
+        CtFieldReference<?> fieldReference = expression.getVariable();
+        if (!fieldReference.isStatic())
+        {
+            throw new ConversionException(this, expression, "'" + expression.getClass().getName() + "' expressions which aren't static aren't supported.");
+        }
+
+        CtField<?> declaration = fieldReference.getDeclaration();
+        if (this.isEvaluable(declaration))
+        {
+            Object value = declaration.getMetadata(VALUE_METADATA_KEY);
+            if (value == null)
+            {
+                value = this.evaluate(declaration, manager);
+            }
+            if (value != NOT_EVALUABLE)
+            {
+                return value == NULL_VALUE ? null : value;
+            }
+            // the initializer isn't a constant expression or depends on itself; the value is loaded with reflection
+        }
+        else if (declaration == null && fieldReference.getDeclaringType() != null)
+        {
+            Object value = manager.getConstantValue(fieldReference.getDeclaringType().getQualifiedName(), fieldReference.getSimpleName());
+            if (value != null)
+            {
+                return value;
+            }
+        }
+
+        return this.getValue(expression);
+    }
+
+    /**
+     * This method checks whether the specified field declaration is a constant which can be evaluated
+     * from its initializer expression. The field has to be a static and final field whose type is a
+     * primitive type, a string or an array of them.
+     *
+     * @param declaration declaration of the field or null if the field isn't part of the source code
+     *
+     * @return whether the initializer of the field can be evaluated
+     */
+    private boolean isEvaluable(CtField<?> declaration)
+    {
+        if (declaration == null || declaration instanceof CtEnumValue || declaration.getDefaultExpression() == null)
+        {
+            return false;
+        }
+        if (!declaration.hasModifier(ModifierKind.STATIC) || !declaration.hasModifier(ModifierKind.FINAL))
+        {
+            return false;
+        }
+
+        CtTypeReference<?> type = declaration.getType();
+        while (type instanceof CtArrayTypeReference)
+        {
+            type = ((CtArrayTypeReference<?>)type).getComponentType();
+        }
+        return type != null && (type.isPrimitive() || String.class.getName().equals(type.getQualifiedName()));
+    }
+
+    /**
+     * This method evaluates the initializer expression of the specified field declaration and stores the
+     * value as metadata of the declaration. The declaration is marked as not evaluable while its initializer
+     * is converted, so that initializers depending on themselves are loaded with reflection.
+     *
+     * @param declaration declaration of the field
+     * @param manager     the converter manager which converts the initializer
+     *
+     * @return the value of the field, {@link #NULL_VALUE} if it's null or {@link #NOT_EVALUABLE} if it couldn't be evaluated
+     */
+    private Object evaluate(CtField<?> declaration, ConverterManager manager)
+    {
+        declaration.putMetadata(VALUE_METADATA_KEY, NOT_EVALUABLE);
+
+        Object value;
+        try
+        {
+            CtExpression<?> initializer = declaration.getDefaultExpression();
+            value = this.toFieldType(manager.convert(initializer), declaration.getType());
+        }
+        catch (ConversionException | RuntimeException e)
+        {
+            // the initializer isn't a constant expression; the value is loaded with reflection
+            return NOT_EVALUABLE;
+        }
+
+        if (value == null)
+        {
+            value = NULL_VALUE;
+        }
+        declaration.putMetadata(VALUE_METADATA_KEY, value);
+        return value;
+    }
+
+    /**
+     * This method converts the specified value into the primitive type of the field.
+     * This is needed because literals like <code>1</code> are converted to an integer
+     * even if the field is a long or a byte field.
+     *
+     * @param value the value
+     * @param type  type of the field
+     *
+     * @return the converted value
+     */
+    private Object toFieldType(Object value, CtTypeReference<?> type)
+    {
+        if (!type.isPrimitive() || value == null)
+        {
+            return value;
+        }
+
+        Number number;
+        if (value instanceof Character)
+        {
+            number = (int)(Character)value;
+        }
+        else if (value instanceof Number)
+        {
+            number = (Number)value;
+        }
+        else
+        {
+            return value;
+        }
+
+        switch (type.getSimpleName())
+        {
+            case "byte":
+                return number.byteValue();
+            case "short":
+                return number.shortValue();
+            case "char":
+                return (char)number.intValue();
+            case "int":
+                return number.intValue();
+            case "long":
+                return number.longValue();
+            case "float":
+                return number.floatValue();
+            case "double":
+                return number.doubleValue();
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * This method loads the value of the field with reflection
+     *
+     * @param expression field access expression
+     *
+     * @return value of the field
+     *
+     * @throws ConversionException if the field couldn't be accessed
+     */
+    private Object getValue(CtFieldAccess<?> expression) throws ConversionException
     {
         Field field = this.getField(expression);
         try
@@ -66,13 +240,7 @@ class CtFieldAccessExpressionConverter implements Converter<CtFieldAccess<?>>
      */
     private Field getField(CtFieldAccess<?> expression) throws ConversionException
     {
-        CtFieldReference<?> fieldReference = expression.getVariable();
-        if (!fieldReference.isStatic())
-        {
-            throw new ConversionException(this, expression, "'" + expression.getClass().getName() + "' expressions which aren't static aren't supported.");
-        }
-
-        Member member = fieldReference.getActualField();
+        Member member = expression.getVariable().getActualField();
         if (member == null || !(member instanceof Field))
         {
             throw new ConversionException(this, expression, "The member isn't a field value");
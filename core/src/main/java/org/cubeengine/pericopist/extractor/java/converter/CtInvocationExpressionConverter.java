@@ -22,16 +22,18 @@
  */
 package org.cubeengine.pericopist.extractor.java.converter;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import org.cubeengine.pericopist.extractor.java.converter.exception.ConversionException;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.reference.CtExecutableReference;
+import spoon.support.SpoonClassNotFoundException;
 
 /**
  * This converter is responsible for method invocations like
  * <code>translate("string".toUpperCase(Locale.ENGLISH)</code>
+ *
+ * @see InvocationPolicy
  */
 class CtInvocationExpressionConverter extends CtAbstractInvocationExpressionConverter<CtInvocation>
 {
@@ -56,7 +58,15 @@ class CtInvocationExpressionConverter extends CtAbstractInvocationExpressionConv
         Object[] arguments = this.loadArguments(expression, manager);
 
         // 3. load method and check whether it has a return type
-        Method method = executable.getActualMethod();
+        Method method;
+        try
+        {
+            method = executable.getActualMethod();
+        }
+        catch (SpoonClassNotFoundException e)
+        {
+            throw new ConversionException(this, expression, "The class declaring the method couldn't be loaded.", e);
+        }
         if(method.getReturnType() == null)
         {
             throw new ConversionException(this, expression, "The method doesn't have a return type");
@@ -65,14 +75,7 @@ class CtInvocationExpressionConverter extends CtAbstractInvocationExpressionConv
         // 4. set accessible
         this.setAccessible(method);
 
-        // 5. invoke method
-        try
-        {
-            return method.invoke(target, arguments);
-        }
-        catch (IllegalAccessException | InvocationTargetException | IllegalArgumentException e)
-        {
-            throw new ConversionException(this, expression, "The method couldn't be invoked.", e);
-        }
+        // 5. invoke method with respect to the invocation policy
+        return manager.getInvocationPolicy().invoke(this, expression, method, target, arguments);
     }
 }
@@ -28,6 +28,7 @@ import java.lang.reflect.InvocationTargetException;
 import org.cubeengine.pericopist.extractor.java.converter.exception.ConversionException;
 import spoon.reflect.code.CtConstructorCall;
 import spoon.reflect.reference.CtExecutableReference;
+import spoon.support.SpoonClassNotFoundException;
 
 /**
  * This converter is responsible for constructor calls
@@ -44,7 +45,15 @@ class CtNewClassExpressionConverter extends CtAbstractInvocationExpressionConver
         Object[] arguments = this.loadArguments(expression, manager);
 
         // 2. load constructor
-        Constructor<?> constructor = executable.getActualConstructor();
+        Constructor<?> constructor;
+        try
+        {
+            constructor = executable.getActualConstructor();
+        }
+        catch (SpoonClassNotFoundException e)
+        {
+            throw new ConversionException(this, expression, "The class declaring the constructor couldn't be loaded.", e);
+        }
 
         // 3. set accessible
         this.setAccessible(constructor);
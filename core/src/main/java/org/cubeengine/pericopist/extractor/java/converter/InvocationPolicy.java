@@ -0,0 +1,413 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java.converter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import org.cubeengine.pericopist.extractor.java.converter.exception.ConversionException;
+import spoon.reflect.code.CtExpression;
+
+/**
+ * This class decides how the methods which are invoked by a message expression are evaluated.
+ * <p/>
+ * Pure methods are the methods of immutable value classes like String and the methods of the allow-list.
+ * The results of the invoked methods are stored for every target and argument values, thus every method
+ * is invoked once per distinct call. Methods which aren't pure are reported once, because their results
+ * may depend on side effects. They aren't invoked at all if just pure methods shall be evaluated.
+ * <p/>
+ * Every invocation can be limited by a timeout. Those invocations are run by a worker thread.
+ * A method which exceeded the timeout once isn't invoked again. The amount of invocations
+ * can be limited by a budget as well. Invocations which are rejected throw a
+ * {@link org.cubeengine.pericopist.extractor.java.converter.exception.ConversionException}, which is reported by the processors.
+ * <p/>
+ * The policy can be shared by multiple threads. It has to be shut down with {@link #shutdown()} as soon as it
+ * isn't used anymore, because a worker thread may still run an invocation which exceeded the timeout.
+ */
+public class InvocationPolicy
+{
+    private static final Set<String> DEFAULT_PURE_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(String.class.getName(), Boolean.class.getName(), Byte.class.getName(), Character.class.getName(), Short.class.getName(), Integer.class.getName(), Long.class.getName(), Float.class.getName(), Double.class.getName())));
+    private static final char METHOD_SEPARATOR = '#';
+    private static final Object NULL_VALUE = new Object();
+
+    private final Set<String> pureMethods;
+    private final boolean pureMethodsOnly;
+    private final long timeout;
+    private final int budget;
+    private final Logger logger;
+
+    private final Map<Invocation, Object> results;
+    private final Set<Method> rejectedMethods;
+    private final Set<Method> reportedMethods;
+    private final Map<Thread, Method> runningInvocations;
+    private final AtomicInteger invocationCount;
+    private volatile ExecutorService executor;
+    private volatile boolean shutdown;
+
+    /**
+     * The constructor creates a policy which invokes every method without restrictions.
+     * Just the results of the default pure methods are stored.
+     */
+    public InvocationPolicy()
+    {
+        this(new String[0], false, 0, 0);
+    }
+
+    /**
+     * The constructor creates a new policy which reports to the logger of this class
+     *
+     * @param pureMethods     additional pure methods; either a class name for every method of the class or the class name and the method name separated by a '#'
+     * @param pureMethodsOnly whether just pure methods shall be invoked
+     * @param timeout         timeout of an invocation in milliseconds; 0 disables the timeout
+     * @param budget          maximum amount of invocations; 0 disables the budget
+     */
+    public InvocationPolicy(String[] pureMethods, boolean pureMethodsOnly, long timeout, int budget)
+    {
+        this(pureMethods, pureMethodsOnly, timeout, budget, Logger.getLogger(InvocationPolicy.class.getName()));
+    }
+
+    /**
+     * The constructor creates a new policy
+     *
+     * @param pureMethods     additional pure methods; either a class name for every method of the class or the class name and the method name separated by a '#'
+     * @param pureMethodsOnly whether just pure methods shall be invoked
+     * @param timeout         timeout of an invocation in milliseconds; 0 disables the timeout
+     * @param budget          maximum amount of invocations; 0 disables the budget
+     * @param logger          logger which reports methods which aren't pure and worker threads which couldn't be stopped
+     */
+    public InvocationPolicy(String[] pureMethods, boolean pureMethodsOnly, long timeout, int budget, Logger logger)
+    {
+        this.pureMethods = new HashSet<>(DEFAULT_PURE_METHODS);
+        this.pureMethods.addAll(Arrays.asList(pureMethods));
+        this.pureMethodsOnly = pureMethodsOnly;
+        this.timeout = timeout;
+        this.budget = budget;
+        this.logger = logger;
+
+        this.results = new ConcurrentHashMap<>();
+        this.rejectedMethods = Collections.newSetFromMap(new ConcurrentHashMap<Method, Boolean>());
+        this.reportedMethods = Collections.newSetFromMap(new ConcurrentHashMap<Method, Boolean>());
+        this.runningInvocations = new ConcurrentHashMap<>();
+        this.invocationCount = new AtomicInteger();
+    }
+
+    /**
+     * This method checks whether the specified method is a pure method
+     *
+     * @param method the method
+     *
+     * @return whether the method is pure
+     */
+    public boolean isPure(Method method)
+    {
+        String className = method.getDeclaringClass().getName();
+        return this.pureMethods.contains(className) || this.pureMethods.contains(className + METHOD_SEPARATOR + method.getName());
+    }
+
+    /**
+     * This method returns the amount of invocations which were executed
+     *
+     * @return amount of invocations
+     */
+    public int getInvocationCount()
+    {
+        int count = this.invocationCount.get();
+        return this.budget > 0 ? Math.min(count, this.budget) : count;
+    }
+
+    /**
+     * This method invokes the specified method with respect to this policy.
+     *
+     * @param converter  converter which invokes the method
+     * @param expression the invocation expression
+     * @param method     the method
+     * @param target     the target of the invocation or null if the method is static
+     * @param arguments  the arguments
+     *
+     * @return the result of the invocation
+     *
+     * @throws ConversionException if the method was rejected or couldn't be invoked
+     */
+    public Object invoke(Converter<?> converter, CtExpression<?> expression, Method method, Object target, Object[] arguments) throws ConversionException
+    {
+        boolean pure = this.isPure(method);
+        if (!pure && this.pureMethodsOnly)
+        {
+            throw new ConversionException(converter, expression, "The method '" + method + "' isn't invoked, because it isn't a pure method.");
+        }
+        if (this.rejectedMethods.contains(method))
+        {
+            throw new ConversionException(converter, expression, "The method '" + method + "' isn't invoked anymore, because an earlier invocation exceeded the timeout of " + this.timeout + " ms.");
+        }
+
+        Invocation invocation = new Invocation(method, target, arguments);
+        Object result = this.results.get(invocation);
+        if (result != null)
+        {
+            return ConverterManager.copyArray(result == NULL_VALUE ? null : result);
+        }
+
+        // the count is incremented by every invocation which wasn't stored, thus it's the only check of the budget
+        if (this.invocationCount.incrementAndGet() > this.budget && this.budget > 0)
+        {
+            throw new ConversionException(converter, expression, "The method '" + method + "' isn't invoked, because the budget of " + this.budget + " invocations is exhausted.");
+        }
+        if (!pure && this.reportedMethods.add(method))
+        {
+            this.logger.warning("The method '" + method + "' isn't a pure method. It's invoked once per distinct call and its results are reused.");
+        }
+
+        try
+        {
+            result = this.timeout > 0 ? this.invokeWithTimeout(method, target, arguments) : method.invoke(target, arguments);
+        }
+        catch (TimeoutException e)
+        {
+            this.rejectedMethods.add(method);
+            throw new ConversionException(converter, expression, "The invocation of the method '" + method + "' exceeded the timeout of " + this.timeout + " ms.", e);
+        }
+        catch (RejectedExecutionException e)
+        {
+            throw new ConversionException(converter, expression, "The method '" + method + "' isn't invoked, because the invocation policy was shut down.", e);
+        }
+        catch (IllegalAccessException | InvocationTargetException | IllegalArgumentException e)
+        {
+            throw new ConversionException(converter, expression, "The method couldn't be invoked.", e);
+        }
+
+        this.results.put(invocation, result == null ? NULL_VALUE : ConverterManager.copyArray(result));
+        return result;
+    }
+
+    /**
+     * This method invokes the specified method by a worker thread and waits for the result until the timeout is exceeded.
+     * The worker thread is interrupted if the timeout is exceeded.
+     *
+     * @param method    the method
+     * @param target    the target of the invocation or null if the method is static
+     * @param arguments the arguments
+     *
+     * @return the result of the invocation
+     *
+     * @throws IllegalAccessException    if the method couldn't be accessed
+     * @throws InvocationTargetException if the method threw an exception
+     * @throws TimeoutException          if the timeout was exceeded
+     */
+    private Object invokeWithTimeout(final Method method, final Object target, final Object[] arguments) throws IllegalAccessException, InvocationTargetException, TimeoutException
+    {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Future<Object> future = this.getExecutor().submit(new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                Thread thread = Thread.currentThread();
+                thread.setContextClassLoader(classLoader);
+                InvocationPolicy.this.runningInvocations.put(thread, method);
+                try
+                {
+                    return method.invoke(target, arguments);
+                }
+                finally
+                {
+                    InvocationPolicy.this.runningInvocations.remove(thread);
+                }
+            }
+        });
+
+        try
+        {
+            return future.get(this.timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            future.cancel(true);
+            throw e;
+        }
+        catch (InterruptedException e)
+        {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InvocationTargetException(e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvocationTargetException)
+            {
+                throw (InvocationTargetException) cause;
+            }
+            if (cause instanceof IllegalAccessException)
+            {
+                throw (IllegalAccessException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new InvocationTargetException(cause);
+        }
+    }
+
+    /**
+     * This method shuts down the worker threads of this policy. The worker threads are interrupted and
+     * every thread which is still running an invocation after the timeout is reported.
+     * Afterwards the policy rejects every invocation with a timeout.
+     */
+    public void shutdown()
+    {
+        ExecutorService executorService;
+        synchronized (this)
+        {
+            this.shutdown = true;
+            executorService = this.executor;
+        }
+        if (executorService == null)
+        {
+            return;
+        }
+
+        executorService.shutdownNow();
+        try
+        {
+            if (executorService.awaitTermination(this.timeout, TimeUnit.MILLISECONDS))
+            {
+                return;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Map.Entry<Thread, Method> entry : this.runningInvocations.entrySet())
+        {
+            this.logger.warning("The thread '" + entry.getKey().getName() + "' couldn't be stopped. It's still invoking the method '" + entry.getValue() + "'.");
+        }
+    }
+
+    /**
+     * This method returns the executor which runs the invocations with a timeout.
+     * The executor is created on the first call and uses daemon threads which
+     * are terminated after they were idle for a while.
+     *
+     * @return the executor
+     *
+     * @throws RejectedExecutionException if the policy was shut down
+     */
+    private ExecutorService getExecutor()
+    {
+        ExecutorService executorService = this.executor;
+        if (executorService == null)
+        {
+            synchronized (this)
+            {
+                if (this.shutdown)
+                {
+                    throw new RejectedExecutionException("The invocation policy was shut down.");
+                }
+
+                executorService = this.executor;
+                if (executorService == null)
+                {
+                    executorService = Executors.newCachedThreadPool(new ThreadFactory()
+                    {
+                        @Override
+                        public Thread newThread(Runnable runnable)
+                        {
+                            Thread thread = new Thread(runnable, "pericopist-invocation");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    this.executor = executorService;
+                }
+            }
+        }
+        return executorService;
+    }
+
+    /**
+     * This class is the key of a stored result. It consists of the method, the target and the argument values.
+     */
+    private static final class Invocation
+    {
+        private final Method method;
+        private final Object target;
+        private final Object[] arguments;
+        private final int hashCode;
+
+        /**
+         * The constructor creates a new key
+         *
+         * @param method    the method
+         * @param target    the target or null
+         * @param arguments the argument values
+         */
+        private Invocation(Method method, Object target, Object[] arguments)
+        {
+            this.method = method;
+            this.target = target;
+            this.arguments = arguments.clone();
+            this.hashCode = Arrays.deepHashCode(new Object[]{method, target, this.arguments});
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Invocation))
+            {
+                return false;
+            }
+
+            Invocation that = (Invocation) o;
+            return this.method.equals(that.method) && Arrays.deepEquals(new Object[]{this.target, this.arguments}, new Object[]{that.target, that.arguments});
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
+    }
+}
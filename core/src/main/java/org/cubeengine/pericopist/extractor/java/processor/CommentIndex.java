@@ -0,0 +1,213 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class indexes the lines and the extracted comments of the source code of a compilation unit.
+ * An extracted comment starts with '/// '. It's either behind an element or it's the only content of
+ * the lines above the element.
+ * <p/>
+ * The lists of extracted comments are created once per line and shared by every element of the line.
+ */
+class CommentIndex
+{
+    private static final String COMMENT_PREFIX = "/// ";
+
+    private final String sourceCode;
+    private final int[] lineStarts;
+    private final int[] trimmedLineEnds;
+    private final int[] lastCommentStarts;
+    private final String[] lineComments;
+    private final int[] behindCommentStarts;
+    private final List<String>[] behindComments;
+    private final List<String>[] aboveComments;
+
+    /**
+     * The constructor creates the index of the specified source code
+     *
+     * @param sourceCode the source code of the compilation unit
+     */
+    @SuppressWarnings("unchecked")
+    CommentIndex(String sourceCode)
+    {
+        this.sourceCode = sourceCode;
+
+        int lineCount = 1;
+        for (int i = 0; i < sourceCode.length(); i++)
+        {
+            if (sourceCode.charAt(i) == '\n')
+            {
+                lineCount++;
+            }
+        }
+
+        this.lineStarts = new int[lineCount];
+        this.trimmedLineEnds = new int[lineCount];
+        this.lastCommentStarts = new int[lineCount];
+        this.lineComments = new String[lineCount];
+        this.behindCommentStarts = new int[lineCount];
+        this.behindComments = new List[lineCount];
+        this.aboveComments = new List[lineCount];
+
+        int line = 0;
+        for (int i = 0; i < sourceCode.length(); i++)
+        {
+            if (sourceCode.charAt(i) == '\n')
+            {
+                this.lineStarts[++line] = i + 1;
+            }
+        }
+
+        for (line = 0; line < lineCount; line++)
+        {
+            this.indexLine(line);
+        }
+    }
+
+    /**
+     * This method returns the extracted comments of an element. The comment behind the element
+     * has a higher priority than the comments above the element.
+     *
+     * @param sourceStart the index of the first character of the element
+     * @param sourceEnd   the index of the last character of the element
+     *
+     * @return unmodifiable list of the extracted comments
+     */
+    List<String> getExtractedComments(int sourceStart, int sourceEnd)
+    {
+        List<String> comments = this.getCommentBehind(sourceEnd);
+        if (comments != null)
+        {
+            return comments;
+        }
+        return this.getCommentsAbove(sourceStart);
+    }
+
+    /**
+     * This method returns the comment behind an element.
+     *
+     * @param sourceEnd the index of the last character of the element
+     *
+     * @return a list containing the comment or null if the element isn't followed by a comment
+     */
+    private List<String> getCommentBehind(int sourceEnd)
+    {
+        int line = this.getLine(sourceEnd);
+        if (this.lastCommentStarts[line] < sourceEnd)
+        {
+            return null;
+        }
+
+        int commentStart = this.sourceCode.indexOf(COMMENT_PREFIX, sourceEnd);
+        if (this.behindComments[line] == null || this.behindCommentStarts[line] != commentStart)
+        {
+            this.behindComments[line] = Collections.singletonList(this.sourceCode.substring(commentStart + COMMENT_PREFIX.length(), this.trimmedLineEnds[line]));
+            this.behindCommentStarts[line] = commentStart;
+        }
+        return this.behindComments[line];
+    }
+
+    /**
+     * This method returns the comments of the lines above an element. The lines are
+     * read upwards until a line isn't an extracted comment.
+     *
+     * @param sourceStart the index of the first character of the element
+     *
+     * @return the comments in the order of the source code
+     */
+    private List<String> getCommentsAbove(int sourceStart)
+    {
+        int elementLine = this.getLine(sourceStart);
+        int line = elementLine - 1;
+        if (line < 0 || this.lineComments[line] == null)
+        {
+            return Collections.emptyList();
+        }
+
+        if (this.aboveComments[elementLine] == null)
+        {
+            List<String> comments = new ArrayList<>(1);
+            while (line >= 0 && this.lineComments[line] != null)
+            {
+                comments.add(0, this.lineComments[line]);
+                line--;
+            }
+            this.aboveComments[elementLine] = Collections.unmodifiableList(comments);
+        }
+        return this.aboveComments[elementLine];
+    }
+
+    /**
+     * This method returns the line of the specified character
+     *
+     * @param index index of the character
+     *
+     * @return the line starting with 0
+     */
+    private int getLine(int index)
+    {
+        int line = Arrays.binarySearch(this.lineStarts, index);
+        if (line < 0)
+        {
+            line = -line - 2;
+        }
+        return line;
+    }
+
+    /**
+     * This method indexes the comments of the specified line
+     *
+     * @param line the line starting with 0
+     */
+    private void indexLine(int line)
+    {
+        int start = this.lineStarts[line];
+        int end = line + 1 < this.lineStarts.length ? this.lineStarts[line + 1] : this.sourceCode.length();
+
+        // the whitespaces at the beginning and the end of a line don't belong to a comment
+        int trimmedStart = start;
+        while (trimmedStart < end && this.sourceCode.charAt(trimmedStart) <= ' ')
+        {
+            trimmedStart++;
+        }
+        int trimmedEnd = end;
+        while (trimmedEnd > trimmedStart && this.sourceCode.charAt(trimmedEnd - 1) <= ' ')
+        {
+            trimmedEnd--;
+        }
+        this.trimmedLineEnds[line] = trimmedEnd;
+
+        int lastCommentStart = this.sourceCode.lastIndexOf(COMMENT_PREFIX, trimmedEnd - COMMENT_PREFIX.length());
+        this.lastCommentStarts[line] = lastCommentStart < trimmedStart ? -1 : lastCommentStart;
+
+        if (this.lastCommentStarts[line] >= 0 && this.sourceCode.startsWith(COMMENT_PREFIX, trimmedStart))
+        {
+            this.lineComments[line] = this.sourceCode.substring(trimmedStart + COMMENT_PREFIX.length(), trimmedEnd);
+        }
+    }
+}
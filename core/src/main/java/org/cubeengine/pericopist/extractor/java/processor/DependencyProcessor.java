@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java.processor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import spoon.processing.AbstractProcessor;
+import spoon.processing.TraversalStrategy;
+import spoon.reflect.cu.CompilationUnit;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.reference.CtArrayTypeReference;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.reference.CtFieldReference;
+import spoon.reflect.reference.CtTypeReference;
+
+/**
+ * This processor collects the top level types which are declared by every compilation unit and the top level types
+ * which are used by it. A type is used if one of its static fields is accessed or if one of its methods or
+ * constructors is invoked, because the messages of the compilation unit may be evaluated from them.
+ * <p/>
+ * The processor is run by the {@link MessageScanner} within the traversal which extracts the messages.
+ */
+public class DependencyProcessor extends AbstractProcessor<CtElement>
+{
+    private final Map<CompilationUnit, Set<String>> declaredTypes;
+    private final Map<CompilationUnit, Set<String>> dependencies;
+    private Set<String> currentDependencies;
+
+    /**
+     * The constructor creates a new processor
+     */
+    public DependencyProcessor()
+    {
+        this.declaredTypes = new HashMap<>();
+        this.dependencies = new HashMap<>();
+    }
+
+    @Override
+    public TraversalStrategy getTraversalStrategy()
+    {
+        return TraversalStrategy.PRE_ORDER;
+    }
+
+    @Override
+    public void process(CtElement element)
+    {
+        if (element instanceof CtType && ((CtType<?>) element).isTopLevel())
+        {
+            this.processTopLevelType((CtType<?>) element);
+        }
+        else if (this.currentDependencies == null)
+        {
+            return;
+        }
+        else if (element instanceof CtExecutableReference)
+        {
+            this.addDependency(((CtExecutableReference<?>) element).getDeclaringType());
+        }
+        else if (element instanceof CtFieldReference && ((CtFieldReference<?>) element).isStatic())
+        {
+            this.addDependency(((CtFieldReference<?>) element).getDeclaringType());
+        }
+    }
+
+    /**
+     * This method stores the specified top level type as a declared type of its compilation unit. The following
+     * elements belong to the compilation unit until the next top level type is processed.
+     *
+     * @param type the top level type
+     */
+    private void processTopLevelType(CtType<?> type)
+    {
+        CompilationUnit compilationUnit = type.getPosition().getCompilationUnit();
+        if (compilationUnit == null)
+        {
+            this.currentDependencies = null;
+            return;
+        }
+
+        getOrCreateSet(this.declaredTypes, compilationUnit).add(type.getQualifiedName());
+        this.currentDependencies = getOrCreateSet(this.dependencies, compilationUnit);
+    }
+
+    /**
+     * This method adds the top level type of the specified type to the dependencies of the current compilation unit.
+     *
+     * @param type the type
+     */
+    private void addDependency(CtTypeReference<?> type)
+    {
+        if (type == null || type instanceof CtArrayTypeReference)
+        {
+            return;
+        }
+        this.currentDependencies.add(type.getTopLevelType().getQualifiedName());
+    }
+
+    /**
+     * This method returns the qualified names of the top level types which are declared by the compilation unit.
+     *
+     * @param compilationUnit the compilation unit
+     *
+     * @return the declared types
+     */
+    public Set<String> getDeclaredTypes(CompilationUnit compilationUnit)
+    {
+        Set<String> types = this.declaredTypes.get(compilationUnit);
+        if (types == null)
+        {
+            return Collections.emptySet();
+        }
+        return types;
+    }
+
+    /**
+     * This method returns the qualified names of the top level types which are used by the compilation unit.
+     * The types which are declared by the compilation unit itself aren't contained.
+     *
+     * @param compilationUnit the compilation unit
+     *
+     * @return the dependencies
+     */
+    public Set<String> getDependencies(CompilationUnit compilationUnit)
+    {
+        Set<String> types = this.dependencies.get(compilationUnit);
+        if (types == null)
+        {
+            return Collections.emptySet();
+        }
+
+        Set<String> dependencies = new HashSet<>(types);
+        dependencies.removeAll(this.getDeclaredTypes(compilationUnit));
+        return dependencies;
+    }
+
+    /**
+     * This method returns the set which is mapped to the compilation unit. A new set is created if none exists yet.
+     *
+     * @param map             the map
+     * @param compilationUnit the compilation unit
+     *
+     * @return the set
+     */
+    private static Set<String> getOrCreateSet(Map<CompilationUnit, Set<String>> map, CompilationUnit compilationUnit)
+    {
+        Set<String> set = map.get(compilationUnit);
+        if (set == null)
+        {
+            set = new HashSet<>();
+            map.put(compilationUnit, set);
+        }
+        return set;
+    }
+}
@@ -23,7 +23,6 @@
 package org.cubeengine.pericopist.extractor.java.processor;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -34,7 +33,6 @@ import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfi
 import org.cubeengine.pericopist.extractor.java.converter.ConverterManager;
 import org.cubeengine.pericopist.extractor.java.converter.exception.ConversionException;
 import org.cubeengine.pericopist.message.MessageStore;
-import org.cubeengine.pericopist.message.SourceReference;
 import org.cubeengine.pericopist.message.TranslatableMessage;
 import org.cubeengine.pericopist.util.Misc;
 import spoon.processing.AbstractProcessor;
@@ -54,6 +52,9 @@ public abstract class MessageProcessor<E extends CtElement> extends AbstractProc
     private final MessageStore messageStore;
     private final ConverterManager converterManager;
     private final Logger logger;
+    private MessageScanner messageScanner;
+    private File sourceFile;
+    private File relativizedFile;
 
     /**
      * The constructor "creates" a new MessageProcessor.
@@ -134,19 +135,16 @@ public abstract class MessageProcessor<E extends CtElement> extends AbstractProc
      */
     protected void addMessage(JavaExpression javaExpression, E element, String context, String[] singulars, String[] plurals)
     {
-        File file = Misc.getRelativizedFile(this.getConfiguration().getDirectory(), element.getPosition().getFile());
-        SourceReference sourceReference = new SourceReference(file, element.getPosition().getLine(), javaExpression);
+        SourcePosition position = element.getPosition();
+        File file = this.getRelativizedFile(position.getFile());
+        int line = position.getLine();
+        List<String> extractedComments = this.getCommentIndex(position.getCompilationUnit()).getExtractedComments(position.getSourceStart(), position.getSourceEnd());
 
         if (context == null)
         {
             context = javaExpression.getDefaultContext();
         }
 
-        for (String extractedComment : this.extractComments(element))
-        {
-            sourceReference.addExtractedComment(extractedComment);
-        }
-
         if (javaExpression.hasPlural())
         {
             if (plurals.length > 1)
@@ -161,18 +159,12 @@ public abstract class MessageProcessor<E extends CtElement> extends AbstractProc
 
             if (singulars[0].isEmpty())
             {
-                this.getLogger().info("The singular message can't be an empty string. Occurrence: " + sourceReference);
+                this.getLogger().info("The singular message can't be an empty string. Occurrence: " + file.getPath() + ":" + line);
                 return;
             }
 
-            TranslatableMessage pluralMessage = this.getMessageStore().getMessage(context, singulars[0], plurals[0]);
-            if (pluralMessage == null)
-            {
-                pluralMessage = new TranslatableMessage(context, singulars[0], plurals[0]);
-                this.getMessageStore().addMessage(pluralMessage);
-            }
-
-            pluralMessage.addSourceReference(sourceReference);
+            TranslatableMessage pluralMessage = this.getMessageStore().getOrCreateMessage(context, singulars[0], plurals[0]);
+            this.getMessageStore().addSourceReference(pluralMessage, file, line, javaExpression, extractedComments);
 
             return;
         }
@@ -181,82 +173,59 @@ public abstract class MessageProcessor<E extends CtElement> extends AbstractProc
         {
             if (singular.isEmpty())
             {
-                this.getLogger().info("The singular message can't be an empty string. Occurrence: " + sourceReference);
+                this.getLogger().info("The singular message can't be an empty string. Occurrence: " + file.getPath() + ":" + line);
                 continue;
             }
 
-            TranslatableMessage singularMessage = this.getMessageStore().getMessage(context, singular, null);
-            if (singularMessage == null)
-            {
-                singularMessage = new TranslatableMessage(context, singular, null);
-                this.getMessageStore().addMessage(singularMessage);
-            }
-
-            singularMessage.addSourceReference(sourceReference);
+            TranslatableMessage singularMessage = this.getMessageStore().getOrCreateMessage(context, singular, null);
+            this.getMessageStore().addSourceReference(singularMessage, file, line, javaExpression, extractedComments);
         }
     }
 
     /**
-     * This method extracts comments from the element, which start with '/// '.
-     * A comment can be behind or above the element. The comment behind has a higher priority.
+     * This method returns the specified source file relative to the source directory. The relativized file
+     * of the last source file is reused, because the elements of a source file are processed one after another.
      *
-     * @param element the element from which comments shall be extracted
+     * @param sourceFile the source file
      *
-     * @return extracted comments
+     * @return the relativized file
      */
-    private String[] extractComments(E element)
+    private File getRelativizedFile(File sourceFile)
     {
-        SourcePosition position = element.getPosition();
-        CompilationUnit compilationUnit = position.getCompilationUnit();
-        String sourceCode = compilationUnit.getOriginalSourceCode();
-
-        // load comment after element
-        String comment = this.getExtractedComment(sourceCode.substring(position.getSourceEnd(), compilationUnit.nextLineIndex(position.getSourceEnd())), true);
-        if (comment != null)
+        if (!sourceFile.equals(this.sourceFile))
         {
-            return new String[] {comment};
+            this.relativizedFile = Misc.getRelativizedFile(this.getConfiguration().getDirectory(), sourceFile);
+            this.sourceFile = sourceFile;
         }
+        return this.relativizedFile;
+    }
 
-        // load more line comments before element
-        List<String> extractedComments = new ArrayList<>(1);
-
-        int currentLineIndex;
-        int lastLineIndex = compilationUnit.beginOfLineIndex(position.getSourceStart());
-
-        do
-        {
-            currentLineIndex = lastLineIndex;
-            lastLineIndex = compilationUnit.beginOfLineIndex(currentLineIndex - 2);
-
-            comment = this.getExtractedComment(sourceCode.substring(lastLineIndex, currentLineIndex), false);
-
-            if (comment != null)
-            {
-                extractedComments.add(0, comment);
-            }
-        }
-        while (comment != null);
-
-        return extractedComments.toArray(new String[extractedComments.size()]);
+    /**
+     * This method sets the {@link MessageScanner} which calls the processor. The scanner shares one
+     * comment index per compilation unit with all of its processors.
+     *
+     * @param messageScanner the message scanner
+     */
+    void setMessageScanner(MessageScanner messageScanner)
+    {
+        this.messageScanner = messageScanner;
     }
 
     /**
-     * This method extracts a comments from the given line which start with '/// '.
+     * This method returns the comment index of the specified compilation unit. The index is taken from the
+     * {@link MessageScanner} which calls the processor. Without a scanner a new index is created.
      *
-     * @param line the line
+     * @param compilationUnit the compilation unit
      *
-     * @return the extracted comment or null
+     * @return the comment index
      */
-    private String getExtractedComment(String line, boolean isBehindExpression)
+    private CommentIndex getCommentIndex(CompilationUnit compilationUnit)
     {
-        line = line.trim();
-
-        int index = line.indexOf("/// ");
-        if (index < 0 || index != 0 && !isBehindExpression)
+        if (this.messageScanner == null)
         {
-            return null;
+            return new CommentIndex(compilationUnit.getOriginalSourceCode());
         }
-        return line.substring(index + 4);
+        return this.messageScanner.getCommentIndex(compilationUnit);
     }
 
     /**
@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.extractor.java.processor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import spoon.processing.Processor;
+import spoon.processing.TraversalStrategy;
+import spoon.reflect.cu.CompilationUnit;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.visitor.CtScanner;
+
+/**
+ * This class is a {@link CtScanner} which calls several {@link Processor} instances within one traversal of the model.
+ * Spoon itself traverses the whole model once per processor.
+ * <p/>
+ * Every element is handed to the processors in the order in which they were specified.
+ * The {@link MessageProcessor} instances share one {@link CommentIndex} of the compilation unit
+ * which is scanned. The index is dropped as soon as the scanner leaves the top level type.
+ */
+public class MessageScanner extends CtScanner
+{
+    private final Factory factory;
+    private final List<Processor<?>> processors;
+    private CompilationUnit compilationUnit;
+    private CommentIndex commentIndex;
+
+    /**
+     * The constructor creates a new scanner
+     *
+     * @param factory    the factory of the model
+     * @param processors the processors which shall process the elements
+     */
+    public MessageScanner(Factory factory, Collection<? extends Processor<?>> processors)
+    {
+        this.factory = factory;
+        this.processors = new ArrayList<>(processors);
+
+        for (Processor<?> processor : this.processors)
+        {
+            if (processor instanceof MessageProcessor)
+            {
+                ((MessageProcessor<?>) processor).setMessageScanner(this);
+            }
+        }
+    }
+
+    /**
+     * This method processes the specified element and all its children with the processors.
+     *
+     * @param element the root element, usually the root package of the model
+     */
+    public void process(CtElement element)
+    {
+        for (Processor<?> processor : this.processors)
+        {
+            processor.setFactory(this.factory);
+            processor.init();
+            processor.process();
+        }
+
+        try
+        {
+            this.scan(element);
+        }
+        finally
+        {
+            this.dropCommentIndex();
+
+            for (Processor<?> processor : this.processors)
+            {
+                processor.processingDone();
+            }
+        }
+    }
+
+    @Override
+    public void scan(CtElement element)
+    {
+        if (element == null)
+        {
+            return;
+        }
+
+        this.process(element, TraversalStrategy.PRE_ORDER);
+        super.scan(element);
+        this.process(element, TraversalStrategy.POST_ORDER);
+
+        if (element instanceof CtType && ((CtType<?>) element).isTopLevel())
+        {
+            this.dropCommentIndex();
+        }
+    }
+
+    /**
+     * This method returns the comment index of the specified compilation unit.
+     * The index is created with the first call for the compilation unit which is scanned.
+     *
+     * @param compilationUnit the compilation unit
+     *
+     * @return the comment index
+     */
+    CommentIndex getCommentIndex(CompilationUnit compilationUnit)
+    {
+        if (this.commentIndex == null || this.compilationUnit != compilationUnit)
+        {
+            this.commentIndex = new CommentIndex(compilationUnit.getOriginalSourceCode());
+            this.compilationUnit = compilationUnit;
+        }
+        return this.commentIndex;
+    }
+
+    /**
+     * This method drops the comment index of the last compilation unit, so that its source code can be collected.
+     */
+    private void dropCommentIndex()
+    {
+        this.compilationUnit = null;
+        this.commentIndex = null;
+    }
+
+    /**
+     * This method hands the specified element to every processor which uses the specified traversal strategy
+     * and which is able to process the element.
+     *
+     * @param element           the element
+     * @param traversalStrategy the traversal strategy
+     */
+    @SuppressWarnings("unchecked")
+    private void process(CtElement element, TraversalStrategy traversalStrategy)
+    {
+        for (Processor<?> processor : this.processors)
+        {
+            if (processor.getTraversalStrategy() != traversalStrategy || !this.canBeProcessed(processor, element))
+            {
+                continue;
+            }
+
+            Processor<CtElement> elementProcessor = (Processor<CtElement>) processor;
+            if (elementProcessor.isToBeProcessed(element))
+            {
+                elementProcessor.process(element);
+            }
+        }
+    }
+
+    /**
+     * This method checks whether the element is an instance of the element types which are processed by the processor.
+     *
+     * @param processor the processor
+     * @param element   the element
+     *
+     * @return whether the processor can process the element
+     */
+    private boolean canBeProcessed(Processor<?> processor, CtElement element)
+    {
+        if (processor.getProcessedElementTypes() == null)
+        {
+            return false;
+        }
+        for (Class<? extends CtElement> elementType : processor.getProcessedElementTypes())
+        {
+            if (!elementType.isAssignableFrom(element.getClass()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format;
+
+import java.io.OutputStream;
+
+import org.cubeengine.pericopist.exception.CatalogFormatException;
+import org.cubeengine.pericopist.message.MessageStore;
+
+/**
+ * A LocaleCatalogFormat is a {@link CatalogFormat} which is able to merge the catalog of a locale with the messages
+ * of the template. The translations of the locale are kept and moved messages are matched with their previous version.
+ *
+ * @see org.cubeengine.pericopist.format.LocaleCatalogConfiguration
+ */
+public interface LocaleCatalogFormat extends CatalogFormat
+{
+    /**
+     * This method writes the catalog of a locale. It adds the source references of the messages of the
+     * template to the messages of the locale, so the specified locale message store is changed.
+     * <p/>
+     * This method must be able to run for multiple locales at the same time.
+     *
+     * @param config             config which shall be used to write the catalog
+     * @param outputStream       the output stream which shall be used to create the catalog of the locale
+     * @param localeMessageStore the message store containing the messages which were read from the catalog of the locale
+     * @param messageStore       the message store containing the messages of the template
+     *
+     * @return true if the catalog file was written
+     *
+     * @throws CatalogFormatException if an error occurs while writing the message catalog
+     */
+    boolean writeLocale(CatalogConfiguration config, OutputStream outputStream, MessageStore localeMessageStore, MessageStore messageStore) throws CatalogFormatException;
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format.gettext;
+
+import java.nio.charset.Charset;
+import java.util.logging.Logger;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.velocity.context.Context;
+import org.cubeengine.pericopist.PericopistFactory;
+import org.cubeengine.pericopist.format.CatalogFormat;
+
+/**
+ * <p>
+ * This configuration is used for creating a binary gettext catalog (.mo file). It supports the same
+ * settings like the {@link GettextCatalogConfiguration} and additionally the hash table setting.
+ * </p>
+ *
+ * <p>
+ * The configuration can be set up with an xml file.
+ * </p>
+ *
+ * Example:
+ *
+ * <pre>
+ * {@code
+ * <catalog format="mo" charset="utf-8"> <!-- default charset: charset set as extractor tag attribute -->
+ *     <hashTable>true</hashTable> <!-- whether the catalog contains a hash table. default: true -->
+ *     <removeUnusedMessages>true</removeUnusedMessages> <!-- default: true -->
+ *     <createEmptyTemplate>false</createEmptyTemplate> <!-- default: false -->
+ *     <pluralAmount>2</pluralAmount> <!-- plural amount of the source language. default: 2 -->
+ *     <template>CATALOG PATH</template> <!-- path of the .mo file -->
+ *     <header>
+ *         ...
+ *     </header>
+ * </catalog>
+ * }
+ * </pre>
+ *
+ * @see PericopistFactory#getPericopist(String, Charset, int, Context, Logger)
+ * @see org.cubeengine.pericopist.format.gettext.BinaryGettextCatalogFormat
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "catalog")
+public class BinaryGettextCatalogConfiguration extends GettextCatalogConfiguration
+{
+    private Boolean hashTable;
+
+    /**
+     * This method returns whether the catalog shall contain a hash table
+     *
+     * @return whether the catalog contains a hash table
+     */
+    public boolean getHashTable()
+    {
+        if (this.hashTable == null)
+        {
+            return true;
+        }
+        return this.hashTable;
+    }
+
+    /**
+     * This method sets whether the catalog shall contain a hash table
+     *
+     * @param hashTable whether the catalog contains a hash table
+     */
+    @XmlElement(name = "hashTable")
+    public void setHashTable(boolean hashTable)
+    {
+        this.hashTable = hashTable;
+    }
+
+    @Override
+    public Class<? extends CatalogFormat> getCatalogFormatClass()
+    {
+        return BinaryGettextCatalogFormat.class;
+    }
+}
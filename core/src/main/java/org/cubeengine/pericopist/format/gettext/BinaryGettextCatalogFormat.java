@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format.gettext;
+
+import org.fedorahosted.tennera.jgettext.Message;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import org.cubeengine.pericopist.exception.CatalogFormatException;
+
+/**
+ * This catalog format creates and reads binary gettext catalogs (.mo files) which can be used by gettext
+ * implementations without parsing them.
+ * <p/>
+ * The messages are created like the ones of the {@link PlaintextGettextCatalogFormat}. Obsolete, fuzzy and
+ * untranslated messages aren't written into the binary catalog like it's done by msgfmt.
+ *
+ * @see org.cubeengine.pericopist.format.gettext.BinaryGettextCatalogConfiguration
+ */
+public class BinaryGettextCatalogFormat extends PlaintextGettextCatalogFormat
+{
+    @Override
+    protected void writeMessages(GettextCatalogConfiguration configuration, OutputStream outputStream, Message header, Iterator<Message> messages) throws IOException
+    {
+        boolean hashTable = !(configuration instanceof BinaryGettextCatalogConfiguration) || ((BinaryGettextCatalogConfiguration) configuration).getHashTable();
+        MoWriter writer = new MoWriter(configuration.getCharset(), hashTable);
+
+        writer.addMessage(header);
+        while (messages.hasNext())
+        {
+            writer.addMessage(messages.next());
+        }
+        writer.write(outputStream);
+    }
+
+    @Override
+    void readMessages(GettextCatalogConfiguration configuration, InputStream inputStream, GettextMessageStoreBuilder builder) throws CatalogFormatException
+    {
+        new MoReader(inputStream, configuration.getCharset()).read(builder);
+    }
+}
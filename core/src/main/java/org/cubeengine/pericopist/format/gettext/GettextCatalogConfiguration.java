@@ -22,9 +22,11 @@
  */
 package org.cubeengine.pericopist.format.gettext;
 
+import java.io.File;
 import java.nio.charset.Charset;
 import java.util.logging.Logger;
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlRootElement;
 
 import org.apache.velocity.context.Context;
@@ -33,6 +35,7 @@ import org.cubeengine.pericopist.exception.ConfigurationException;
 import org.cubeengine.pericopist.format.AbstractCatalogConfiguration;
 import org.cubeengine.pericopist.format.CatalogFormat;
 import org.cubeengine.pericopist.format.HeaderConfiguration;
+import org.cubeengine.pericopist.format.LocaleCatalogConfiguration;
 
 /**
  * <p>
@@ -52,6 +55,11 @@ import org.cubeengine.pericopist.format.HeaderConfiguration;
  *     <createEmptyTemplate>false</createEmptyTemplate> <!-- default: false -->
  *     <pluralAmount>2</pluralAmount> <!-- plural amount of the source language. default: 2 -->
  *     <template>TEMPLATE PATH</template> <!-- path of the template file -->
+ *     <locales> <!-- catalogs of the locales which are merged with the template. default: none -->
+ *         <locale>LOCALE CATALOG PATH</locale>
+ *         ...
+ *     </locales>
+ *     <mergeThreads>0</mergeThreads> <!-- threads merging the catalogs of the locales. 0 uses every processor. default: 0 -->
  *     <header>
  *         <comments>
  *             header comments of the template file.
@@ -73,10 +81,12 @@ import org.cubeengine.pericopist.format.HeaderConfiguration;
  */
 @SuppressWarnings("unused")
 @XmlRootElement(name = "catalog")
-public class GettextCatalogConfiguration extends AbstractCatalogConfiguration
+public class GettextCatalogConfiguration extends AbstractCatalogConfiguration implements LocaleCatalogConfiguration
 {
     private HeaderConfiguration headerConfiguration;
     private Integer pluralAmount;
+    private File[] localeFiles;
+    private Integer mergeThreadCount;
 
     /**
      * This method returns the header configuration of the gettext catalog
@@ -124,6 +134,50 @@ public class GettextCatalogConfiguration extends AbstractCatalogConfiguration
         this.pluralAmount = pluralAmount;
     }
 
+    @Override
+    public File[] getLocaleFiles()
+    {
+        if (this.localeFiles == null)
+        {
+            return new File[0];
+        }
+        return this.localeFiles;
+    }
+
+    /**
+     * This method sets the catalog files of the locales which shall be merged with the template
+     *
+     * @param localeFiles catalog files of the locales
+     */
+    @XmlElementWrapper(name = "locales")
+    @XmlElement(name = "locale")
+    public void setLocaleFiles(File... localeFiles)
+    {
+        this.localeFiles = localeFiles;
+    }
+
+    @Override
+    public int getMergeThreadCount()
+    {
+        if (this.mergeThreadCount == null || this.mergeThreadCount == 0)
+        {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return this.mergeThreadCount;
+    }
+
+    /**
+     * This method sets the amount of threads which are used to merge the catalogs of the locales.
+     * The value 0 uses every available processor.
+     *
+     * @param mergeThreadCount amount of threads
+     */
+    @XmlElement(name = "mergeThreads")
+    public void setMergeThreadCount(Integer mergeThreadCount)
+    {
+        this.mergeThreadCount = mergeThreadCount;
+    }
+
     @Override
     public Class<? extends CatalogFormat> getCatalogFormatClass()
     {
@@ -137,5 +191,10 @@ public class GettextCatalogConfiguration extends AbstractCatalogConfiguration
         {
             throw new ConfigurationException("You must specify the path which contains the location of the template");
         }
+
+        if (this.mergeThreadCount != null && this.mergeThreadCount < 0)
+        {
+            throw new ConfigurationException("The amount of threads can't be negative.");
+        }
     }
 }
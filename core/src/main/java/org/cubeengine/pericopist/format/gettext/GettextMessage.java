@@ -51,6 +51,16 @@ abstract class GettextMessage extends TranslatableMessage
         this.position = position;
     }
 
+    /**
+     * This method returns the position of the message within the catalog.
+     *
+     * @return position of the message
+     */
+    int getPosition()
+    {
+        return this.position;
+    }
+
     @Override
     protected boolean overridesCompareToMethod()
     {
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format.gettext;
+
+import org.fedorahosted.tennera.jgettext.Message;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cubeengine.pericopist.exception.CatalogFormatException;
+import org.cubeengine.pericopist.message.MessageKey;
+import org.cubeengine.pericopist.message.MessageStore;
+
+/**
+ * This class adds the messages of a gettext catalog to a {@link MessageStore} as soon as they are read.
+ * <p/>
+ * It keeps the semantics of a jgettext catalog: messages are identified by their context and message id.
+ * A message with the same context and message id replaces the previous one, but keeps its position.
+ * The last header of the catalog is used.
+ */
+class GettextMessageStoreBuilder
+{
+    private final MessageStore messageStore;
+    private final Map<MessageKey, TranslatableGettextMessage> messages;
+    private Message header;
+    private int position;
+
+    /**
+     * The constructor creates a new builder
+     */
+    GettextMessageStoreBuilder()
+    {
+        this.messageStore = new MessageStore();
+        this.messages = new HashMap<>();
+        this.position = 0;
+    }
+
+    /**
+     * This method adds a message of the catalog to the message store.
+     *
+     * @param message the message
+     */
+    void addMessage(Message message)
+    {
+        if (message.isHeader())
+        {
+            this.header = message;
+            return;
+        }
+
+        MessageKey key = new MessageKey(message.getMsgctxt(), message.getMsgid(), null);
+
+        int messagePosition;
+        TranslatableGettextMessage previousMessage = this.messages.get(key);
+        if (previousMessage != null)
+        {
+            this.messageStore.removeMessage(previousMessage);
+            messagePosition = previousMessage.getPosition();
+        }
+        else
+        {
+            messagePosition = ++this.position;
+        }
+
+        TranslatableGettextMessage translatableMessage = new TranslatableGettextMessage(message, messagePosition);
+        this.messageStore.addMessage(translatableMessage);
+        this.messages.put(key, translatableMessage);
+    }
+
+    /**
+     * This method returns the message store containing the read messages and the header of the catalog.
+     *
+     * @return the message store
+     *
+     * @throws CatalogFormatException if the header of the catalog is invalid
+     */
+    MessageStore getMessageStore() throws CatalogFormatException
+    {
+        if (this.header != null)
+        {
+            this.messageStore.addMessage(new GettextHeader(this.header));
+            this.header = null;
+        }
+        return this.messageStore;
+    }
+}
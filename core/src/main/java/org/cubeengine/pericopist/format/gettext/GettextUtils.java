@@ -24,7 +24,9 @@ package org.cubeengine.pericopist.format.gettext;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.cubeengine.pericopist.message.SourceReference;
@@ -106,6 +108,7 @@ public final class GettextUtils
     /**
      * This method combines similar source reference entries to one single entry. It uses a helper class
      * which contains the source reference and and a list containing every number describing the entry.
+     * The entries are grouped with a hash map and keep the order of their first occurrence.
      *
      * @param sourceReferences list of source references
      *
@@ -118,68 +121,80 @@ public final class GettextUtils
             return Collections.emptyList();
         }
 
-        List<SourceReferenceHolder> holders = new ArrayList<>(sourceReferences.size());
+        Map<SourceReferenceKey, SourceReferenceHolder> holders = new LinkedHashMap<>();
 
         int number = 0;
         for (SourceReference reference : sourceReferences)
         {
             number++;
-            int index = getSourceReferenceHolderIndex(holders, reference);
+            SourceReferenceKey key = new SourceReferenceKey(reference);
+            SourceReferenceHolder holder = holders.get(key);
 
-            if (index < 0)
+            if (holder == null)
             {
-                SourceReferenceHolder holder = new SourceReferenceHolder();
+                holder = new SourceReferenceHolder();
                 holder.sourceReference = reference;
-                holder.numbers.add(number);
-                holders.add(holder);
-            }
-            else
-            {
-                holders.get(index).numbers.add(number);
+                holders.put(key, holder);
             }
+            holder.numbers.add(number);
         }
 
-        return holders;
+        return new ArrayList<>(holders.values());
     }
 
     /**
-     * A help message which is used in the {@link #combineSourceReferences(java.util.Set)} method. It loads the index of
-     * the entry in the specified list which has the same source reference as described also.
-     *
-     * @param holders   list of the helper class {@link SourceReferenceHolder}
-     * @param reference reference
-     *
-     * @return index of the specified reference in the list
+     * helper class which is used internal as key of the source references which shall be combined.
+     * Two source references are combined if they have the same class, the same expression and the same extracted comments.
      */
-    private static int getSourceReferenceHolderIndex(List<SourceReferenceHolder> holders, SourceReference reference)
+    private static class SourceReferenceKey
     {
-        for (int i = 0; i < holders.size(); i++)
+        private final Class<?> referenceClass;
+        private final TranslatableExpression expression;
+        private final List<String> extractedComments;
+        private final int hashCode;
+
+        private SourceReferenceKey(SourceReference reference)
         {
-            SourceReference sourceReference = holders.get(i).sourceReference;
+            this.referenceClass = reference.getClass();
+            this.expression = reference.getExpression();
+            this.extractedComments = reference.getExtractedComments();
+
+            int result = this.referenceClass.hashCode();
+            result = 31 * result + (this.expression != null ? this.expression.hashCode() : 0);
+            result = 31 * result + this.extractedComments.hashCode();
+            this.hashCode = result;
+        }
 
-            if (!sourceReference.getClass().equals(reference.getClass()))
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
             {
-                continue;
+                return true;
             }
-
-            if (sourceReference.getExpression() != null && !sourceReference.getExpression().equals(reference.getExpression()))
+            if (o == null || this.getClass() != o.getClass())
             {
-                continue;
+                return false;
             }
-            else if (sourceReference.getExpression() == null && reference.getExpression() != null)
+
+            SourceReferenceKey that = (SourceReferenceKey) o;
+
+            if (!this.referenceClass.equals(that.referenceClass))
             {
-                continue;
+                return false;
             }
-
-            if (!sourceReference.getExtractedComments().equals(reference.getExtractedComments()))
+            if (this.expression == null ? that.expression != null : !this.expression.equals(that.expression))
             {
-                continue;
+                return false;
             }
-
-            return i;
+            return this.extractedComments.equals(that.extractedComments);
         }
 
-        return -1;
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
     }
 
     /**
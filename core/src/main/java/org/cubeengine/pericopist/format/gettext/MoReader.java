@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format.gettext;
+
+import org.fedorahosted.tennera.jgettext.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import org.cubeengine.pericopist.exception.CatalogFormatException;
+
+/**
+ * This class reads binary gettext catalogs (.mo files) of both byte orders.
+ * <p/>
+ * A binary catalog just contains the message ids and translations of the messages. Comments, references
+ * and flags of the messages are lost.
+ */
+class MoReader
+{
+    private final InputStream inputStream;
+    private final Charset charset;
+
+    /**
+     * The constructor creates a new reader
+     *
+     * @param inputStream the input stream of the catalog
+     * @param charset     the charset of the strings
+     */
+    MoReader(InputStream inputStream, Charset charset)
+    {
+        this.inputStream = inputStream;
+        this.charset = charset;
+    }
+
+    /**
+     * This method reads the messages of the catalog and adds them to the specified builder.
+     *
+     * @param builder the builder which shall store the messages
+     *
+     * @throws CatalogFormatException if the catalog couldn't be read or isn't a binary gettext catalog
+     */
+    void read(GettextMessageStoreBuilder builder) throws CatalogFormatException
+    {
+        ByteBuffer buffer;
+        try
+        {
+            buffer = ByteBuffer.wrap(this.readBytes());
+        }
+        catch (IOException e)
+        {
+            throw new CatalogFormatException("The catalog couldn't be read.", e);
+        }
+
+        try
+        {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MoWriter.MAGIC)
+            {
+                buffer.order(ByteOrder.BIG_ENDIAN);
+                if (buffer.getInt(0) != MoWriter.MAGIC)
+                {
+                    throw new CatalogFormatException("The catalog isn't a binary gettext catalog.");
+                }
+            }
+
+            int count = buffer.getInt(8);
+            int originalTableOffset = buffer.getInt(12);
+            int translationTableOffset = buffer.getInt(16);
+
+            for (int i = 0; i < count; i++)
+            {
+                String original = this.readString(buffer, originalTableOffset + 8 * i);
+                String translation = this.readString(buffer, translationTableOffset + 8 * i);
+
+                builder.addMessage(this.createMessage(original, translation));
+            }
+        }
+        catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e)
+        {
+            throw new CatalogFormatException("The binary gettext catalog is damaged.", e);
+        }
+    }
+
+    /**
+     * This method creates a message from an original string and its translation
+     *
+     * @param original    the original string containing the context and the plural form
+     * @param translation the translation containing every plural translation
+     *
+     * @return the message
+     */
+    private Message createMessage(String original, String translation)
+    {
+        Message message = new Message();
+
+        int contextEnd = original.indexOf('\u0004');
+        if (contextEnd >= 0)
+        {
+            message.setMsgctxt(original.substring(0, contextEnd));
+        }
+
+        int pluralStart = original.indexOf('\0', contextEnd + 1);
+        if (pluralStart < 0)
+        {
+            message.setMsgid(original.substring(contextEnd + 1));
+            message.setMsgstr(translation);
+            return message;
+        }
+
+        message.setMsgid(original.substring(contextEnd + 1, pluralStart));
+        message.setMsgidPlural(original.substring(pluralStart + 1));
+
+        String[] translations = translation.split("\0", -1);
+        for (int i = 0; i < translations.length; i++)
+        {
+            message.addMsgstrPlural(translations[i], i);
+        }
+        return message;
+    }
+
+    /**
+     * This method reads a string which is described by an entry of the string tables
+     *
+     * @param buffer      the buffer containing the catalog
+     * @param tableOffset offset of the table entry containing the length and the offset of the string
+     *
+     * @return the string
+     */
+    private String readString(ByteBuffer buffer, int tableOffset)
+    {
+        int length = buffer.getInt(tableOffset);
+        int offset = buffer.getInt(tableOffset + 4);
+
+        return new String(buffer.array(), offset, length, this.charset);
+    }
+
+    /**
+     * This method reads every byte of the input stream
+     *
+     * @return the content of the input stream
+     *
+     * @throws IOException if the input stream couldn't be read
+     */
+    private byte[] readBytes() throws IOException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        int read;
+        while ((read = this.inputStream.read(buffer)) != -1)
+        {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+}
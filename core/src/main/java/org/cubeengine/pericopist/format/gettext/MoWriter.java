@@ -0,0 +1,345 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format.gettext;
+
+import org.fedorahosted.tennera.jgettext.Message;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>
+ * This class writes binary gettext catalogs (.mo files) in the little endian byte order.
+ * </p>
+ *
+ * <p>
+ * The catalog contains the sorted table of the original strings, the table of the translations, an optional
+ * hash table and the strings itself. The hash table is created with the same hash function and collision handling
+ * like the one of GNU msgfmt, so gettext implementations are able to look up the messages with it.
+ * </p>
+ */
+class MoWriter
+{
+    static final int MAGIC = 0x950412de;
+
+    private static final int HEADER_SIZE = 28;
+    private static final byte CONTEXT_SEPARATOR = 4;
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>()
+    {
+        @Override
+        public int compare(Entry o1, Entry o2)
+        {
+            byte[] b1 = o1.original;
+            byte[] b2 = o2.original;
+
+            int length = Math.min(b1.length, b2.length);
+            for (int i = 0; i < length; i++)
+            {
+                int diff = (b1[i] & 0xff) - (b2[i] & 0xff);
+                if (diff != 0)
+                {
+                    return diff;
+                }
+            }
+            return b1.length - b2.length;
+        }
+    };
+
+    private final Charset charset;
+    private final boolean hashTable;
+    private final List<Entry> entries;
+
+    /**
+     * The constructor creates a new writer
+     *
+     * @param charset   the charset of the strings
+     * @param hashTable whether the catalog shall contain a hash table
+     */
+    MoWriter(Charset charset, boolean hashTable)
+    {
+        this.charset = charset;
+        this.hashTable = hashTable;
+        this.entries = new ArrayList<>();
+    }
+
+    /**
+     * This method adds a message to the catalog. Obsolete and untranslated messages as well as fuzzy messages
+     * with the exception of the header are ignored.
+     *
+     * @param message the message
+     */
+    public void addMessage(Message message)
+    {
+        if (message.isObsolete() || message.isFuzzy() && !message.isHeader())
+        {
+            return;
+        }
+
+        StringBuilder original = new StringBuilder();
+        StringBuilder translation = new StringBuilder();
+
+        if (message.getMsgctxt() != null)
+        {
+            original.append(message.getMsgctxt()).append((char) CONTEXT_SEPARATOR);
+        }
+        original.append(message.getMsgid());
+
+        if (message.isPlural())
+        {
+            original.append('\0').append(message.getMsgidPlural());
+
+            List<String> translations = message.getMsgstrPlural();
+            for (int i = 0; i < translations.size(); i++)
+            {
+                if (i > 0)
+                {
+                    translation.append('\0');
+                }
+                translation.append(translations.get(i));
+            }
+        }
+        else if (message.getMsgstr() != null)
+        {
+            translation.append(message.getMsgstr());
+        }
+
+        // a message is untranslated if the first translation is empty
+        if (translation.length() == 0 || translation.charAt(0) == '\0')
+        {
+            return;
+        }
+
+        this.entries.add(new Entry(original.toString().getBytes(this.charset), translation.toString().getBytes(this.charset)));
+    }
+
+    /**
+     * This method writes the catalog into the specified output stream
+     *
+     * @param outputStream the output stream
+     *
+     * @throws IOException if the catalog couldn't be written
+     */
+    public void write(OutputStream outputStream) throws IOException
+    {
+        Collections.sort(this.entries, ENTRY_COMPARATOR);
+
+        int count = this.entries.size();
+        int hashTableSize = this.hashTable ? getHashTableSize(count) : 0;
+
+        int originalTableOffset = HEADER_SIZE;
+        int translationTableOffset = originalTableOffset + 8 * count;
+        int hashTableOffset = translationTableOffset + 8 * count;
+        int stringOffset = hashTableOffset + 4 * hashTableSize;
+
+        int size = stringOffset;
+        for (Entry entry : this.entries)
+        {
+            size += entry.original.length + entry.translation.length + 2;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(0);
+        buffer.putInt(count);
+        buffer.putInt(originalTableOffset);
+        buffer.putInt(translationTableOffset);
+        buffer.putInt(hashTableSize);
+        buffer.putInt(hashTableOffset);
+
+        // table of the original strings
+        int offset = stringOffset;
+        for (Entry entry : this.entries)
+        {
+            buffer.putInt(entry.original.length);
+            buffer.putInt(offset);
+            offset += entry.original.length + 1;
+        }
+
+        // table of the translations
+        for (Entry entry : this.entries)
+        {
+            buffer.putInt(entry.translation.length);
+            buffer.putInt(offset);
+            offset += entry.translation.length + 1;
+        }
+
+        // hash table
+        if (hashTableSize > 0)
+        {
+            int[] table = this.createHashTable(hashTableSize);
+            for (int index : table)
+            {
+                buffer.putInt(index);
+            }
+        }
+
+        // strings
+        for (Entry entry : this.entries)
+        {
+            buffer.put(entry.original).put((byte) 0);
+        }
+        for (Entry entry : this.entries)
+        {
+            buffer.put(entry.translation).put((byte) 0);
+        }
+
+        outputStream.write(buffer.array());
+        outputStream.flush();
+    }
+
+    /**
+     * This method creates the hash table. Every slot stores the index of the related entry plus one
+     * or zero if it's empty. Collisions are resolved with double hashing.
+     *
+     * @param size the size of the hash table
+     *
+     * @return the hash table
+     */
+    private int[] createHashTable(int size)
+    {
+        int[] table = new int[size];
+
+        for (int i = 0; i < this.entries.size(); i++)
+        {
+            long hash = hash(this.entries.get(i).original);
+            int index = (int) (hash % size);
+
+            if (table[index] != 0)
+            {
+                int increment = (int) (1 + hash % (size - 2));
+                do
+                {
+                    if (index >= size - increment)
+                    {
+                        index -= size - increment;
+                    }
+                    else
+                    {
+                        index += increment;
+                    }
+                }
+                while (table[index] != 0);
+            }
+
+            table[index] = i + 1;
+        }
+
+        return table;
+    }
+
+    /**
+     * This method calculates the hash value of an original string with the hashpjw function of gettext.
+     * Only the bytes in front of the first null byte are hashed, so the plural form of a message doesn't
+     * influence the hash.
+     *
+     * @param original the original string
+     *
+     * @return the unsigned 32 bit hash value
+     */
+    static long hash(byte[] original)
+    {
+        int hash = 0;
+        for (byte b : original)
+        {
+            if (b == 0)
+            {
+                break;
+            }
+
+            hash = (hash << 4) + (b & 0xff);
+            int high = hash & 0xf0000000;
+            if (high != 0)
+            {
+                hash ^= high >>> 24;
+                hash ^= high;
+            }
+        }
+        return hash & 0xffffffffL;
+    }
+
+    /**
+     * This method returns the size of the hash table for the specified number of entries.
+     * It's the smallest prime number which is greater than or equal to 4/3 of the entries and at least 3.
+     *
+     * @param count number of entries
+     *
+     * @return size of the hash table
+     */
+    static int getHashTableSize(int count)
+    {
+        int size = (int) (count * 4L / 3) | 1;
+        while (!isPrime(size))
+        {
+            size += 2;
+        }
+        return Math.max(size, 3);
+    }
+
+    /**
+     * This method returns whether the specified odd number is a prime number
+     *
+     * @param number the odd number
+     *
+     * @return whether it's a prime number
+     */
+    private static boolean isPrime(int number)
+    {
+        for (int divisor = 3; (long) divisor * divisor <= number; divisor += 2)
+        {
+            if (number % divisor == 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An entry of the catalog containing the encoded original string and translation
+     */
+    private static final class Entry
+    {
+        private final byte[] original;
+        private final byte[] translation;
+
+        /**
+         * The constructor creates a new entry
+         *
+         * @param original    the encoded original string
+         * @param translation the encoded translation
+         */
+        private Entry(byte[] original, byte[] translation)
+        {
+            this.original = original;
+            this.translation = translation;
+        }
+    }
+}
@@ -22,22 +22,29 @@
  */
 package org.cubeengine.pericopist.format.gettext;
 
-import org.fedorahosted.tennera.jgettext.Catalog;
 import org.fedorahosted.tennera.jgettext.Message;
-import org.fedorahosted.tennera.jgettext.PoParser;
-import org.fedorahosted.tennera.jgettext.PoWriter;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.cubeengine.pericopist.exception.CatalogFormatException;
 import org.cubeengine.pericopist.format.CatalogConfiguration;
-import org.cubeengine.pericopist.format.CatalogFormat;
 import org.cubeengine.pericopist.format.HeaderConfiguration.MetadataEntry;
+import org.cubeengine.pericopist.format.LocaleCatalogFormat;
+import org.cubeengine.pericopist.message.MessageKey;
 import org.cubeengine.pericopist.message.MessageStore;
 import org.cubeengine.pericopist.message.SourceReference;
 import org.cubeengine.pericopist.message.TranslatableMessage;
@@ -47,8 +54,10 @@ import org.cubeengine.pericopist.message.TranslatableMessage;
  *
  * @see org.cubeengine.pericopist.format.gettext.GettextCatalogConfiguration
  */
-public class PlaintextGettextCatalogFormat implements CatalogFormat
+public class PlaintextGettextCatalogFormat implements LocaleCatalogFormat
 {
+    private static final Pattern NPLURALS_PATTERN = Pattern.compile("nplurals\\s*=\\s*(\\d+)");
+
     private Logger logger;
 
     @Override
@@ -70,9 +79,8 @@ public class PlaintextGettextCatalogFormat implements CatalogFormat
             return false;
         }
 
-        Catalog catalog = this.getCatalog(catalogConfig, messageStore);
-        catalog.addMessage(header.toMessage());
-        int messageCount = catalog.size();
+        Collection<TranslatableMessage> messages = this.selectMessages(catalogConfig, messageStore);
+        int messageCount = messages.size() + 1;
 
         if (messageCount == 1 && !catalogConfig.getCreateEmptyTemplate())
         {
@@ -80,26 +88,132 @@ public class PlaintextGettextCatalogFormat implements CatalogFormat
             return false;
         }
 
-        this.writeCatalog(catalog, catalogConfig, outputStream);
+        this.writeCatalog(catalogConfig, outputStream, messageStore, header, catalogConfig.getPluralAmount(), messages);
         this.logger.info("The " + this.getClass().getSimpleName() + " created a new template with " + messageCount + " messages (including the header).");
         return true;
     }
 
+    @Override
+    public boolean writeLocale(CatalogConfiguration config, OutputStream outputStream, MessageStore localeMessageStore, MessageStore messageStore) throws CatalogFormatException
+    {
+        GettextCatalogConfiguration catalogConfig = (GettextCatalogConfiguration) config;
+
+        // adds the messages of the template to the messages of the locale
+        for (TranslatableMessage message : messageStore)
+        {
+            if (message instanceof GettextHeader)
+            {
+                continue;
+            }
+
+            Set<SourceReference> sourceReferences = message.getSourceReferences();
+            if (sourceReferences.isEmpty())
+            {
+                // the message isn't used anymore
+                continue;
+            }
+
+            TranslatableMessage localeMessage = localeMessageStore.getOrCreateMessage(message.getKey());
+            for (SourceReference sourceReference : sourceReferences)
+            {
+                localeMessageStore.addSourceReference(localeMessage, sourceReference);
+            }
+        }
+
+        // the locale keeps its own header
+        GettextHeader header = null;
+        for (TranslatableMessage message : localeMessageStore)
+        {
+            if (message instanceof GettextHeader)
+            {
+                header = (GettextHeader) message;
+                break;
+            }
+        }
+        if (header == null)
+        {
+            header = new GettextHeader(catalogConfig);
+        }
+
+        if (!this.hasChanges(localeMessageStore, header))
+        {
+            return false;
+        }
+
+        this.writeCatalog(catalogConfig, outputStream, localeMessageStore, header, this.getPluralAmount(header, catalogConfig), this.selectMessages(catalogConfig, localeMessageStore));
+        return true;
+    }
+
+    /**
+     * This method returns the amount of plural translations. It's read from the Plural-Forms entry of the header
+     * and falls back to the plural amount of the configuration.
+     *
+     * @param header        header of the catalog
+     * @param configuration configuration of the catalog
+     *
+     * @return amount of plural translations
+     */
+    private int getPluralAmount(GettextHeader header, GettextCatalogConfiguration configuration)
+    {
+        for (int i = 0; i < header.getEntrySize(); i++)
+        {
+            MetadataEntry entry = header.getEntry(i);
+            if (!"Plural-Forms".equals(entry.getKey()) || entry.getValue() == null)
+            {
+                continue;
+            }
+
+            Matcher matcher = NPLURALS_PATTERN.matcher(entry.getValue());
+            if (matcher.find())
+            {
+                return Integer.parseInt(matcher.group(1));
+            }
+        }
+        return configuration.getPluralAmount();
+    }
+
     /**
-     * This method writes the catalog file into the specified output stream
+     * This method writes the catalog file into the specified output stream.
+     * The messages are created one after another while they're written.
      *
-     * @param catalog       catalog instance
      * @param configuration configuration of the catalog
      * @param outputStream  output stream of the catalog
+     * @param messageStore  the message store containing the messages for the catalog
+     * @param header        header of the catalog
+     * @param pluralAmount  amount of plural translations of a new plural message
+     * @param messages      the messages which shall be written, selected with {@link #selectMessages(GettextCatalogConfiguration, MessageStore)}
      *
      * @throws CatalogFormatException if the catalog couldn't be created
      */
-    private void writeCatalog(Catalog catalog, GettextCatalogConfiguration configuration, OutputStream outputStream) throws CatalogFormatException
+    private void writeCatalog(GettextCatalogConfiguration configuration, OutputStream outputStream, MessageStore messageStore, GettextHeader header, final int pluralAmount, Collection<TranslatableMessage> messages) throws CatalogFormatException
     {
-        final PoWriter poWriter = new PoWriter(true);
+        final Map<String, List<TranslatableGettextMessage>> referenceIndex = this.createReferenceIndex(messageStore);
+        final Iterator<TranslatableMessage> messageIterator = messages.iterator();
+
+        Iterator<Message> catalogMessages = new Iterator<Message>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return messageIterator.hasNext();
+            }
+
+            @Override
+            public Message next()
+            {
+                return createMessage(pluralAmount, referenceIndex, messageIterator.next());
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+
         try
         {
-            poWriter.write(catalog, outputStream, configuration.getCharset());
+            this.writeMessages(configuration, outputStream, header.toMessage(), catalogMessages);
         }
         catch (IOException e)
         {
@@ -108,66 +222,137 @@ public class PlaintextGettextCatalogFormat implements CatalogFormat
     }
 
     /**
-     * This method creates a catalog instance
+     * This method writes the header and the messages into the specified output stream.
+     * The messages are created by the iterator when they're requested.
+     *
+     * @param configuration configuration of the catalog
+     * @param outputStream  output stream of the catalog
+     * @param header        the header message
+     * @param messages      iterator over the messages of the catalog
+     *
+     * @throws IOException if the messages couldn't be written
+     */
+    protected void writeMessages(GettextCatalogConfiguration configuration, OutputStream outputStream, Message header, Iterator<Message> messages) throws IOException
+    {
+        PoStreamWriter writer = new PoStreamWriter(outputStream, configuration.getCharset());
+
+        writer.writeHeader(header);
+        while (messages.hasNext())
+        {
+            writer.write(messages.next());
+        }
+        writer.flush();
+    }
+
+    /**
+     * This method selects the messages of the message store which shall be written into the catalog.
+     * The messages keep the order of the message store. A message which isn't used anymore is replaced by a
+     * new message with the same context and message id, taking over its position.
      *
      * @param configuration configuration of the catalog
      * @param messageStore  the message store containing the messages for the catalog
      *
-     * @return catalog containing the specified information
+     * @return the messages of the catalog
+     *
+     * @throws CatalogFormatException if two used messages have the same context and message id
      */
-    private Catalog getCatalog(GettextCatalogConfiguration configuration, MessageStore messageStore) throws CatalogFormatException
+    private Collection<TranslatableMessage> selectMessages(GettextCatalogConfiguration configuration, MessageStore messageStore) throws CatalogFormatException
     {
-        Catalog catalog = new Catalog(true);
+        Map<MessageKey, TranslatableMessage> messages = new LinkedHashMap<>();
 
-        for (TranslatableMessage translatableMessage : messageStore)
+        for (TranslatableMessage message : messageStore)
         {
-            Message message = this.createMessage(configuration, messageStore, translatableMessage);
-            if (message == null)
+            if (message instanceof GettextHeader)
             {
                 continue;
             }
 
-            Message availableMessage = catalog.locateMessage(message.getMsgctxt(), message.getMsgid());
-            if (availableMessage == null)
+            boolean unused = message.getSourceReferences().isEmpty();
+            if (unused && message instanceof TranslatableGettextMessage && configuration.getRemoveUnusedMessages())
             {
-                // it's a completely new entry
-                catalog.addMessage(message);
                 continue;
             }
 
-            if (availableMessage.getSourceReferences().isEmpty())
+            MessageKey key = new MessageKey(message.getContext(), message.getSingular(), null);
+            TranslatableMessage availableMessage = messages.get(key);
+            if (availableMessage != null && !availableMessage.getSourceReferences().isEmpty())
             {
-                // the old entry isn't used anymore
-                catalog.addMessage(message);
-                continue;
+                throw new CatalogFormatException(String.format("The message with the context '%s' and the msgid '%s' exists already.", message.getContext(), message.getSingular()));
             }
 
-            throw new CatalogFormatException(String.format("The message with the context '%s' and the msgid '%s' exists already.", message.getMsgctxt(), message.getMsgid()));
+            // a message which isn't used anymore is replaced, but keeps its position
+            messages.put(key, message);
         }
 
-        return catalog;
+        return messages.values();
     }
 
-    private Message createMessage(GettextCatalogConfiguration configuration, MessageStore messageStore, TranslatableMessage translatableMessage)
+    /**
+     * This method creates an index of the old messages. It maps every reference of the old catalog to the messages
+     * which had the reference in the old catalog but don't have it anymore. The lists keep the order of the message store.
+     *
+     * @param messageStore the message store containing the messages of the old catalog
+     *
+     * @return the index of the old messages
+     */
+    private Map<String, List<TranslatableGettextMessage>> createReferenceIndex(MessageStore messageStore)
     {
-        if (translatableMessage instanceof GettextHeader)
+        Map<String, List<TranslatableGettextMessage>> referenceIndex = new HashMap<>();
+
+        for (TranslatableMessage oldMessage : messageStore)
         {
-            return null;
+            if (!(oldMessage instanceof TranslatableGettextMessage))
+            {
+                // delete every message which wasn't in the old catalog
+                continue;
+            }
+
+            TranslatableGettextMessage translatableGettextMessage = (TranslatableGettextMessage) oldMessage;
+
+            Set<String> currentReferences = new HashSet<>();
+            for (SourceReference newReference : translatableGettextMessage.getSourceReferences())
+            {
+                currentReferences.add(newReference.toString());
+            }
+
+            Set<String> indexedReferences = new HashSet<>();
+            for (String oldReference : translatableGettextMessage.getGettextReferences())
+            {
+                // the reference still exists in that message or the message was already added for the reference
+                if (currentReferences.contains(oldReference) || !indexedReferences.add(oldReference))
+                {
+                    continue;
+                }
+
+                List<TranslatableGettextMessage> messages = referenceIndex.get(oldReference);
+                if (messages == null)
+                {
+                    messages = new ArrayList<>(1);
+                    referenceIndex.put(oldReference, messages);
+                }
+                messages.add(translatableGettextMessage);
+            }
         }
 
+        return referenceIndex;
+    }
+
+    private Message createMessage(int pluralAmount, Map<String, List<TranslatableGettextMessage>> referenceIndex, TranslatableMessage translatableMessage)
+    {
         if (translatableMessage instanceof TranslatableGettextMessage)
         {
             Message message = ((TranslatableGettextMessage) translatableMessage).toMessage();
 
             if (message.getSourceReferences().isEmpty())
             {
-                if (configuration.getRemoveUnusedMessages())
-                {
-                    return null;
-                }
                 message.setObsolete(true);
                 this.logger.info("message with msgid '" + translatableMessage.getSingular() + "' does not occur!");
             }
+            else
+            {
+                // an obsolete message can be used again
+                message.setObsolete(false);
+            }
 
             return message;
         }
@@ -191,12 +376,12 @@ public class PlaintextGettextCatalogFormat implements CatalogFormat
             message.addExtractedComment(extractedComment);
         }
 
-        this.loadEntriesFromPreviousMessage(message, messageStore);
+        this.loadEntriesFromPreviousMessage(message, referenceIndex);
 
         // fill msgstr plural entries up
         if (message.isPlural())
         {
-            for (int i = message.getMsgstrPlural().size(); i < configuration.getPluralAmount(); i++)
+            for (int i = message.getMsgstrPlural().size(); i < pluralAmount; i++)
             {
                 message.addMsgstrPlural("", i);
             }
@@ -208,42 +393,20 @@ public class PlaintextGettextCatalogFormat implements CatalogFormat
     /**
      * This method sets the previous message ids of the specified message
      *
-     * @param message message
+     * @param message        message
+     * @param referenceIndex index of the old messages created with {@link #createReferenceIndex(MessageStore)}
      */
-    private void loadEntriesFromPreviousMessage(Message message, MessageStore messageStore)
+    private void loadEntriesFromPreviousMessage(Message message, Map<String, List<TranslatableGettextMessage>> referenceIndex)
     {
         // adds every message to the list which has the same reference
         List<TranslatableGettextMessage> messageList = new ArrayList<>(1);
 
         for (String reference : message.getSourceReferences())
         {
-            messageLoop: for (TranslatableMessage oldMessage : messageStore)
+            List<TranslatableGettextMessage> oldMessages = referenceIndex.get(reference);
+            if (oldMessages != null)
             {
-                if (!(oldMessage instanceof TranslatableGettextMessage))
-                {
-                    // delete every message which wasn't in the old catalog
-                    continue;
-                }
-
-                TranslatableGettextMessage translatableGettextMessage = (TranslatableGettextMessage) oldMessage;
-                for (SourceReference newReference : translatableGettextMessage.getSourceReferences())
-                {
-                    // continue with the next message if the reference still exists in that message
-                    if (reference.equals(newReference.toString()))
-                    {
-                        continue messageLoop;
-                    }
-                }
-
-                for (String oldReference : translatableGettextMessage.getGettextReferences())
-                {
-                    // if the reference was a message in the old catalog, add it to the message list
-                    if (reference.equals(oldReference))
-                    {
-                        messageList.add((TranslatableGettextMessage) oldMessage);
-                        break;
-                    }
-                }
+                messageList.addAll(oldMessages);
             }
         }
 
@@ -381,33 +544,30 @@ public class PlaintextGettextCatalogFormat implements CatalogFormat
     public MessageStore read(CatalogConfiguration config, InputStream inputStream) throws CatalogFormatException
     {
         GettextCatalogConfiguration catalogConfig = (GettextCatalogConfiguration) config;
-        MessageStore messageStore = new MessageStore();
-
-        Catalog catalog = new Catalog(true);
-        PoParser poParser = new PoParser(catalog);
-        catalog = poParser.parseCatalog(inputStream, catalogConfig.getCharset(), true);
-
-        Message header = catalog.locateHeader();
-        if (header != null)
-        {
-            messageStore.addMessage(new GettextHeader(header));
-        }
-
-        int i = 1;
-        for (Message catalogMessage : catalog)
-        {
-            if (catalogMessage.isHeader())
-            {
-                continue;
-            }
-            messageStore.addMessage(new TranslatableGettextMessage(catalogMessage, i++));
-        }
+        GettextMessageStoreBuilder builder = new GettextMessageStoreBuilder();
+        this.readMessages(catalogConfig, inputStream, builder);
+        MessageStore messageStore = builder.getMessageStore();
 
         this.logger.info("The " + this.getClass().getSimpleName() + " read " + messageStore.size() + " messages (including the header) from the old catalog.");
 
         return messageStore;
     }
 
+    /**
+     * This method reads the messages of the catalog from the specified input stream
+     * and adds them to the specified builder.
+     *
+     * @param configuration configuration of the catalog
+     * @param inputStream   input stream of the catalog
+     * @param builder       builder which stores the messages
+     *
+     * @throws CatalogFormatException if the catalog couldn't be read
+     */
+    void readMessages(GettextCatalogConfiguration configuration, InputStream inputStream, GettextMessageStoreBuilder builder) throws CatalogFormatException
+    {
+        new PoReader(inputStream, configuration.getCharset()).read(builder);
+    }
+
     private boolean hasChanges(MessageStore messageStore, GettextHeader header)
     {
         GettextHeader oldHeader = null;
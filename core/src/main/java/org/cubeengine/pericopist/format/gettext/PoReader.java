@@ -0,0 +1,693 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format.gettext;
+
+import org.fedorahosted.tennera.jgettext.Message;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+import org.cubeengine.pericopist.exception.CatalogFormatException;
+
+/**
+ * <p>
+ * This class reads gettext catalogs. It reads the catalog line by line and adds every message
+ * to the message store as soon as it's complete.
+ * </p>
+ *
+ * <p>
+ * The reader accepts the same syntax like the parser of jgettext and creates the same messages,
+ * but it doesn't create tokens or a syntax tree. Translator comments, extracted comments, references,
+ * flags, previous entries, plural entries and obsolete messages are supported.
+ * </p>
+ */
+class PoReader
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String DOMAIN = "domain";
+    private static final String MSGCTXT = "msgctxt";
+    private static final String MSGID = "msgid";
+    private static final String MSGID_PLURAL = "msgid_plural";
+    private static final String MSGSTR = "msgstr";
+    private static final String MSGSTR_PLURAL = "msgstr[";
+
+    private final BufferedReader reader;
+    private int lineNumber;
+
+    private GettextMessageStoreBuilder builder;
+    private Message message;
+    private State state;
+    private boolean obsoleteBlock;
+
+    private Entry entry;
+    private boolean previousEntry;
+    private boolean obsoleteEntry;
+    private int pluralIndex;
+    private final StringBuilder entryValue;
+
+    /**
+     * The constructor creates a new reader
+     *
+     * @param inputStream the input stream of the catalog
+     * @param charset     the charset of the catalog
+     */
+    PoReader(InputStream inputStream, Charset charset)
+    {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, charset), BUFFER_SIZE);
+        this.entryValue = new StringBuilder();
+    }
+
+    /**
+     * This method reads the messages of the catalog and adds them to the specified builder.
+     *
+     * @param builder the builder which shall store the messages
+     *
+     * @throws CatalogFormatException if the catalog couldn't be read or has a wrong syntax
+     */
+    void read(GettextMessageStoreBuilder builder) throws CatalogFormatException
+    {
+        this.builder = builder;
+        this.message = new Message();
+        this.state = State.NONE;
+        this.lineNumber = 0;
+
+        try
+        {
+            String line;
+            while ((line = this.reader.readLine()) != null)
+            {
+                this.lineNumber++;
+                this.processLine(line);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new CatalogFormatException("The catalog couldn't be read.", e);
+        }
+        catch (IllegalArgumentException | IndexOutOfBoundsException e)
+        {
+            throw this.createException(e.getMessage());
+        }
+
+        this.completeEntry();
+        if (this.state.isComplete())
+        {
+            this.completeMessage();
+        }
+        else if (this.state != State.NONE)
+        {
+            throw this.createException("The last message of the catalog is incomplete.");
+        }
+    }
+
+    /**
+     * This method processes a line of the catalog
+     *
+     * @param line the line
+     *
+     * @throws CatalogFormatException if the line has a wrong syntax
+     */
+    private void processLine(String line) throws CatalogFormatException
+    {
+        int start = 0;
+        while (start < line.length() && (line.charAt(start) == ' ' || line.charAt(start) == '\t'))
+        {
+            start++;
+        }
+        if (start == line.length())
+        {
+            return;
+        }
+
+        char first = line.charAt(start);
+        if (first == '"')
+        {
+            this.processContinuation(line, start);
+        }
+        else if (first == '#')
+        {
+            this.processComment(line, start);
+        }
+        else
+        {
+            this.processEntry(line, start, false);
+        }
+    }
+
+    /**
+     * This method processes a comment line of the catalog. It starts with '#'.
+     *
+     * @param line  the line
+     * @param start index of the '#'
+     *
+     * @throws CatalogFormatException if the line has a wrong syntax
+     */
+    private void processComment(String line, int start) throws CatalogFormatException
+    {
+        if (start + 1 == line.length())
+        {
+            this.completeEntry();
+            this.handleComment(Entry.COMMENT, "");
+            return;
+        }
+
+        switch (line.charAt(start + 1))
+        {
+            case ',':
+                this.completeEntry();
+                this.handleComment(Entry.FLAG, line.substring(start + 2));
+                break;
+            case ':':
+                this.completeEntry();
+                this.handleComment(Entry.REFERENCE, line.substring(start + 2).trim());
+                break;
+            case '.':
+                this.completeEntry();
+                this.handleComment(Entry.EXTRACTED_COMMENT, this.stripFirstSpace(line, start + 2));
+                break;
+            case '|':
+                this.processPreviousEntry(this.stripFirstSpace(line, start + 2));
+                break;
+            case '~':
+                this.processObsoleteEntry(this.stripFirstSpace(line, start + 2).trim());
+                break;
+            default:
+                this.completeEntry();
+                this.handleComment(Entry.COMMENT, this.stripFirstSpace(line, start + 1));
+        }
+    }
+
+    /**
+     * This method processes the content of a '#|' line which describes a previous entry
+     *
+     * @param line the line without the '#|'
+     *
+     * @throws CatalogFormatException if the line has a wrong syntax
+     */
+    private void processPreviousEntry(String line) throws CatalogFormatException
+    {
+        this.processLine(line);
+        if (this.entry == null)
+        {
+            throw this.createException("A previous entry must be a msgctxt, msgid or msgid_plural entry.");
+        }
+        this.previousEntry = true;
+    }
+
+    /**
+     * This method processes the content of a '#~' line which describes an entry of an obsolete message
+     *
+     * @param line the trimmed line without the '#~'
+     *
+     * @throws CatalogFormatException if the line has a wrong syntax
+     */
+    private void processObsoleteEntry(String line) throws CatalogFormatException
+    {
+        if (line.isEmpty())
+        {
+            return;
+        }
+
+        char first = line.charAt(0);
+        if (first == '"')
+        {
+            this.processContinuation(line, 0);
+        }
+        else if (first == '|')
+        {
+            this.processPreviousEntry(this.stripFirstSpace(line, 2));
+        }
+        else
+        {
+            this.processEntry(line, 0, true);
+        }
+    }
+
+    /**
+     * This method processes a line which continues the string of the current entry
+     *
+     * @param line  the line
+     * @param start index of the first quote
+     *
+     * @throws CatalogFormatException if no entry is open or the string has a wrong syntax
+     */
+    private void processContinuation(String line, int start) throws CatalogFormatException
+    {
+        if (this.entry == null)
+        {
+            throw this.createException("A string was found without a msgctxt, msgid or msgstr entry.");
+        }
+        this.appendString(line, start);
+    }
+
+    /**
+     * This method processes a line which starts a new entry like msgid or msgstr.
+     *
+     * @param line     the line
+     * @param start    index of the keyword
+     * @param obsolete whether it's an entry of an obsolete message
+     *
+     * @throws CatalogFormatException if the line has a wrong syntax
+     */
+    private void processEntry(String line, int start, boolean obsolete) throws CatalogFormatException
+    {
+        this.completeEntry();
+
+        this.obsoleteEntry = obsolete;
+        this.previousEntry = false;
+
+        if (line.startsWith(DOMAIN, start))
+        {
+            this.entry = Entry.DOMAIN;
+            this.appendString(line, start + DOMAIN.length());
+            this.completeEntry();
+        }
+        else if (line.startsWith(MSGCTXT, start))
+        {
+            this.entry = Entry.MSGCTXT;
+            this.appendString(line, start + MSGCTXT.length());
+        }
+        else if (line.startsWith(MSGID_PLURAL, start))
+        {
+            this.entry = Entry.MSGID_PLURAL;
+            this.appendString(line, start + MSGID_PLURAL.length());
+        }
+        else if (line.startsWith(MSGSTR_PLURAL, start))
+        {
+            int end = line.indexOf(']', start);
+            if (end < 0)
+            {
+                throw this.createException("The plural index of the msgstr entry isn't closed.");
+            }
+            this.entry = Entry.MSGSTR_PLURAL;
+            this.pluralIndex = Integer.parseInt(line.substring(start + MSGSTR_PLURAL.length(), end));
+            this.appendString(line, end + 1);
+        }
+        else if (line.startsWith(MSGSTR, start))
+        {
+            this.entry = Entry.MSGSTR;
+            this.appendString(line, start + MSGSTR.length());
+        }
+        else if (line.startsWith(MSGID, start))
+        {
+            this.entry = Entry.MSGID;
+            this.appendString(line, start + MSGID.length());
+        }
+        else
+        {
+            throw this.createException("Unrecognized entry directive [" + line.substring(start) + "]");
+        }
+    }
+
+    /**
+     * This method appends the quoted string which starts at the specified index to the value of the current entry.
+     * The escape sequences of the string are replaced.
+     *
+     * @param line  the line
+     * @param start the index where the quoted string starts. Whitespaces are skipped.
+     *
+     * @throws CatalogFormatException if the string has a wrong syntax
+     */
+    private void appendString(String line, int start) throws CatalogFormatException
+    {
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ')
+        {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ')
+        {
+            end--;
+        }
+
+        if (start == end || line.charAt(start) != '"')
+        {
+            throw this.createException("missing start-quote");
+        }
+        if (end - start < 2 || line.charAt(end - 1) != '"')
+        {
+            throw this.createException("missing end-quote");
+        }
+        start++;
+        end--;
+
+        if (end - start == 1 && line.charAt(start) == '\\')
+        {
+            throw this.createException("Unexpected token '\\'");
+        }
+
+        StringBuilder value = this.entryValue;
+        for (int i = start; i < end; i++)
+        {
+            char c = line.charAt(i);
+            if (c != '\\')
+            {
+                value.append(c);
+                continue;
+            }
+            if (++i == end)
+            {
+                // a backslash at the end of the string is ignored
+                break;
+            }
+
+            c = line.charAt(i);
+            switch (c)
+            {
+                case '\\':
+                    value.append('\\');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case '"':
+                    value.append('"');
+                    break;
+                default:
+                    throw this.createException("Invalid escape sequence: \\" + c);
+            }
+        }
+    }
+
+    /**
+     * This method completes the current entry and hands its value to the message
+     *
+     * @throws CatalogFormatException if the entry isn't allowed at this position
+     */
+    private void completeEntry() throws CatalogFormatException
+    {
+        if (this.entry == null)
+        {
+            return;
+        }
+
+        Entry completedEntry = this.entry;
+        String value = this.entryValue.toString();
+
+        this.entry = null;
+        this.entryValue.setLength(0);
+
+        if (this.previousEntry)
+        {
+            switch (completedEntry)
+            {
+                case MSGCTXT:
+                    this.handlePrelude(State.PREV_MSGCTXT);
+                    this.message.setPrevMsgctx(value);
+                    return;
+                case MSGID:
+                    this.handlePrelude(State.PREV_MSGID);
+                    this.message.setPrevMsgid(value);
+                    return;
+                case MSGID_PLURAL:
+                    this.handlePrelude(State.PREV_MSGID_PLURAL);
+                    this.message.setPrevMsgidPlural(value);
+                    return;
+                default:
+                    throw this.createException("translation does not allow previous entry according to PO schematic");
+            }
+        }
+
+        switch (completedEntry)
+        {
+            case DOMAIN:
+                if (this.obsoleteEntry)
+                {
+                    throw this.createException("An obsolete message can't have a domain entry.");
+                }
+                this.handlePrelude(State.DOMAIN);
+                this.message.setDomain(value);
+                break;
+            case MSGCTXT:
+                this.handleEntry(State.MSGCTXT);
+                this.message.setMsgctxt(value);
+                break;
+            case MSGID:
+                this.handleEntry(State.MSGID);
+                this.message.setMsgid(value);
+                break;
+            case MSGID_PLURAL:
+                this.handleEntry(State.MSGID_PLURAL);
+                this.message.setMsgidPlural(value);
+                break;
+            case MSGSTR:
+                this.handleEntry(State.MSGSTR);
+                this.message.setMsgstr(value);
+                break;
+            case MSGSTR_PLURAL:
+                this.handleEntry(State.MSGSTR_PLURAL);
+                this.message.addMsgstrPlural(value, this.pluralIndex);
+                break;
+            default:
+                throw new IllegalStateException("Unknown entry " + completedEntry);
+        }
+    }
+
+    /**
+     * This method hands a comment, a reference or a flag to the current message.
+     *
+     * @param type  the type of the comment
+     * @param value the value of the comment
+     *
+     * @throws CatalogFormatException if a comment isn't allowed at this position
+     */
+    private void handleComment(Entry type, String value) throws CatalogFormatException
+    {
+        if (this.state.isComplete())
+        {
+            this.completeMessage();
+        }
+        if (this.state != State.NONE)
+        {
+            throw this.createException("A comment isn't allowed between the entries of a message.");
+        }
+
+        switch (type)
+        {
+            case COMMENT:
+                this.message.addComment(value);
+                break;
+            case EXTRACTED_COMMENT:
+                this.message.addExtractedComment(value);
+                break;
+            case REFERENCE:
+                this.message.addSourceReference(value);
+                break;
+            case FLAG:
+                for (String flag : value.split(","))
+                {
+                    flag = flag.trim();
+                    if (!flag.isEmpty())
+                    {
+                        this.message.addFormat(flag);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown comment " + type);
+        }
+    }
+
+    /**
+     * This method handles the entries which can precede the msgctxt and msgid entries:
+     * The previous entries and the domain.
+     *
+     * @param newState the state which is reached with the entry
+     *
+     * @throws CatalogFormatException if the entry isn't allowed at this position
+     */
+    private void handlePrelude(State newState) throws CatalogFormatException
+    {
+        if (this.state.isComplete())
+        {
+            this.completeMessage();
+        }
+        if (this.state.ordinal() >= newState.ordinal())
+        {
+            throw this.createException("The entry " + newState.getName() + " isn't allowed at this position.");
+        }
+        this.state = newState;
+    }
+
+    /**
+     * This method handles the msgctxt, msgid, msgid_plural, msgstr and msgstr[n] entries.
+     *
+     * @param newState the state which is reached with the entry
+     *
+     * @throws CatalogFormatException if the entry isn't allowed at this position
+     */
+    private void handleEntry(State newState) throws CatalogFormatException
+    {
+        if (this.state.isComplete() && !(newState == State.MSGSTR_PLURAL && this.state == State.MSGSTR_PLURAL && this.obsoleteBlock == this.obsoleteEntry))
+        {
+            this.completeMessage();
+        }
+
+        boolean allowed;
+        switch (newState)
+        {
+            case MSGCTXT:
+                allowed = this.state.ordinal() <= State.DOMAIN.ordinal();
+                break;
+            case MSGID:
+                allowed = this.state.ordinal() <= State.DOMAIN.ordinal() || this.state == State.MSGCTXT && this.obsoleteBlock == this.obsoleteEntry;
+                break;
+            case MSGID_PLURAL:
+            case MSGSTR:
+                allowed = this.state == State.MSGID && this.obsoleteBlock == this.obsoleteEntry;
+                break;
+            case MSGSTR_PLURAL:
+                allowed = (this.state == State.MSGID_PLURAL || this.state == State.MSGSTR_PLURAL) && this.obsoleteBlock == this.obsoleteEntry;
+                break;
+            default:
+                allowed = false;
+        }
+        if (!allowed)
+        {
+            throw this.createException("The entry " + newState.getName() + " isn't allowed at this position.");
+        }
+
+        if (this.state.ordinal() <= State.DOMAIN.ordinal())
+        {
+            // the first entry decides whether the message is obsolete
+            this.obsoleteBlock = this.obsoleteEntry;
+        }
+        this.state = newState;
+    }
+
+    /**
+     * This method adds the current message to the message store and starts a new one
+     */
+    private void completeMessage()
+    {
+        if (this.obsoleteBlock)
+        {
+            this.message.markObsolete();
+        }
+        this.builder.addMessage(this.message);
+
+        this.message = new Message();
+        this.state = State.NONE;
+        this.obsoleteBlock = false;
+    }
+
+    /**
+     * This method removes the first character of the substring if it's a space
+     *
+     * @param line  the line
+     * @param start start index of the substring
+     *
+     * @return the substring without a leading space
+     */
+    private String stripFirstSpace(String line, int start)
+    {
+        if (start < line.length() && line.charAt(start) == ' ')
+        {
+            start++;
+        }
+        return line.substring(Math.min(start, line.length()));
+    }
+
+    /**
+     * This method creates an exception describing a syntax error of the current line
+     *
+     * @param message the error message
+     *
+     * @return the exception
+     */
+    private CatalogFormatException createException(String message)
+    {
+        return new CatalogFormatException("The catalog has a wrong syntax in line " + this.lineNumber + ": " + message);
+    }
+
+    /**
+     * The types of the lines of a catalog
+     */
+    private enum Entry
+    {
+        COMMENT,
+        EXTRACTED_COMMENT,
+        REFERENCE,
+        FLAG,
+        DOMAIN,
+        MSGCTXT,
+        MSGID,
+        MSGID_PLURAL,
+        MSGSTR,
+        MSGSTR_PLURAL
+    }
+
+    /**
+     * The states of a message while it's read. The order of the constants is the order of the entries within a message.
+     */
+    private enum State
+    {
+        NONE("comment"),
+        PREV_MSGCTXT("#| msgctxt"),
+        PREV_MSGID("#| msgid"),
+        PREV_MSGID_PLURAL("#| msgid_plural"),
+        DOMAIN(PoReader.DOMAIN),
+        MSGCTXT(PoReader.MSGCTXT),
+        MSGID(PoReader.MSGID),
+        MSGID_PLURAL(PoReader.MSGID_PLURAL),
+        MSGSTR(PoReader.MSGSTR),
+        MSGSTR_PLURAL("msgstr[n]");
+
+        private final String name;
+
+        State(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * This method returns the name of the entry which leads to the state
+         *
+         * @return name of the entry
+         */
+        public String getName()
+        {
+            return this.name;
+        }
+
+        /**
+         * This method returns whether the message is complete in this state
+         *
+         * @return whether the message is complete
+         */
+        public boolean isComplete()
+        {
+            return this == MSGSTR || this == MSGSTR_PLURAL;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format.gettext;
+
+import org.fedorahosted.tennera.jgettext.Message;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>
+ * This class writes gettext catalogs. Every message is written as soon as it's handed to the writer,
+ * so the catalog doesn't have to be created completely before writing it.
+ * </p>
+ *
+ * <p>
+ * The output is the same like the one of the <code>PoWriter</code> of jgettext with enabled tab encoding.
+ * </p>
+ */
+class PoStreamWriter implements Flushable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int COLUMN_WIDTH = 80;
+
+    private static final String MSGCTXT = "msgctxt ";
+    private static final String MSGID = "msgid ";
+    private static final String MSGID_PLURAL = "msgid_plural ";
+    private static final String MSGSTR = "msgstr ";
+    private static final String MSGSTR_PLURAL = "msgstr[";
+
+    private static final String PREVIOUS_PREFIX = "#| ";
+    private static final String OBSOLETE_PREFIX = "#~ ";
+
+    private final Writer writer;
+    private final StringBuilder currentLine;
+    private char[] lineBuffer;
+
+    private boolean wroteMessage;
+
+    /**
+     * The constructor creates a new writer
+     *
+     * @param outputStream the output stream of the catalog
+     * @param charset      the charset of the catalog
+     */
+    PoStreamWriter(OutputStream outputStream, Charset charset)
+    {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, charset), BUFFER_SIZE);
+        this.currentLine = new StringBuilder(100);
+        this.lineBuffer = new char[100];
+    }
+
+    /**
+     * This method writes the header of the catalog. It has to be written before the other messages.
+     *
+     * @param header the header message
+     *
+     * @throws IOException if the header couldn't be written
+     */
+    public void writeHeader(Message header) throws IOException
+    {
+        this.writeMessage(header);
+        this.wroteMessage = true;
+    }
+
+    /**
+     * This method writes a message of the catalog. Header messages are ignored.
+     *
+     * @param message the message
+     *
+     * @throws IOException if the message couldn't be written
+     */
+    public void write(Message message) throws IOException
+    {
+        if (message.isHeader())
+        {
+            return;
+        }
+
+        if (this.wroteMessage)
+        {
+            this.writer.write('\n');
+        }
+        this.writeMessage(message);
+        this.wroteMessage = true;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        this.writer.flush();
+    }
+
+    /**
+     * This method writes the comments, flags and entries of the specified message
+     *
+     * @param message the message
+     *
+     * @throws IOException if the message couldn't be written
+     */
+    private void writeMessage(Message message) throws IOException
+    {
+        for (String comment : message.getComments())
+        {
+            this.writeComment("# ", comment);
+        }
+        for (String extractedComment : message.getExtractedComments())
+        {
+            this.writeComment("#. ", extractedComment);
+        }
+        for (String sourceReference : message.getSourceReferences())
+        {
+            this.writeComment("#: ", sourceReference);
+        }
+
+        Collection<String> formats = message.getFormats();
+        if (!formats.isEmpty())
+        {
+            this.writer.write('#');
+            for (String format : formats)
+            {
+                this.writer.write(", ");
+                this.writer.write(format);
+            }
+            this.writer.write('\n');
+        }
+
+        if (message.getPrevMsgctx() != null)
+        {
+            this.writeEntry(PREVIOUS_PREFIX, MSGCTXT, message.getPrevMsgctx());
+        }
+        if (message.getPrevMsgid() != null)
+        {
+            this.writeEntry(PREVIOUS_PREFIX, MSGID, message.getPrevMsgid());
+        }
+        if (message.getPrevMsgidPlural() != null)
+        {
+            this.writeEntry(PREVIOUS_PREFIX, MSGID_PLURAL, message.getPrevMsgidPlural());
+        }
+
+        String prefix = message.isObsolete() ? OBSOLETE_PREFIX : "";
+        if (message.getMsgctxt() != null)
+        {
+            this.writeEntry(prefix, MSGCTXT, message.getMsgctxt());
+        }
+        this.writeEntry(prefix, MSGID, message.getMsgid());
+        if (message.isPlural())
+        {
+            this.writeEntry(prefix, MSGID_PLURAL, message.getMsgidPlural());
+            this.writePluralTranslations(prefix, message.getMsgstrPlural());
+        }
+        else
+        {
+            this.writeEntry(prefix, MSGSTR, message.getMsgstr() == null ? "" : message.getMsgstr());
+        }
+    }
+
+    /**
+     * This method writes a comment. Every line of the comment gets its own comment line.
+     * Empty lines at the end of a multiline comment are left out.
+     *
+     * @param prefix  the prefix of the comment lines
+     * @param comment the comment
+     *
+     * @throws IOException if the comment couldn't be written
+     */
+    private void writeComment(String prefix, String comment) throws IOException
+    {
+        int end = comment.length();
+        if (comment.indexOf('\n') >= 0)
+        {
+            while (end > 0 && comment.charAt(end - 1) == '\n')
+            {
+                end--;
+            }
+            if (end == 0)
+            {
+                return;
+            }
+        }
+
+        int start = 0;
+        while (true)
+        {
+            int lineEnd = comment.indexOf('\n', start);
+            if (lineEnd < 0 || lineEnd > end)
+            {
+                lineEnd = end;
+            }
+
+            this.writer.write(prefix);
+            this.writer.write(comment, start, lineEnd - start);
+            this.writer.write('\n');
+
+            if (lineEnd == end)
+            {
+                return;
+            }
+            start = lineEnd + 1;
+        }
+    }
+
+    /**
+     * This method writes the msgstr[n] entries of a plural message. An empty msgstr[0] entry is written
+     * if the message doesn't have any translation.
+     *
+     * @param prefix       the prefix of the entries
+     * @param translations the plural translations
+     *
+     * @throws IOException if the entries couldn't be written
+     */
+    private void writePluralTranslations(String prefix, List<String> translations) throws IOException
+    {
+        if (translations.isEmpty())
+        {
+            this.writePluralTranslation(prefix, 0, "");
+            return;
+        }
+
+        for (int i = 0; i < translations.size(); i++)
+        {
+            this.writePluralTranslation(prefix, i, translations.get(i));
+        }
+    }
+
+    /**
+     * This method writes a msgstr[n] entry
+     *
+     * @param prefix      the prefix of the entry
+     * @param index       the plural index
+     * @param translation the translation
+     *
+     * @throws IOException if the entry couldn't be written
+     */
+    private void writePluralTranslation(String prefix, int index, String translation) throws IOException
+    {
+        String indexString = Integer.toString(index);
+
+        this.writer.write(prefix);
+        this.writer.write(MSGSTR_PLURAL);
+        this.writer.write(indexString);
+        this.writer.write("] ");
+        this.writeString(prefix, translation, MSGSTR_PLURAL.length() + indexString.length() + 2);
+    }
+
+    /**
+     * This method writes an entry like msgid or msgstr
+     *
+     * @param prefix  the prefix of the entry
+     * @param keyword the keyword of the entry including the following space
+     * @param value   the value of the entry
+     *
+     * @throws IOException if the entry couldn't be written
+     */
+    private void writeEntry(String prefix, String keyword, String value) throws IOException
+    {
+        this.writer.write(prefix);
+        this.writer.write(keyword);
+        this.writeString(prefix, value, keyword.length());
+    }
+
+    /**
+     * This method writes the quoted and escaped value of an entry. Long values and values containing line breaks
+     * are wrapped into multiple lines.
+     *
+     * @param prefix        the prefix of the entry
+     * @param value         the value
+     * @param keywordLength the length of the keyword in front of the value on the first line
+     *
+     * @throws IOException if the value couldn't be written
+     */
+    private void writeString(String prefix, String value, int keywordLength) throws IOException
+    {
+        boolean firstLine = true;
+        boolean prefixed = !prefix.isEmpty();
+
+        this.writer.write('"');
+        int firstLineEnd = value.indexOf('\n');
+        if (firstLineEnd != -1 && firstLineEnd > COLUMN_WIDTH - keywordLength - 4 || value.length() > COLUMN_WIDTH - keywordLength - 4)
+        {
+            // the value starts on the next line
+            firstLine = false;
+            this.writer.write("\"\n");
+            if (!prefixed)
+            {
+                this.writer.write('"');
+            }
+        }
+
+        StringBuilder line = this.currentLine;
+        line.setLength(0);
+        int lastSpacePos = 0;
+
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '\n':
+                    line.append("\\n");
+                    if (i != value.length() - 1)
+                    {
+                        firstLine = this.writeLine(prefix, firstLine, line.length());
+                        line.setLength(0);
+                        lastSpacePos = 0;
+                    }
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case ' ':
+                case '-':
+                case '.':
+                case '/':
+                case ':':
+                case '=':
+                    lastSpacePos = line.length();
+                    line.append(c);
+                    break;
+                default:
+                    line.append(c);
+            }
+
+            if (line.length() > COLUMN_WIDTH - 4 && lastSpacePos != 0)
+            {
+                firstLine = this.writeLine(prefix, firstLine, lastSpacePos + 1);
+                line.delete(0, lastSpacePos + 1);
+                lastSpacePos = 0;
+            }
+        }
+
+        if (prefixed && !firstLine)
+        {
+            this.writer.write(prefix);
+            this.writer.write('"');
+        }
+        this.writeLineContent(line.length());
+        this.writer.write("\"\n");
+    }
+
+    /**
+     * This method writes the start of the current line as a wrapped line of a value.
+     *
+     * @param prefix    the prefix of the entry
+     * @param firstLine whether it's the first line of the value which starts behind the keyword
+     * @param length    the number of characters of the current line which shall be written
+     *
+     * @return whether the next line is the first line, which is always false
+     *
+     * @throws IOException if the line couldn't be written
+     */
+    private boolean writeLine(String prefix, boolean firstLine, int length) throws IOException
+    {
+        if (prefix.isEmpty())
+        {
+            this.writeLineContent(length);
+            this.writer.write("\"\n\"");
+            return firstLine;
+        }
+
+        if (!firstLine)
+        {
+            this.writer.write(prefix);
+            this.writer.write('"');
+        }
+        this.writeLineContent(length);
+        this.writer.write("\"\n");
+        return false;
+    }
+
+    /**
+     * This method writes the first characters of the current line
+     *
+     * @param length the number of characters
+     *
+     * @throws IOException if the characters couldn't be written
+     */
+    private void writeLineContent(int length) throws IOException
+    {
+        if (this.lineBuffer.length < length)
+        {
+            this.lineBuffer = new char[Math.max(length, this.lineBuffer.length * 2)];
+        }
+        this.currentLine.getChars(0, length, this.lineBuffer, 0);
+        this.writer.write(this.lineBuffer, 0, length);
+    }
+}
@@ -51,6 +51,9 @@ class TranslatableGettextMessage extends GettextMessage
     private final boolean obsolete;
     private final Boolean allowWrap;
 
+    private List<String> extractedComments;
+    private int extractedCommentsModificationCount;
+
     /**
      * The constructor creates a new instance of this class
      *
@@ -78,6 +81,25 @@ class TranslatableGettextMessage extends GettextMessage
         this.allowWrap = message.getAllowWrap();
     }
 
+    /**
+     * This method returns the extracted comments which are created from the source references of this message.
+     * They're created once and stored until a source reference is added.
+     *
+     * @return extracted comments
+     *
+     * @see GettextUtils#createExtractedComments(org.cubeengine.pericopist.message.TranslatableMessage)
+     */
+    private synchronized List<String> getExtractedComments()
+    {
+        int modificationCount = this.getModificationCount();
+        if (this.extractedComments == null || this.extractedCommentsModificationCount != modificationCount)
+        {
+            this.extractedComments = GettextUtils.createExtractedComments(this);
+            this.extractedCommentsModificationCount = modificationCount;
+        }
+        return this.extractedComments;
+    }
+
     /**
      * This method returns the domain of this message
      *
@@ -238,7 +260,7 @@ class TranslatableGettextMessage extends GettextMessage
         {
             message.addComment(comment);
         }
-        for (String extractedComment : GettextUtils.createExtractedComments(this))
+        for (String extractedComment : this.getExtractedComments())
         {
             message.addExtractedComment(extractedComment);
         }
@@ -287,7 +309,7 @@ class TranslatableGettextMessage extends GettextMessage
         {
             extractedCommentsGettext.append(extractedComment);
         }
-        for (String extractedComment : GettextUtils.createExtractedComments(this))
+        for (String extractedComment : this.getExtractedComments())
         {
             extractedCommentsSource.append(extractedComment);
         }
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.message;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The ConcurrentMessageStore class is a {@link org.cubeengine.pericopist.message.MessageStore} which can be
+ * used by multiple threads at the same time. The messages are stored in a concurrent map. The source references
+ * can be added by {@link #addSourceReference(TranslatableMessage, java.io.File, int, TranslatableExpression, java.util.List)},
+ * because {@link TranslatableMessage#addSourceReference(java.io.File, int, TranslatableExpression, java.util.List)} is synchronized.
+ * <p/>
+ * The sorted view of the messages is a snapshot which is created with every call of {@link #getMessages()}.
+ * It shall be requested after the threads finished their work.
+ */
+public class ConcurrentMessageStore extends MessageStore
+{
+    private final ConcurrentMap<MessageKey, TranslatableMessage> messages;
+
+    /**
+     * The constructor creates a new concurrent message store
+     */
+    public ConcurrentMessageStore()
+    {
+        this(new ConcurrentHashMap<MessageKey, TranslatableMessage>());
+    }
+
+    private ConcurrentMessageStore(ConcurrentMap<MessageKey, TranslatableMessage> messages)
+    {
+        super(messages);
+        this.messages = messages;
+    }
+
+    @Override
+    public void addMessage(TranslatableMessage message)
+    {
+        if (this.messages.putIfAbsent(message.getKey(), message) != null)
+        {
+            throw new IllegalArgumentException("The specified message exists already and can't be added to the message store.");
+        }
+        message.setSourceReferenceTable(this.getSourceReferenceTable());
+    }
+
+    @Override
+    public boolean removeMessage(TranslatableMessage message)
+    {
+        return this.messages.remove(message.getKey(), message);
+    }
+
+    @Override
+    public TranslatableMessage getOrCreateMessage(MessageKey key)
+    {
+        TranslatableMessage message = this.messages.get(key);
+        if (message == null)
+        {
+            TranslatableMessage newMessage = new TranslatableMessage(key);
+            newMessage.setSourceReferenceTable(this.getSourceReferenceTable());
+            message = this.messages.putIfAbsent(key, newMessage);
+            if (message == null)
+            {
+                message = newMessage;
+            }
+        }
+        return message;
+    }
+
+    /**
+     * This method returns a sorted snapshot containing every {@link org.cubeengine.pericopist.message.TranslatableMessage} instance.
+     * The snapshot can't be modified.
+     *
+     * @return Set containing every message
+     */
+    @Override
+    public Set<TranslatableMessage> getMessages()
+    {
+        return Collections.unmodifiableSet(new TreeSet<>(this.messages.values()));
+    }
+
+    @Override
+    public int size()
+    {
+        return this.messages.size();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.message;
+
+/**
+ * The MessageKey class identifies a {@link org.cubeengine.pericopist.message.TranslatableMessage} by its context,
+ * its singular and its plural. The instances are immutable and can be used as keys of hash based collections.
+ *
+ * @see org.cubeengine.pericopist.message.MessageStore
+ */
+public final class MessageKey
+{
+    private final String context;
+    private final String singular;
+    private final String plural;
+    private final int hashCode;
+
+    /**
+     * The constructor creates a new key
+     *
+     * @param context  context of the message or null
+     * @param singular singular of the message
+     * @param plural   plural of the message or null
+     */
+    public MessageKey(String context, String singular, String plural)
+    {
+        this.context = context;
+        this.singular = singular;
+        this.plural = plural;
+
+        int result = singular != null ? singular.hashCode() : 0;
+        result = 31 * result + (context != null ? context.hashCode() : 0);
+        result = 31 * result + (plural != null ? plural.hashCode() : 0);
+        this.hashCode = result;
+    }
+
+    /**
+     * This method returns the context of the message
+     *
+     * @return context or null
+     */
+    public String getContext()
+    {
+        return this.context;
+    }
+
+    /**
+     * This method returns the singular of the message
+     *
+     * @return singular
+     */
+    public String getSingular()
+    {
+        return this.singular;
+    }
+
+    /**
+     * This method returns the plural of the message
+     *
+     * @return plural or null
+     */
+    public String getPlural()
+    {
+        return this.plural;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || this.getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        MessageKey that = (MessageKey) o;
+
+        if (this.hashCode != that.hashCode)
+        {
+            return false;
+        }
+        if (this.singular == null ? that.singular != null : !this.singular.equals(that.singular))
+        {
+            return false;
+        }
+        if (this.context == null ? that.context != null : !this.context.equals(that.context))
+        {
+            return false;
+        }
+        return this.plural == null ? that.plural == null : this.plural.equals(that.plural);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MessageKey{context=" + this.context + ", singular=" + this.singular + ", plural=" + this.plural + "}";
+    }
+}
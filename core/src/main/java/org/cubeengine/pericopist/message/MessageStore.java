@@ -22,7 +22,12 @@
  */
 package org.cubeengine.pericopist.message;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -38,6 +43,8 @@ import java.util.TreeSet;
 public class MessageStore implements Iterable<TranslatableMessage>
 {
     private final Set<TranslatableMessage> messages;
+    private final Map<MessageKey, TranslatableMessage> messageIndex;
+    private final SourceReferenceTable sourceReferenceTable;
 
     /**
      * The constructor creates a new message store
@@ -45,6 +52,22 @@ public class MessageStore implements Iterable<TranslatableMessage>
     public MessageStore()
     {
         this.messages = new TreeSet<>();
+        this.messageIndex = new HashMap<>();
+        this.sourceReferenceTable = new SourceReferenceTable();
+    }
+
+    /**
+     * The constructor creates a new message store which stores its messages just within the specified index.
+     * Subclasses using this constructor have to override {@link #addMessage(TranslatableMessage)},
+     * {@link #removeMessage(TranslatableMessage)}, {@link #getMessages()} and {@link #size()}.
+     *
+     * @param messageIndex map storing the messages by their keys
+     */
+    protected MessageStore(Map<MessageKey, TranslatableMessage> messageIndex)
+    {
+        this.messages = null;
+        this.messageIndex = messageIndex;
+        this.sourceReferenceTable = new SourceReferenceTable();
     }
 
     /**
@@ -56,12 +79,35 @@ public class MessageStore implements Iterable<TranslatableMessage>
      */
     public void addMessage(TranslatableMessage message)
     {
-        if (this.messages.contains(message))
+        MessageKey key = message.getKey();
+        if (this.messageIndex.containsKey(key))
         {
             throw new IllegalArgumentException("The specified message exists already and can't be added to the message store.");
         }
 
+        this.messageIndex.put(key, message);
         this.messages.add(message);
+        message.setSourceReferenceTable(this.sourceReferenceTable);
+    }
+
+    /**
+     * This method removes a {@link org.cubeengine.pericopist.message.TranslatableMessage} from the message store
+     *
+     * @param message message which shall be removed
+     *
+     * @return whether the message was stored by this message store
+     */
+    public boolean removeMessage(TranslatableMessage message)
+    {
+        MessageKey key = message.getKey();
+        if (this.messageIndex.get(key) != message)
+        {
+            return false;
+        }
+
+        this.messageIndex.remove(key);
+        this.messages.remove(message);
+        return true;
     }
 
     /**
@@ -75,49 +121,121 @@ public class MessageStore implements Iterable<TranslatableMessage>
      */
     public TranslatableMessage getMessage(String context, String singular, String plural)
     {
-        for (TranslatableMessage message : this.messages)
+        return this.getMessage(new MessageKey(context, singular, plural));
+    }
+
+    /**
+     * This method returns the {@link org.cubeengine.pericopist.message.TranslatableMessage} with the specified key.
+     *
+     * @param key key of the message
+     *
+     * @return the {@link org.cubeengine.pericopist.message.TranslatableMessage} which has the specified key or null
+     */
+    public TranslatableMessage getMessage(MessageKey key)
+    {
+        return this.messageIndex.get(key);
+    }
+
+    /**
+     * This method returns the {@link org.cubeengine.pericopist.message.TranslatableMessage} with the specified data.
+     * It creates and adds a new message if the message store doesn't contain one.
+     *
+     * @param context  context of the message
+     * @param singular singular of the message
+     * @param plural   plural of the message
+     *
+     * @return the {@link org.cubeengine.pericopist.message.TranslatableMessage} which has the specified data
+     */
+    public TranslatableMessage getOrCreateMessage(String context, String singular, String plural)
+    {
+        return this.getOrCreateMessage(new MessageKey(context, singular, plural));
+    }
+
+    /**
+     * This method returns the {@link org.cubeengine.pericopist.message.TranslatableMessage} with the specified key.
+     * It creates and adds a new message if the message store doesn't contain one.
+     *
+     * @param key key of the message
+     *
+     * @return the {@link org.cubeengine.pericopist.message.TranslatableMessage} which has the specified key
+     */
+    public TranslatableMessage getOrCreateMessage(MessageKey key)
+    {
+        TranslatableMessage message = this.getMessage(key);
+        if (message == null)
         {
-            if (message.hasContext() && context == null)
-            {
-                continue;
-            }
-            else if (!message.hasContext() && context != null)
-            {
-                continue;
-            }
-            else if (message.hasContext() && !message.getContext().equals(context))
-            {
-                continue;
-            }
+            message = new TranslatableMessage(key);
+            this.addMessage(message);
+        }
+        return message;
+    }
 
-            if (!message.getSingular().equals(singular))
-            {
-                continue;
-            }
+    /**
+     * This method adds a {@link org.cubeengine.pericopist.message.SourceReference} to a message of this message store.
+     * Extractors shall use this method instead of {@link TranslatableMessage#addSourceReference(SourceReference)},
+     * because subclasses may have to synchronize the access.
+     *
+     * @param message         the message
+     * @param sourceReference the source reference
+     */
+    public void addSourceReference(TranslatableMessage message, SourceReference sourceReference)
+    {
+        message.addSourceReference(sourceReference);
+    }
 
-            if (message.hasPlural())
-            {
-                if (message.getPlural().equals(plural))
-                {
-                    return message;
-                }
-            }
-            else if (plural == null)
+    /**
+     * This method adds a source reference to a message of this message store without creating a
+     * {@link org.cubeengine.pericopist.message.SourceReference} instance. Extractors shall use this method
+     * for every occurrence of a message.
+     *
+     * @param message           the message
+     * @param file              the file where the message was extracted
+     * @param line              the line of the file
+     * @param expression        the {@link TranslatableExpression} instance which extracted the message
+     * @param extractedComments the extracted comments of the source reference; the list is copied unless it's interned already
+     */
+    public void addSourceReference(TranslatableMessage message, File file, int line, TranslatableExpression expression, List<String> extractedComments)
+    {
+        message.addSourceReference(file, line, expression, extractedComments);
+    }
+
+    /**
+     * This method adds the messages of the specified message store and their source references to this message store.
+     * The specified message store isn't changed.
+     *
+     * @param messageStore message store whose messages shall be added
+     */
+    public void addMessages(MessageStore messageStore)
+    {
+        for (TranslatableMessage sourceMessage : messageStore)
+        {
+            TranslatableMessage message = this.getOrCreateMessage(sourceMessage.getKey());
+            for (SourceReference sourceReference : sourceMessage.getSourceReferences())
             {
-                return message;
+                this.addSourceReference(message, sourceReference);
             }
         }
-        return null;
     }
 
     /**
-     * This method returns a Set containing every {@link org.cubeengine.pericopist.message.TranslatableMessage} instance
+     * This method returns the table which interns the files of the source references of the stored messages.
+     *
+     * @return the table of the message store
+     */
+    SourceReferenceTable getSourceReferenceTable()
+    {
+        return this.sourceReferenceTable;
+    }
+
+    /**
+     * This method returns a Set containing every {@link org.cubeengine.pericopist.message.TranslatableMessage} instance.
+     * The set is sorted and can't be modified. Messages have to be added with {@link #addMessage(TranslatableMessage)}.
      *
      * @return Set containing every message
      */
     public Set<TranslatableMessage> getMessages()
     {
-        return this.messages;
+        return Collections.unmodifiableSet(this.messages);
     }
 
     /**
@@ -127,7 +245,7 @@ public class MessageStore implements Iterable<TranslatableMessage>
      */
     public int size()
     {
-        return this.getMessages().size();
+        return this.messages.size();
     }
 
     @Override
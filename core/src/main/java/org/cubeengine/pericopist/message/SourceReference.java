@@ -49,12 +49,26 @@ public class SourceReference implements Comparable<SourceReference>
      * @param expression the {@link TranslatableExpression} instance which extracted the message
      */
     public SourceReference(File file, int line, TranslatableExpression expression)
+    {
+        this(file, line, expression, new ArrayList<String>());
+    }
+
+    /**
+     * The constructor creates a new source reference with the specified list of extracted comments.
+     * The list isn't copied.
+     *
+     * @param file              the file where the message was extracted.
+     * @param line              the line of the file
+     * @param expression        the {@link TranslatableExpression} instance which extracted the message
+     * @param extractedComments the extracted comments
+     */
+    SourceReference(File file, int line, TranslatableExpression expression, List<String> extractedComments)
     {
         this.file = file;
         this.line = line;
         this.expression = expression;
 
-        this.extractedComments = new ArrayList<>();
+        this.extractedComments = extractedComments;
     }
 
     /**
@@ -103,6 +117,8 @@ public class SourceReference implements Comparable<SourceReference>
      * That are hints for the translators, which shall help to create the translations easier.
      *
      * @param comment extracted comment
+     *
+     * @throws UnsupportedOperationException if the source reference was returned by {@link TranslatableMessage#getSourceReferences()}
      */
     public void addExtractedComment(String comment)
     {
@@ -147,7 +163,20 @@ public class SourceReference implements Comparable<SourceReference>
      */
     private int compareExpressions(TranslatableExpression o)
     {
-        TranslatableExpression t = this.getExpression();
+        return compareExpressions(this.getExpression(), o);
+    }
+
+    /**
+     * This method compares two {@link TranslatableExpression} instances by their fully qualified names.
+     * Null is smaller than every expression.
+     *
+     * @param t the first {@link TranslatableExpression}
+     * @param o the second {@link TranslatableExpression}
+     *
+     * @return and integer representing the result of the comparison
+     */
+    static int compareExpressions(TranslatableExpression t, TranslatableExpression o)
+    {
         if (t != null)
         {
             if (o != null)
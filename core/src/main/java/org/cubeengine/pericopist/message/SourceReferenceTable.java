@@ -0,0 +1,190 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.message;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class interns the files and the extracted comments of the {@link org.cubeengine.pericopist.message.SourceReference} instances.
+ * Every file gets an id, which is stored by the {@link org.cubeengine.pericopist.message.TranslatableMessage}
+ * instead of the file itself. The lower case path, which is used to sort the source references, is created once per file.
+ * Equal lists of extracted comments are stored once as an unmodifiable list.
+ * <p/>
+ * Every {@link org.cubeengine.pericopist.message.MessageStore} has its own table which is shared by its messages,
+ * thus the table lives as long as the message store. A message which isn't stored by a message store creates its own table.
+ * The table can be used by multiple threads.
+ */
+final class SourceReferenceTable
+{
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<File, Integer> ids;
+    private volatile SourceFile[] files;
+    private int fileCount;
+    private final Map<List<String>, List<String>> extractedComments;
+
+    /**
+     * The constructor creates a new empty table
+     */
+    SourceReferenceTable()
+    {
+        this.ids = new ConcurrentHashMap<>();
+        this.files = new SourceFile[INITIAL_CAPACITY];
+        this.fileCount = 0;
+        this.extractedComments = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * This method returns the id of the specified file. A new id is created if the file doesn't have one.
+     *
+     * @param file the file
+     *
+     * @return the id of the file
+     */
+    int getId(File file)
+    {
+        Integer id = this.ids.get(file);
+        if (id != null)
+        {
+            return id;
+        }
+
+        synchronized (this)
+        {
+            id = this.ids.get(file);
+            if (id != null)
+            {
+                return id;
+            }
+
+            SourceFile[] currentFiles = this.files;
+            if (this.fileCount == currentFiles.length)
+            {
+                currentFiles = Arrays.copyOf(currentFiles, currentFiles.length * 2);
+            }
+            currentFiles[this.fileCount] = new SourceFile(file);
+            this.files = currentFiles;
+
+            id = this.fileCount++;
+            this.ids.put(file, id);
+            return id;
+        }
+    }
+
+    /**
+     * This method returns the file with the specified id
+     *
+     * @param id the id of the file
+     *
+     * @return the file
+     */
+    File getFile(int id)
+    {
+        return this.files[id].file;
+    }
+
+    /**
+     * This method compares the paths of the files with the specified ids. The comparison ignores the case of the paths.
+     *
+     * @param id      the id of the first file
+     * @param otherId the id of the second file
+     *
+     * @return an integer representing the result of the comparison
+     */
+    int compare(int id, int otherId)
+    {
+        if (id == otherId)
+        {
+            return 0;
+        }
+
+        SourceFile[] currentFiles = this.files;
+        return currentFiles[id].lowerCasePath.compareTo(currentFiles[otherId].lowerCasePath);
+    }
+
+    /**
+     * This method returns the interned unmodifiable list which is equal to the specified list of extracted comments.
+     *
+     * @param extractedComments the extracted comments
+     *
+     * @return the interned list
+     */
+    List<String> internExtractedComments(List<String> extractedComments)
+    {
+        if (extractedComments.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        List<String> interned = this.extractedComments.get(extractedComments);
+        if (interned == null)
+        {
+            List<String> copy = Collections.unmodifiableList(new ArrayList<>(extractedComments));
+            interned = this.extractedComments.putIfAbsent(copy, copy);
+            if (interned == null)
+            {
+                interned = copy;
+            }
+        }
+        return interned;
+    }
+
+    /**
+     * This method returns the lower case path of the specified file like it's used by the table.
+     *
+     * @param file the file
+     *
+     * @return the lower case path of the file
+     */
+    private static String toLowerCasePath(File file)
+    {
+        return file.getPath().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * This class stores a file and its lower case path
+     */
+    private static class SourceFile
+    {
+        private final File file;
+        private final String lowerCasePath;
+
+        /**
+         * The constructor creates a new entry of the table
+         *
+         * @param file the file
+         */
+        private SourceFile(File file)
+        {
+            this.file = file;
+            this.lowerCasePath = toLowerCasePath(file);
+        }
+    }
+}
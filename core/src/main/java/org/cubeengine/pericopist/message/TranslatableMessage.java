@@ -22,7 +22,11 @@
  */
 package org.cubeengine.pericopist.message;
 
-import java.util.Set;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
 import java.util.TreeSet;
 
 /**
@@ -41,11 +45,18 @@ import java.util.TreeSet;
  */
 public class TranslatableMessage implements Comparable<TranslatableMessage>
 {
-    private final String context;
-    private final String singular;
-    private final String plural;
+    private static final int INITIAL_REFERENCE_CAPACITY = 2;
 
-    private final Set<SourceReference> sourceReferences;
+    private final MessageKey key;
+
+    private int referenceCount;
+    private int[] referenceFiles;
+    private int[] referenceLines;
+    private TranslatableExpression[] referenceExpressions;
+    private List<String>[] referenceComments;
+    private int modificationCount;
+    private SortedSet<SourceReference> sourceReferences;
+    private SourceReferenceTable sourceReferenceTable;
 
     /**
      * The constructor creates a new translatable message
@@ -56,11 +67,19 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
      */
     public TranslatableMessage(String context, String singular, String plural)
     {
-        this.context = context;
-        this.singular = singular;
-        this.plural = plural;
+        this(new MessageKey(context, singular, plural));
+    }
+
+    /**
+     * The constructor creates a new translatable message
+     *
+     * @param key key of the message containing its context, singular and plural
+     */
+    public TranslatableMessage(MessageKey key)
+    {
+        this.key = key;
 
-        this.sourceReferences = new TreeSet<>();
+        this.referenceCount = 0;
     }
 
     /**
@@ -71,7 +90,7 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
      */
     public boolean hasContext()
     {
-        return this.context != null;
+        return this.key.getContext() != null;
     }
 
     /**
@@ -83,7 +102,7 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
      */
     public String getContext()
     {
-        return this.context;
+        return this.key.getContext();
     }
 
     /**
@@ -93,7 +112,7 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
      */
     public String getSingular()
     {
-        return this.singular;
+        return this.key.getSingular();
     }
 
     /**
@@ -103,7 +122,7 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
      */
     public boolean hasPlural()
     {
-        return this.plural != null;
+        return this.key.getPlural() != null;
     }
 
     /**
@@ -113,30 +132,219 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
      */
     public String getPlural()
     {
-        return this.plural;
+        return this.key.getPlural();
     }
 
     /**
-     * This method adds a new source reference to the message
+     * This method returns the key of the message. It identifies the message by its context, singular and plural
+     * and doesn't change when source references are added.
+     *
+     * @return key of the message
+     */
+    public MessageKey getKey()
+    {
+        return this.key;
+    }
+
+    /**
+     * This method adds a new source reference to the message. A source reference which is equal to a stored one
+     * isn't added. The extracted comments of the source reference are copied, thus comments which are added
+     * to the source reference afterwards aren't stored.
      *
      * @param sourceReference SourceReference instance which describes how the message was extracted
      */
     public void addSourceReference(SourceReference sourceReference)
     {
-        this.sourceReferences.add(sourceReference);
+        this.addSourceReference(sourceReference.getFile(), sourceReference.getLine(), sourceReference.getExpression(), sourceReference.getExtractedComments());
     }
 
     /**
-     * This method returns a Set containing every SourceReference instances for this message.
+     * This method adds a new source reference to the message without creating a
+     * {@link org.cubeengine.pericopist.message.SourceReference} instance.
+     * <p/>
+     * The source references aren't stored as objects. The message stores the file id, the line, the expression and
+     * the interned list of extracted comments of a reference within arrays, which are sorted while the references are added.
+     * A source reference which is equal to a stored one isn't added.
+     *
+     * @param file              the file where the message was extracted
+     * @param line              the line of the file
+     * @param expression        the {@link TranslatableExpression} instance which extracted the message
+     * @param extractedComments the extracted comments of the source reference
+     */
+    public synchronized void addSourceReference(File file, int line, TranslatableExpression expression, List<String> extractedComments)
+    {
+        if (this.sourceReferenceTable == null)
+        {
+            this.sourceReferenceTable = new SourceReferenceTable();
+        }
+
+        int fileId = this.sourceReferenceTable.getId(file);
+        int index = this.searchSourceReference(fileId, line, expression);
+        if (index >= 0)
+        {
+            return;
+        }
+        index = -index - 1;
+
+        this.ensureReferenceCapacity();
+        int moved = this.referenceCount - index;
+        System.arraycopy(this.referenceFiles, index, this.referenceFiles, index + 1, moved);
+        System.arraycopy(this.referenceLines, index, this.referenceLines, index + 1, moved);
+        System.arraycopy(this.referenceExpressions, index, this.referenceExpressions, index + 1, moved);
+        System.arraycopy(this.referenceComments, index, this.referenceComments, index + 1, moved);
+
+        this.referenceFiles[index] = fileId;
+        this.referenceLines[index] = line;
+        this.referenceExpressions[index] = expression;
+        this.referenceComments[index] = this.sourceReferenceTable.internExtractedComments(extractedComments);
+        this.referenceCount++;
+
+        this.modificationCount++;
+        this.sourceReferences = null;
+    }
+
+    /**
+     * This method returns an unmodifiable SortedSet containing every SourceReference instances for this message.
      * A source reference describes how the message was extracted.
+     * <p/>
+     * The set is a snapshot of the source references of the message, which is created once after the source
+     * references were changed. Neither the set nor the lists of extracted comments of its elements can be modified.
      *
-     * @return Set containing every source reference of the message
+     * @return SortedSet containing every source reference of the message
      */
-    public Set<SourceReference> getSourceReferences()
+    public synchronized SortedSet<SourceReference> getSourceReferences()
     {
+        if (this.sourceReferences == null)
+        {
+            SortedSet<SourceReference> sourceReferences = new TreeSet<>();
+            for (int i = 0; i < this.referenceCount; i++)
+            {
+                sourceReferences.add(new SourceReference(this.sourceReferenceTable.getFile(this.referenceFiles[i]), this.referenceLines[i], this.referenceExpressions[i], this.referenceComments[i]));
+            }
+            this.sourceReferences = Collections.unmodifiableSortedSet(sourceReferences);
+        }
         return this.sourceReferences;
     }
 
+    /**
+     * This method returns the modification count of the source references. It changes whenever a source reference
+     * is added.
+     *
+     * @return modification count of the source references
+     */
+    protected synchronized int getModificationCount()
+    {
+        return this.modificationCount;
+    }
+
+    /**
+     * This method specifies the table which interns the files and the extracted comments of the source references.
+     * The files and the extracted comments of the stored source references are interned by the new table.
+     *
+     * @param sourceReferenceTable the table
+     */
+    synchronized void setSourceReferenceTable(SourceReferenceTable sourceReferenceTable)
+    {
+        if (this.sourceReferenceTable == sourceReferenceTable)
+        {
+            return;
+        }
+
+        for (int i = 0; i < this.referenceCount; i++)
+        {
+            this.referenceFiles[i] = sourceReferenceTable.getId(this.sourceReferenceTable.getFile(this.referenceFiles[i]));
+            this.referenceComments[i] = sourceReferenceTable.internExtractedComments(this.referenceComments[i]);
+        }
+        this.sourceReferenceTable = sourceReferenceTable;
+    }
+
+    /**
+     * This method makes sure that the arrays can store another source reference.
+     */
+    @SuppressWarnings("unchecked")
+    private void ensureReferenceCapacity()
+    {
+        if (this.referenceFiles == null)
+        {
+            this.referenceFiles = new int[INITIAL_REFERENCE_CAPACITY];
+            this.referenceLines = new int[INITIAL_REFERENCE_CAPACITY];
+            this.referenceExpressions = new TranslatableExpression[INITIAL_REFERENCE_CAPACITY];
+            this.referenceComments = new List[INITIAL_REFERENCE_CAPACITY];
+        }
+        else if (this.referenceCount == this.referenceFiles.length)
+        {
+            int capacity = this.referenceCount * 2;
+            this.referenceFiles = Arrays.copyOf(this.referenceFiles, capacity);
+            this.referenceLines = Arrays.copyOf(this.referenceLines, capacity);
+            this.referenceExpressions = Arrays.copyOf(this.referenceExpressions, capacity);
+            this.referenceComments = Arrays.copyOf(this.referenceComments, capacity);
+        }
+    }
+
+    /**
+     * This method compares a stored source reference with the specified one like {@link SourceReference#compareTo(SourceReference)}.
+     *
+     * @param index      index of the stored source reference
+     * @param fileId     id of the file of the specified source reference
+     * @param line       line of the specified source reference
+     * @param expression expression of the specified source reference
+     *
+     * @return and integer representing the result of the comparison
+     */
+    private int compareReference(int index, int fileId, int line, TranslatableExpression expression)
+    {
+        int cmp = this.sourceReferenceTable.compare(this.referenceFiles[index], fileId);
+        if (cmp == 0)
+        {
+            cmp = Integer.compare(this.referenceLines[index], line);
+
+            if (cmp == 0)
+            {
+                return SourceReference.compareExpressions(this.referenceExpressions[index], expression);
+            }
+        }
+        return cmp;
+    }
+
+    /**
+     * This method searches the specified source reference within the sorted source references with a binary search.
+     * Source references which are added in the order of the source code are found at the end without a search.
+     *
+     * @param fileId     id of the file of the source reference
+     * @param line       line of the source reference
+     * @param expression expression of the source reference
+     *
+     * @return index of the source reference, if it's contained; otherwise (-(insertion point) - 1)
+     */
+    private int searchSourceReference(int fileId, int line, TranslatableExpression expression)
+    {
+        int low = 0;
+        int high = this.referenceCount - 1;
+        if (high >= 0 && this.compareReference(high, fileId, line, expression) < 0)
+        {
+            return -(this.referenceCount + 1);
+        }
+
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int cmp = this.compareReference(mid, fileId, line, expression);
+            if (cmp < 0)
+            {
+                low = mid + 1;
+            }
+            else if (cmp > 0)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
     /**
      * This method is used internal. It has to be overwritten if a subclass
      * overrides the {@link #compareTo(TranslatableMessage)} method.
@@ -180,7 +388,7 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
         }
 
         // compare singular
-        comp = this.singular.compareTo(o.singular);
+        comp = this.getSingular().compareTo(o.getSingular());
         if (comp != 0)
         {
             return comp;
@@ -191,7 +399,7 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
         {
             if (o.hasPlural())
             {
-                return this.plural.compareTo(o.plural);
+                return this.getPlural().compareTo(o.getPlural());
             }
             return 1;
         }
@@ -217,50 +425,12 @@ public class TranslatableMessage implements Comparable<TranslatableMessage>
 
         TranslatableMessage that = (TranslatableMessage) o;
 
-        // compare context
-        if (!this.hasContext())
-        {
-            if (that.hasContext())
-            {
-                return false;
-            }
-        }
-        else if (!this.getContext().equals(that.getContext()))
-        {
-            return false;
-        }
-
-        // compare singular
-        if (!this.getSingular().equals(that.getSingular()))
-        {
-            return false;
-        }
-
-        // compare plural
-        if (!this.hasPlural())
-        {
-            if (that.hasPlural())
-            {
-                return false;
-            }
-        }
-        else if (!this.getPlural().equals(that.getPlural()))
-        {
-            return false;
-        }
-
-        return true;
+        return this.getKey().equals(that.getKey());
     }
 
     @Override
     public int hashCode()
     {
-        int result = this.getSingular().hashCode();
-        result = 31 * result + (this.hasContext() ? this.getContext().hashCode() : 0);
-        result = 31 * result + (this.hasPlural() ? this.getPlural().hashCode() : 0);
-
-        result = 31 * result + this.getSourceReferences().hashCode();
-
-        return result;
+        return this.getKey().hashCode();
     }
 }
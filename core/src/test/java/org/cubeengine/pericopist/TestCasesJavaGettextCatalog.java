@@ -22,32 +22,69 @@
  */
 package org.cubeengine.pericopist;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 import org.apache.velocity.tools.ToolContext;
 import org.apache.velocity.tools.ToolManager;
 import org.cubeengine.pericopist.exception.PericopistException;
+import org.cubeengine.pericopist.extractor.bytecode.BytecodeExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.bytecode.BytecodeMessageExtractor;
+import org.cubeengine.pericopist.extractor.java.JavaMessageExtractor;
+import org.cubeengine.pericopist.extractor.java.SourceFilePrefilter;
+import org.cubeengine.pericopist.extractor.java.cache.ExtractionCache;
+import org.cubeengine.pericopist.extractor.java.configuration.CallableExpression;
 import org.cubeengine.pericopist.extractor.java.configuration.JavaExtractorConfiguration;
+import org.cubeengine.pericopist.extractor.java.converter.ConverterManager;
+import org.cubeengine.pericopist.extractor.java.converter.InvocationPolicy;
+import org.cubeengine.pericopist.extractor.java.converter.exception.ConversionException;
 import org.cubeengine.pericopist.format.CatalogConfiguration;
 import org.cubeengine.pericopist.format.CatalogFormat;
+import org.cubeengine.pericopist.format.HeaderConfiguration;
 import org.cubeengine.pericopist.format.HeaderConfiguration.MetadataEntry;
+import org.cubeengine.pericopist.format.gettext.BinaryGettextCatalogConfiguration;
+import org.cubeengine.pericopist.format.gettext.BinaryGettextCatalogFormat;
 import org.cubeengine.pericopist.format.gettext.GettextCatalogConfiguration;
 import org.cubeengine.pericopist.format.gettext.PlaintextGettextCatalogFormat;
 import org.cubeengine.pericopist.message.MessageStore;
+import org.cubeengine.pericopist.message.SourceReference;
 import org.cubeengine.pericopist.message.TranslatableMessage;
+import org.cubeengine.pericopist.test.ConstantTest;
 import org.cubeengine.pericopist.util.Misc;
+import org.fedorahosted.tennera.jgettext.Catalog;
+import org.fedorahosted.tennera.jgettext.Message;
+import org.fedorahosted.tennera.jgettext.PoParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.objectweb.asm.Opcodes;
+import spoon.Launcher;
+import spoon.reflect.code.BinaryOperatorKind;
+import spoon.reflect.code.CtExpression;
+import spoon.reflect.factory.Factory;
 
 import static org.junit.Assert.*;
 
 @RunWith(JUnit4.class)
 public class TestCasesJavaGettextCatalog
 {
+    private static volatile CountDownLatch invocationLatch = new CountDownLatch(0);
+
     private File targetCatalogFile;
     private File catalogFile;
     private Pericopist pericopist;
@@ -161,6 +198,141 @@ public class TestCasesJavaGettextCatalog
         assertTrue(this.catalogFile.delete());
     }
 
+    @Test
+    public void testGenerateBinaryCatalog() throws Exception
+    {
+        ToolContext toolContext = new ToolManager(true).createContext();
+        Pericopist binaryPericopist = new PericopistFactory().getPericopist("./src/test/resources/binaryCatalogConfiguration.xml", Charset.forName("UTF-8"), 5000, toolContext, null);
+
+        assertEquals(BinaryGettextCatalogFormat.class, binaryPericopist.getCatalogFormat().getClass());
+        assertEquals(BinaryGettextCatalogConfiguration.class, binaryPericopist.getCatalogConfiguration().getClass());
+
+        BinaryGettextCatalogConfiguration config = (BinaryGettextCatalogConfiguration) binaryPericopist.getCatalogConfiguration();
+        assertTrue(config.getHashTable());
+        assertEquals(2, config.getPluralAmount());
+
+        // 1. generate new catalog
+        binaryPericopist.generateCatalog();
+
+        // 2. read the binary catalog; it just contains the header because the messages aren't translated
+        Method readMethod = binaryPericopist.getClass().getDeclaredMethod("readCatalog");
+        readMethod.setAccessible(true);
+
+        MessageStore messageStore = (MessageStore) readMethod.invoke(binaryPericopist);
+        assertNotNull(messageStore);
+        assertEquals(1, messageStore.size());
+
+        // 3. delete catalog
+        assertTrue(config.getTemplateFile().delete());
+    }
+
+    @Test
+    public void testGenerateMultipleCatalogs() throws Exception
+    {
+        ToolContext toolContext = new ToolManager(true).createContext();
+        Pericopist multiPericopist = new PericopistFactory().getPericopist("./src/test/resources/multiCatalogConfiguration.xml", Charset.forName("UTF-8"), 5000, toolContext, null);
+
+        CatalogConfiguration[] configs = multiPericopist.getCatalogConfigurations();
+        assertEquals(2, configs.length);
+        assertEquals(GettextCatalogConfiguration.class, configs[0].getClass());
+        assertEquals(BinaryGettextCatalogConfiguration.class, configs[1].getClass());
+
+        // the first catalog inherits the settings of the parent catalog
+        assertEquals(2, ((GettextCatalogConfiguration) configs[0]).getPluralAmount());
+
+        // 1. extract the messages once and write both catalogs
+        multiPericopist.updateCatalog();
+        assertTrue(configs[0].getTemplateFile().exists());
+        assertTrue(configs[1].getTemplateFile().exists());
+
+        // 2. the plaintext catalog contains the extracted messages
+        Method readMethod = multiPericopist.getClass().getDeclaredMethod("readCatalog");
+        readMethod.setAccessible(true);
+
+        MessageStore messageStore = (MessageStore) readMethod.invoke(multiPericopist);
+        assertTrue(messageStore.size() > 1);
+
+        // 3. delete catalogs
+        assertTrue(configs[0].getTemplateFile().delete());
+        assertTrue(configs[1].getTemplateFile().delete());
+    }
+
+    @Test
+    public void testMergeParentCatalogConfigurations() throws Exception
+    {
+        ToolContext toolContext = new ToolManager(true).createContext();
+
+        // 1. the catalogs are merged with the parent catalogs of the same format, even if they are reordered
+        Pericopist reorderedPericopist = new PericopistFactory().getPericopist("./src/test/resources/reorderedCatalogConfiguration.xml", Charset.forName("UTF-8"), 5000, toolContext, null);
+
+        CatalogConfiguration[] configs = reorderedPericopist.getCatalogConfigurations();
+        assertEquals(2, configs.length);
+        assertEquals(BinaryGettextCatalogConfiguration.class, configs[0].getClass());
+        assertEquals(new File("./src/test/resources/reordered_messages.mo"), configs[0].getTemplateFile());
+        assertEquals(GettextCatalogConfiguration.class, configs[1].getClass());
+        assertNotNull(((GettextCatalogConfiguration) configs[1]).getHeaderConfiguration());
+
+        // 2. parent catalogs without a matching catalog are inherited
+        Pericopist inheritedPericopist = new PericopistFactory().getPericopist("./src/test/resources/inheritedCatalogConfiguration.xml", Charset.forName("UTF-8"), 5000, toolContext, null);
+
+        configs = inheritedPericopist.getCatalogConfigurations();
+        assertEquals(2, configs.length);
+        assertEquals(GettextCatalogConfiguration.class, configs[0].getClass());
+        assertEquals(new File("./src/test/resources/inherited_messages.pot"), configs[0].getTemplateFile());
+        assertNotNull(((GettextCatalogConfiguration) configs[0]).getHeaderConfiguration());
+        assertEquals(BinaryGettextCatalogConfiguration.class, configs[1].getClass());
+        assertEquals(new File("./src/test/resources/multi_messages.mo"), configs[1].getTemplateFile());
+    }
+
+    @Test
+    public void testMergeLocaleCatalogs() throws Exception
+    {
+        String header = "msgid \"\"\nmsgstr \"\"\n\"Plural-Forms: nplurals=2; plural=(n != 1);\\n\"\n\n";
+        String messages = "#: org/cubeengine/pericopist/test/ExtractCommentsTest.java:44\n"
+            + "msgid \"A message with an extracted comment above.\"\nmsgstr \"%s\"\n\n"
+            + "#: org/cubeengine/pericopist/test/ExtractCommentsTest.java:50\n"
+            + "msgid \"A renamed message with an extracted comment\"\nmsgstr \"%s\"\n";
+
+        File[] localeFiles = {File.createTempFile("de.", ".po"), File.createTempFile("fr.", ".po")};
+        String[] translations = {"Eine Nachricht", "Un message"};
+        for (int i = 0; i < localeFiles.length; i++)
+        {
+            Files.write(localeFiles[i].toPath(), (header + String.format(messages, translations[i], translations[i] + "!")).getBytes("UTF-8"));
+        }
+
+        GettextCatalogConfiguration config = (GettextCatalogConfiguration) this.pericopist.getCatalogConfiguration();
+        config.setLocaleFiles(localeFiles);
+        config.setMergeThreadCount(2);
+
+        // 1. generate new catalog and merge the locales
+        this.pericopist.generateCatalog();
+
+        // 2. check the catalogs of the locales
+        for (int i = 0; i < localeFiles.length; i++)
+        {
+            Catalog catalog = new PoParser().parseCatalog(localeFiles[i]);
+
+            Message message = catalog.locateMessage(null, "A message with an extracted comment above.");
+            assertNotNull(message);
+            assertEquals(translations[i], message.getMsgstr());
+            assertFalse(message.isFuzzy());
+
+            message = catalog.locateMessage(null, "A message with an extracted comment above and at the right");
+            assertNotNull(message);
+            assertEquals(translations[i] + "!", message.getMsgstr());
+            assertEquals("A renamed message with an extracted comment", message.getPrevMsgid());
+            assertTrue(message.isFuzzy());
+
+            assertNull(catalog.locateMessage(null, "A renamed message with an extracted comment"));
+            assertNotNull(catalog.locateMessage(null, "A message with an extracted comment above which is in a line with preceding java code."));
+
+            assertTrue(localeFiles[i].delete());
+        }
+
+        // 3. delete catalog
+        assertTrue(this.catalogFile.delete());
+    }
+
     @Test
     public void testUpdateCatalog() throws Exception
     {
@@ -220,6 +392,776 @@ public class TestCasesJavaGettextCatalog
         assertEquals(1, notTranslatableGettextMessageCount);
     }
 
+    @Test
+    public void testIncrementalExtraction() throws Exception
+    {
+        JavaExtractorConfiguration config = (JavaExtractorConfiguration) this.pericopist.getExtractorConfiguration();
+        File sourceDirectory = config.getDirectory();
+
+        MessageStore completeMessageStore = this.parseSourceCode(new MessageStore());
+
+        File cacheFile = new File("./target/extraction.cache");
+        if (cacheFile.exists())
+        {
+            assertTrue(cacheFile.delete());
+        }
+        config.setCacheFile(cacheFile);
+
+        try
+        {
+            this.assertIncrementalExtraction(config, cacheFile, completeMessageStore);
+        }
+        finally
+        {
+            config.setCacheFile(null);
+            config.setDirectory(sourceDirectory);
+            deleteDirectory(new File("./target/incremental-sources"));
+            cacheFile.delete();
+        }
+    }
+
+    private void assertIncrementalExtraction(JavaExtractorConfiguration config, File cacheFile, MessageStore completeMessageStore) throws Exception
+    {
+        // 1. parses every source file and creates the cache
+        MessageStore firstMessageStore = this.parseSourceCode(new MessageStore());
+        assertTrue(cacheFile.exists());
+
+        // 2. restores every message from the cache without writing the unchanged cache again
+        long lastModified = cacheFile.lastModified() - 60000;
+        assertTrue(cacheFile.setLastModified(lastModified));
+        MessageStore secondMessageStore = this.parseSourceCode(new MessageStore());
+        assertEquals(lastModified, cacheFile.lastModified());
+
+        this.assertExtractedMessagesEquals(completeMessageStore, firstMessageStore);
+        this.assertExtractedMessagesEquals(completeMessageStore, secondMessageStore);
+
+        assertTrue(cacheFile.delete());
+
+        // 3. parses changed, added and deleted source files and the source files using their constants
+        File directory = new File("./target/incremental-sources");
+        deleteDirectory(directory);
+
+        File packageDirectory = new File(directory, "org/example");
+        assertTrue(packageDirectory.mkdirs());
+
+        config.setDirectory(directory);
+
+        JavaMessageExtractor extractor = new JavaMessageExtractor();
+        extractor.setLogger(Logger.getLogger("pericopist"));
+
+        writeSourceFile(packageDirectory, "Constants", "public static final String GREETING = \"Hello\";");
+        writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(Constants.GREETING + \" world\"); }");
+        writeSourceFile(packageDirectory, "Other", "void send(User user) { user.sendTranslated(\"other message\"); }");
+        MessageStore messageStore = this.extractIncrementally(extractor, config, cacheFile);
+        assertNotNull(messageStore.getMessage(null, "Hello world", null));
+        assertNotNull(messageStore.getMessage(null, "other message", null));
+
+        // changed source file whose constant is used by another source file
+        writeSourceFile(packageDirectory, "Constants", "public static final String GREETING = \"Hi\";");
+        messageStore = this.extractIncrementally(extractor, config, cacheFile);
+        assertNull(messageStore.getMessage(null, "Hello world", null));
+        assertNotNull(messageStore.getMessage(null, "Hi world", null));
+
+        // source files invoking methods and constructors of a changed source file
+        writeSourceFile(packageDirectory, "Helper", "public static String format(String message) { return message; }");
+        writeSourceFile(packageDirectory, "Invoker", "void send(User user) { user.sendTranslated(Helper.format(\"invoked\")); }");
+        writeSourceFile(packageDirectory, "Creator", "Object helper = new Helper();");
+        this.extractIncrementally(extractor, config, cacheFile);
+
+        ExtractionCache cache = ExtractionCache.load(cacheFile, config);
+        Set<String> dependents = cache.findDependentSourceFiles(Collections.singleton(new File("org/example/Helper.java").getPath()));
+        assertTrue(dependents.contains(new File("org/example/Invoker.java").getPath()));
+        assertTrue(dependents.contains(new File("org/example/Creator.java").getPath()));
+        assertFalse(dependents.contains(new File("org/example/Other.java").getPath()));
+
+        // added source file
+        writeSourceFile(packageDirectory, "Added", "void send(User user) { user.sendTranslated(\"added message\"); }");
+        messageStore = this.extractIncrementally(extractor, config, cacheFile);
+        assertNotNull(messageStore.getMessage(null, "added message", null));
+
+        // deleted source file
+        assertTrue(new File(packageDirectory, "Other.java").delete());
+        messageStore = this.extractIncrementally(extractor, config, cacheFile);
+        assertNull(messageStore.getMessage(null, "other message", null));
+        assertNotNull(messageStore.getMessage(null, "added message", null));
+        assertNotNull(messageStore.getMessage(null, "Hi world", null));
+    }
+
+    private MessageStore extractIncrementally(JavaMessageExtractor extractor, JavaExtractorConfiguration config, File cacheFile) throws Exception
+    {
+        config.setCacheFile(null);
+        JavaMessageExtractor completeExtractor = new JavaMessageExtractor();
+        completeExtractor.setLogger(Logger.getLogger("pericopist"));
+        MessageStore completeMessageStore = completeExtractor.extract(config, new MessageStore());
+
+        config.setCacheFile(cacheFile);
+        MessageStore incrementalMessageStore = extractor.extract(config, new MessageStore());
+
+        this.assertExtractedMessagesEquals(completeMessageStore, incrementalMessageStore);
+        return incrementalMessageStore;
+    }
+
+    private File prepareSourceDirectory(String name)
+    {
+        File directory = new File("./target/" + name + "-sources");
+        deleteDirectory(directory);
+
+        File packageDirectory = new File(directory, "org/example");
+        assertTrue(packageDirectory.mkdirs());
+
+        File templateFile = new File("./target/" + name + "_messages.pot");
+        templateFile.delete();
+
+        ((JavaExtractorConfiguration) this.pericopist.getExtractorConfiguration()).setDirectory(directory);
+        ((GettextCatalogConfiguration) this.pericopist.getCatalogConfiguration()).setTemplateFile(templateFile);
+
+        return packageDirectory;
+    }
+
+    private static void deleteDirectory(File directory)
+    {
+        File[] files = directory.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                deleteDirectory(file);
+            }
+        }
+        directory.delete();
+    }
+
+    private static void writeSourceFile(File packageDirectory, String className, String body) throws Exception
+    {
+        String source = "package org.example;\n\nimport org.cubeengine.pericopist.test.command.User;\n\npublic class " + className + "\n{\n    " + body + "\n}\n";
+        Files.write(new File(packageDirectory, className + ".java").toPath(), source.getBytes("UTF-8"));
+    }
+
+    @Test
+    public void testPreviousMessageOfMovedReferences() throws Exception
+    {
+        File packageDirectory = this.prepareSourceDirectory("previous");
+        File templateFile = this.pericopist.getCatalogConfiguration().getTemplateFile();
+
+        writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(\"translated message\"); }");
+        this.pericopist.updateCatalog();
+
+        String content = new String(Files.readAllBytes(templateFile.toPath()), "UTF-8");
+        content = content.replace("msgid \"translated message\"\nmsgstr \"\"", "msgid \"translated message\"\nmsgstr \"translation\"");
+        Files.write(templateFile.toPath(), content.getBytes("UTF-8"));
+
+        // 1. the renamed message takes over the translation of the message with the same reference
+        writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(\"renamed message\"); }");
+        this.pericopist.updateCatalog();
+
+        Catalog catalog = new PoParser().parseCatalog(templateFile);
+        assertNull(catalog.locateMessage(null, "translated message"));
+        Message message = catalog.locateMessage(null, "renamed message");
+        assertEquals("translated message", message.getPrevMsgid());
+        assertEquals("translation", message.getMsgstr());
+        assertTrue(message.isFuzzy());
+
+        // 2. the message moves to another line and a new message takes over its old reference
+        writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(\"new message\"); }\n    void sendAgain(User user) { user.sendTranslated(\"renamed message\"); }");
+        this.pericopist.updateCatalog();
+
+        catalog = new PoParser().parseCatalog(templateFile);
+        message = catalog.locateMessage(null, "renamed message");
+        assertEquals(Collections.singletonList("org/example/Messages.java:8"), message.getSourceReferences());
+        assertEquals("translation", message.getMsgstr());
+
+        message = catalog.locateMessage(null, "new message");
+        assertEquals(Collections.singletonList("org/example/Messages.java:7"), message.getSourceReferences());
+        assertEquals("renamed message", message.getPrevMsgid());
+        assertEquals("translation", message.getMsgstr());
+        assertTrue(message.isFuzzy());
+
+        // 3. a reference which is still used by its message isn't matched
+        writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(\"new message\"); user.sendTranslated(\"another message\"); }\n    void sendAgain(User user) { user.sendTranslated(\"renamed message\"); }");
+        this.pericopist.updateCatalog();
+
+        catalog = new PoParser().parseCatalog(templateFile);
+        message = catalog.locateMessage(null, "another message");
+        assertNull(message.getPrevMsgid());
+        assertEquals("", message.getMsgstr());
+        assertFalse(message.isFuzzy());
+
+        templateFile.delete();
+        deleteDirectory(packageDirectory.getParentFile().getParentFile());
+    }
+
+    @Test
+    public void testGroupedExtractedComments() throws Exception
+    {
+        File packageDirectory = this.prepareSourceDirectory("grouped");
+        File templateFile = this.pericopist.getCatalogConfiguration().getTemplateFile();
+
+        String method = "void send(User user)\n    {\n        user.sendTranslated(\"grouped message\");\n        user.sendTranslated(\"grouped message\");\n        /// a hint for the translator\n        user.sendTranslated(\"grouped message\");\n";
+        writeSourceFile(packageDirectory, "Messages", method + "    }");
+        this.pericopist.updateCatalog();
+
+        // the source references with the same expression and comments are combined
+        Message message = new PoParser().parseCatalog(templateFile).locateMessage(null, "grouped message");
+        assertEquals(Arrays.asList("1, 2. Method", "3. Method"), getExtractedCommentGroups(message));
+        assertTrue(message.getExtractedComments().contains("\t- a hint for the translator"));
+
+        // a new source reference joins its group
+        writeSourceFile(packageDirectory, "Messages", method + "        user.sendTranslated(\"grouped message\");\n    }");
+        this.pericopist.updateCatalog();
+
+        message = new PoParser().parseCatalog(templateFile).locateMessage(null, "grouped message");
+        assertEquals(Arrays.asList("1, 2, 4. Method", "3. Method"), getExtractedCommentGroups(message));
+
+        templateFile.delete();
+        deleteDirectory(packageDirectory.getParentFile().getParentFile());
+    }
+
+    private static List<String> getExtractedCommentGroups(Message message)
+    {
+        List<String> groups = new ArrayList<>();
+        for (String extractedComment : message.getExtractedComments())
+        {
+            if (!extractedComment.isEmpty() && Character.isDigit(extractedComment.charAt(0)))
+            {
+                groups.add(extractedComment);
+            }
+        }
+        return groups;
+    }
+
+    @Test
+    public void testReadDuplicateMessages() throws Exception
+    {
+        Charset charset = Charset.forName("UTF-8");
+        String catalog = "msgid \"\"\nmsgstr \"Project-Id-Version: first\\n\"\n\n"
+                + "msgid \"first\"\nmsgstr \"\"\n\n"
+                + "msgid \"second\"\nmsgstr \"\"\n\n"
+                + "msgid \"first\"\nmsgid_plural \"firsts\"\nmsgstr[0] \"\"\nmsgstr[1] \"\"\n\n"
+                + "msgid \"\"\nmsgstr \"Project-Id-Version: second\\n\"\n";
+
+        PlaintextGettextCatalogFormat format = new PlaintextGettextCatalogFormat();
+        format.setLogger(Logger.getLogger("testReadDuplicateMessages"));
+
+        MessageStore messageStore = format.read(this.pericopist.getCatalogConfiguration(), new ByteArrayInputStream(catalog.getBytes(charset)));
+        assertEquals(3, messageStore.size());
+        assertNull(messageStore.getMessage(null, "first", null));
+
+        Iterator<TranslatableMessage> iterator = messageStore.iterator();
+        assertEquals("HEADER_MESSAGE", iterator.next().getSingular());
+
+        TranslatableMessage first = iterator.next();
+        assertEquals("first", first.getSingular());
+        assertEquals("firsts", first.getPlural());
+        assertEquals("second", iterator.next().getSingular());
+    }
+
+    @Test
+    public void testUnchangedCatalogIsKept() throws Exception
+    {
+        File packageDirectory = this.prepareSourceDirectory("kept");
+        File templateFile = this.pericopist.getCatalogConfiguration().getTemplateFile();
+
+        // the variable creation date would change the catalog every second
+        HeaderConfiguration headerConfiguration = ((GettextCatalogConfiguration) this.pericopist.getCatalogConfiguration()).getHeaderConfiguration();
+        List<MetadataEntry> metadata = new ArrayList<>();
+        for (MetadataEntry entry : headerConfiguration.getMetadata())
+        {
+            if (!entry.isVariable())
+            {
+                metadata.add(entry);
+            }
+        }
+        headerConfiguration.setMetadata(metadata.toArray(new MetadataEntry[metadata.size()]));
+
+        try
+        {
+            writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(\"kept message\"); }");
+            this.pericopist.generateCatalog();
+            assertTrue(templateFile.exists());
+
+            // 1. the unchanged catalog keeps its modification time
+            long lastModified = templateFile.lastModified() - 60000;
+            assertTrue(templateFile.setLastModified(lastModified));
+            this.pericopist.generateCatalog();
+            assertEquals(lastModified, templateFile.lastModified());
+            this.pericopist.updateCatalog();
+            assertEquals(lastModified, templateFile.lastModified());
+
+            // 2. a catalog with the same size but another content is replaced
+            writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(\"kept Message\"); }");
+            this.pericopist.generateCatalog();
+            assertNotEquals(lastModified, templateFile.lastModified());
+            assertTrue(new String(Files.readAllBytes(templateFile.toPath()), "UTF-8").contains("msgid \"kept Message\""));
+        }
+        finally
+        {
+            deleteDirectory(new File("./target/kept-sources"));
+            templateFile.delete();
+        }
+    }
+
+    @Test
+    public void testSourceReferences() throws Exception
+    {
+        MessageStore messageStore = new MessageStore();
+        TranslatableMessage message = messageStore.getOrCreateMessage(null, "message", null);
+        TranslatableMessage otherMessage = messageStore.getOrCreateMessage(null, "other message", null);
+
+        SourceReference second = new SourceReference(new File("b/Second.java"), 3, null);
+        second.addExtractedComment("comment");
+        messageStore.addSourceReference(message, second);
+        messageStore.addSourceReference(message, new File("A/First.java"), 7, null, Collections.<String>emptyList());
+        messageStore.addSourceReference(message, new File("b/Second.java"), 3, null, Collections.singletonList("duplicate"));
+        messageStore.addSourceReference(otherMessage, new File("b/Second.java"), 5, null, new ArrayList<>(Collections.singletonList("comment")));
+
+        // the references are sorted and the first one of equal references is kept
+        SortedSet<SourceReference> sourceReferences = message.getSourceReferences();
+        assertEquals(2, sourceReferences.size());
+        assertEquals(new File("A/First.java"), sourceReferences.first().getFile());
+        assertEquals(second, sourceReferences.last());
+        assertTrue(sourceReferences.contains(new SourceReference(new File("b/Second.java"), 3, null)));
+
+        // the comments are copied and equal lists of comments are shared
+        second.addExtractedComment("later comment");
+        assertEquals(Collections.singletonList("comment"), message.getSourceReferences().last().getExtractedComments());
+        assertSame(sourceReferences.last().getExtractedComments(), otherMessage.getSourceReferences().first().getExtractedComments());
+
+        // the snapshot is reused until a reference is added and can't be modified
+        assertSame(sourceReferences, message.getSourceReferences());
+        try
+        {
+            sourceReferences.add(new SourceReference(new File("c/Third.java"), 1, null));
+            fail("The source references can be modified.");
+        }
+        catch (UnsupportedOperationException ignored)
+        {
+        }
+        try
+        {
+            sourceReferences.first().addExtractedComment("comment");
+            fail("The extracted comments can be modified.");
+        }
+        catch (UnsupportedOperationException ignored)
+        {
+        }
+
+        messageStore.addSourceReference(message, new File("c/Third.java"), 1, null, Collections.<String>emptyList());
+        assertNotSame(sourceReferences, message.getSourceReferences());
+        assertEquals(3, message.getSourceReferences().size());
+        assertEquals(2, sourceReferences.size());
+    }
+
+    @Test
+    public void testWatchSourceDirectory() throws Exception
+    {
+        File packageDirectory = this.prepareSourceDirectory("watched");
+        File templateFile = this.pericopist.getCatalogConfiguration().getTemplateFile();
+        writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(\"first watched message\"); }");
+
+        final PericopistWatcher watcher = new PericopistWatcher(this.pericopist, Logger.getLogger("pericopist"), 100);
+        final Exception[] exception = new Exception[1];
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    watcher.watch();
+                }
+                catch (Exception e)
+                {
+                    exception[0] = e;
+                }
+            }
+        });
+        thread.start();
+
+        try
+        {
+            assertTrue(watcher.awaitWatching(60, TimeUnit.SECONDS));
+            assertTrue(awaitTemplateContent(templateFile, "first watched message", 0));
+
+            // the watcher parses the changed source file and rewrites the template
+            writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(\"second watched message\"); }");
+            assertTrue(awaitTemplateContent(templateFile, "second watched message", 30000));
+
+            String content = new String(Files.readAllBytes(templateFile.toPath()), "UTF-8");
+            assertFalse(content.contains("\nmsgid \"first watched message\""));
+            assertTrue(content.contains("#| msgid \"first watched message\""));
+        }
+        finally
+        {
+            watcher.close();
+            thread.join(10000);
+        }
+
+        assertNull(exception[0]);
+        assertFalse(thread.isAlive());
+
+        templateFile.delete();
+        deleteDirectory(packageDirectory.getParentFile().getParentFile());
+    }
+
+    private static boolean awaitTemplateContent(File templateFile, String message, long timeout) throws Exception
+    {
+        long end = System.currentTimeMillis() + timeout;
+        while (true)
+        {
+            if (templateFile.exists() && new String(Files.readAllBytes(templateFile.toPath()), "UTF-8").contains("\"" + message + "\""))
+            {
+                return true;
+            }
+            if (System.currentTimeMillis() >= end)
+            {
+                return false;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    public void testParallelExtraction() throws Exception
+    {
+        JavaExtractorConfiguration config = (JavaExtractorConfiguration) this.pericopist.getExtractorConfiguration();
+        int threadCount = config.getThreadCount();
+
+        MessageStore completeMessageStore = this.parseSourceCode(new MessageStore());
+
+        config.setThreadCount(4);
+        try
+        {
+            MessageStore parallelMessageStore = this.parseSourceCode(new MessageStore());
+            this.assertExtractedMessagesEquals(completeMessageStore, parallelMessageStore);
+        }
+        finally
+        {
+            config.setThreadCount(threadCount);
+        }
+    }
+
+    @Test
+    public void testPrefilteredExtraction() throws Exception
+    {
+        JavaExtractorConfiguration config = (JavaExtractorConfiguration) this.pericopist.getExtractorConfiguration();
+        boolean prefilter = config.getPrefilter();
+
+        MessageStore completeMessageStore = this.parseSourceCode(new MessageStore());
+
+        // the prefilter has to skip some of the source files, e.g. the source file of this test
+        List<File> sourceFiles = new ArrayList<>();
+        collectSourceFiles(config.getDirectory(), sourceFiles);
+        List<File> candidates = new SourceFilePrefilter(config).filter(sourceFiles);
+        assertTrue(candidates.size() < sourceFiles.size());
+        assertFalse(candidates.contains(new File(config.getDirectory(), "org/cubeengine/pericopist/MiscTest.java")));
+
+        config.setPrefilter(true);
+        try
+        {
+            MessageStore prefilteredMessageStore = this.parseSourceCode(new MessageStore());
+            this.assertExtractedMessagesEquals(completeMessageStore, prefilteredMessageStore);
+        }
+        finally
+        {
+            config.setPrefilter(prefilter);
+        }
+    }
+
+    @Test
+    public void testBytecodeExtraction() throws Exception
+    {
+        JavaExtractorConfiguration javaConfig = (JavaExtractorConfiguration) this.pericopist.getExtractorConfiguration();
+
+        MessageStore sourceMessageStore = this.parseSourceCode(new MessageStore());
+
+        BytecodeExtractorConfiguration config = new BytecodeExtractorConfiguration();
+        config.setDirectory(new File("./target/test-classes"));
+        config.setCharset(javaConfig.getCharset());
+        config.setJavaExpressions(javaConfig.getJavaExpressions());
+
+        BytecodeMessageExtractor extractor = new BytecodeMessageExtractor();
+        extractor.setLogger(Logger.getLogger("pericopist"));
+        MessageStore bytecodeMessageStore = extractor.extract(config, new MessageStore());
+
+        assertNotNull(bytecodeMessageStore.getMessage(null, "I was extracted from a package annotation.", null));
+        assertNotNull(bytecodeMessageStore.getMessage(null, "extracted from an annotation with a parameter target", null));
+
+        // class files don't contain the lines of annotations, but the lines of invocations
+        for (TranslatableMessage message : bytecodeMessageStore)
+        {
+            TranslatableMessage sourceMessage = sourceMessageStore.getMessage(message.getContext(), message.getSingular(), message.getPlural());
+            assertNotNull(sourceMessage);
+
+            for (SourceReference sourceReference : message.getSourceReferences())
+            {
+                if (!(sourceReference.getExpression() instanceof CallableExpression))
+                {
+                    continue;
+                }
+
+                boolean found = false;
+                for (SourceReference sourceMessageReference : sourceMessage.getSourceReferences())
+                {
+                    found |= sourceMessageReference.getPath().equals(sourceReference.getPath()) && sourceMessageReference.getLine() == sourceReference.getLine();
+                }
+                assertTrue(sourceReference.toString(), found);
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluateSourceConstant() throws Exception
+    {
+        File packageDirectory = this.prepareSourceDirectory("constants");
+
+        // the class isn't within the classpath and its static initializer fails if it's loaded anyway
+        writeSourceFile(packageDirectory, "Constants", "static final String GREETING = \"initialized \" + \"from source\";\n"
+                + "    static final int ANSWER = 2 * 21;\n"
+                + "    static { if (GREETING != null) { throw new IllegalStateException(\"loaded\"); } }");
+        writeSourceFile(packageDirectory, "Messages", "void send(User user) { user.sendTranslated(Constants.GREETING + \" \" + Constants.ANSWER); }");
+
+        MessageStore messageStore = this.parseSourceCode(new MessageStore());
+        assertEquals(1, messageStore.size());
+        assertNotNull(messageStore.getMessage(null, "initialized from source 42", null));
+    }
+
+    @Test
+    public void testReadConstantValue() throws Exception
+    {
+        ConverterManager converterManager = new ConverterManager(false);
+        converterManager.setClasspath(System.getProperty(Misc.JAVA_CLASS_PATH).split(File.pathSeparator));
+
+        // class file within a directory and a jar file
+        assertEquals("java.class.path", converterManager.getConstantValue(Misc.class.getName(), "JAVA_CLASS_PATH"));
+        assertEquals(Opcodes.ACC_STATIC, converterManager.getConstantValue(Opcodes.class.getName(), "ACC_STATIC"));
+
+        // fields without a ConstantValue attribute and unknown classes
+        assertNull(converterManager.getConstantValue(ConstantTest.class.getName(), "WORKING_DIR"));
+        assertNull(converterManager.getConstantValue("org.cubeengine.pericopist.Unknown", "CONSTANT"));
+
+        // broken jar files are skipped
+        File brokenJar = new File("./target/broken.jar");
+        Files.write(brokenJar.toPath(), "no zip file".getBytes(Charset.forName("UTF-8")));
+
+        List<String> classpath = new ArrayList<>();
+        classpath.add(brokenJar.getPath());
+        classpath.addAll(Arrays.asList(System.getProperty(Misc.JAVA_CLASS_PATH).split(File.pathSeparator)));
+        converterManager.setClasspath(classpath.toArray(new String[classpath.size()]));
+
+        assertEquals(Opcodes.ACC_STATIC, converterManager.getConstantValue(Opcodes.class.getName(), "ACC_STATIC"));
+        assertEquals("java.class.path", converterManager.getConstantValue(Misc.class.getName(), "JAVA_CLASS_PATH"));
+        assertTrue(brokenJar.delete());
+    }
+
+    @Test
+    public void testConversionCache() throws Exception
+    {
+        Factory factory = new Launcher().getFactory();
+        CtExpression<String> expression = factory.Code().createBinaryOperator(factory.Code().createLiteral("cached "), factory.Code().createLiteral("message"), BinaryOperatorKind.PLUS);
+
+        ConverterManager converterManager = new ConverterManager(true, 16);
+        String[] strings = converterManager.convertToStringArray(expression);
+        assertArrayEquals(new String[]{"cached message"}, strings);
+        assertEquals(0, converterManager.getCacheHits());
+        assertEquals(1, converterManager.getCacheMisses());
+
+        // cached arrays are copied before they're returned
+        strings[0] = "modified";
+        ((Object[]) converterManager.convert(expression))[0] = "modified";
+        assertArrayEquals(new String[]{"cached message"}, converterManager.convertToStringArray(expression));
+        assertEquals(2, converterManager.getCacheHits());
+
+        converterManager.clearCache();
+        assertEquals(0, converterManager.getCacheHits());
+        assertArrayEquals(new String[]{"cached message"}, converterManager.convertToStringArray(expression));
+        assertEquals(1, converterManager.getCacheMisses());
+
+        // the partial results of nested expressions aren't cached
+        CtExpression<String> nestedExpression = factory.Code().createBinaryOperator(expression, factory.Code().createLiteral("!"), BinaryOperatorKind.PLUS);
+        assertArrayEquals(new String[]{"cached message!"}, converterManager.convertToStringArray(nestedExpression));
+        assertEquals(0, converterManager.getCacheHits());
+        assertEquals(2, converterManager.getCacheMisses());
+    }
+
+    @Test
+    public void testInvocationPolicy() throws Exception
+    {
+        Method toUpperCase = String.class.getMethod("toUpperCase");
+        Method await = this.getClass().getDeclaredMethod("await", boolean.class);
+        await.setAccessible(true);
+
+        InvocationPolicy policy = new InvocationPolicy(new String[0], false, 1000, 3);
+        InvocationPolicy purePolicy = new InvocationPolicy(new String[0], true, 0, 0);
+        InvocationPolicy allowedPolicy = new InvocationPolicy(new String[]{this.getClass().getName() + "#await"}, true, 0, 0);
+        try
+        {
+            // pure methods are invoked once for every distinct call
+            assertEquals("MESSAGE", policy.invoke(null, null, toUpperCase, "message", new Object[0]));
+            assertEquals("MESSAGE", policy.invoke(null, null, toUpperCase, "message", new Object[0]));
+            assertEquals(1, policy.getInvocationCount());
+
+            // a method exceeding the timeout isn't invoked again
+            invocationLatch = new CountDownLatch(1);
+            this.assertInvocationRejected(policy, await, true);
+            this.assertInvocationRejected(policy, await, false);
+            assertEquals(2, policy.getInvocationCount());
+            invocationLatch.countDown();
+
+            // the budget is exhausted after the third invocation
+            assertEquals("OTHER", policy.invoke(null, null, toUpperCase, "other", new Object[0]));
+            try
+            {
+                policy.invoke(null, null, toUpperCase, "last", new Object[0]);
+                fail("The budget of the invocation policy wasn't respected.");
+            }
+            catch (ConversionException ignored)
+            {
+            }
+            assertEquals(3, policy.getInvocationCount());
+
+            // just pure methods are invoked
+            this.assertInvocationRejected(purePolicy, await, true);
+            assertEquals("released", allowedPolicy.invoke(null, null, await, null, new Object[]{true}));
+        }
+        finally
+        {
+            policy.shutdown();
+            purePolicy.shutdown();
+            allowedPolicy.shutdown();
+        }
+
+        final List<String> warnings = Collections.synchronizedList(new ArrayList<String>());
+        Logger logger = Logger.getLogger("testInvocationPolicy");
+        logger.addHandler(new Handler()
+        {
+            @Override
+            public void publish(LogRecord record)
+            {
+                warnings.add(record.getMessage());
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        });
+
+        // methods which aren't pure are reported once and invoked once for every distinct call
+        InvocationPolicy impurePolicy = new InvocationPolicy(new String[0], false, 1000, 0, logger);
+        try
+        {
+            assertEquals("released", impurePolicy.invoke(null, null, await, null, new Object[]{true}));
+            assertEquals("released", impurePolicy.invoke(null, null, await, null, new Object[]{true}));
+            assertEquals(1, impurePolicy.getInvocationCount());
+            assertEquals(1, warnings.size());
+
+            // worker threads which ignore the interruption are reported when the policy is shut down
+            invocationLatch = new CountDownLatch(1);
+            this.assertInvocationRejected(impurePolicy, await, false);
+
+            impurePolicy.shutdown();
+            assertEquals(2, warnings.size());
+            assertTrue(warnings.get(1), warnings.get(1).contains(await.toString()));
+            this.assertInvocationRejected(impurePolicy, toUpperCase);
+        }
+        finally
+        {
+            invocationLatch.countDown();
+            impurePolicy.shutdown();
+        }
+    }
+
+    private void assertInvocationRejected(InvocationPolicy policy, Method method, Object... arguments)
+    {
+        try
+        {
+            policy.invoke(null, null, method, null, arguments);
+            fail("The invocation of the method " + method.getName() + " wasn't rejected.");
+        }
+        catch (ConversionException ignored)
+        {
+        }
+    }
+
+    private static String await(boolean interruptible) throws InterruptedException
+    {
+        if (interruptible)
+        {
+            invocationLatch.await();
+            return "released";
+        }
+
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                invocationLatch.await();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return "released";
+    }
+
+    private MessageStore parseSourceCode(MessageStore messageStore) throws Exception
+    {
+        Method parseSourceCode = this.pericopist.getClass().getDeclaredMethod("parseSourceCode", MessageStore.class);
+        parseSourceCode.setAccessible(true);
+
+        return (MessageStore) parseSourceCode.invoke(this.pericopist, messageStore);
+    }
+
+    private static void collectSourceFiles(File directory, List<File> sourceFiles)
+    {
+        File[] files = directory.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                collectSourceFiles(file, sourceFiles);
+            }
+            else if (file.getName().endsWith(".java"))
+            {
+                sourceFiles.add(file);
+            }
+        }
+    }
+
+    private void assertExtractedMessagesEquals(MessageStore expected, MessageStore actual)
+    {
+        assertEquals(expected.size(), actual.size());
+
+        Iterator<TranslatableMessage> expectedMessages = expected.iterator();
+        Iterator<TranslatableMessage> actualMessages = actual.iterator();
+
+        while (expectedMessages.hasNext())
+        {
+            TranslatableMessage expectedMessage = expectedMessages.next();
+            TranslatableMessage actualMessage = actualMessages.next();
+
+            assertEquals(expectedMessage, actualMessage);
+            assertEquals(new ArrayList<>(expectedMessage.getSourceReferences()), new ArrayList<>(actualMessage.getSourceReferences()));
+        }
+    }
+
     @Test
     public void generatePericopistWithOnlineConfigAndRedirect() throws PericopistException
     {
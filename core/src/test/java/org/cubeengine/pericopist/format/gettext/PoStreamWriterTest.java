@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ * Copyright © 2013 Cube Island
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cubeengine.pericopist.format.gettext;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import org.fedorahosted.tennera.jgettext.Catalog;
+import org.fedorahosted.tennera.jgettext.Message;
+import org.fedorahosted.tennera.jgettext.PoWriter;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PoStreamWriterTest
+{
+    @Test
+    public void writesLikePoWriterTest() throws Exception
+    {
+        Charset charset = Charset.forName("UTF-8");
+        Catalog catalog = new Catalog(true);
+
+        Message header = new Message();
+        header.setMsgid("");
+        header.setMsgstr("Project-Id-Version: PACKAGE VERSION\nContent-Type: text/plain; charset=UTF-8\n");
+        header.addComment("header comment");
+        header.markFuzzy();
+        catalog.addMessage(header);
+
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 30; i++)
+        {
+            longText.append("word").append(i).append(' ');
+        }
+
+        Message longMessage = new Message();
+        longMessage.setMsgid(longText.toString());
+        longMessage.setMsgstr(longText.toString().toUpperCase());
+        longMessage.addExtractedComment("Extracted by:");
+        longMessage.addExtractedComment("\tName: a very long name of the expression which extracted the message from the source code");
+        longMessage.addSourceReference("org/example/Messages.java", 7);
+        longMessage.addSourceReference("org/example/Other.java", 12);
+        catalog.addMessage(longMessage);
+
+        Message multilineMessage = new Message();
+        multilineMessage.setMsgctxt("context");
+        multilineMessage.setMsgid("first line\nsecond line\n" + longText + "\nlast line");
+        multilineMessage.setMsgidPlural("first lines\nsecond lines");
+        multilineMessage.addMsgstrPlural("", 0);
+        multilineMessage.addMsgstrPlural("second\ntranslation", 1);
+        multilineMessage.setPrevMsgid("previous\nmessage");
+        multilineMessage.addFormat("java-format");
+        multilineMessage.markFuzzy();
+        catalog.addMessage(multilineMessage);
+
+        Message escapedMessage = new Message();
+        escapedMessage.setMsgid("a \"quoted\" message with a\ttab, a back\\slash and a \r return");
+        escapedMessage.setMsgstr("\u00fcbersetzt \"quoted\"");
+        escapedMessage.addComment("translator comment");
+        catalog.addMessage(escapedMessage);
+
+        Message obsoleteMessage = new Message();
+        obsoleteMessage.setMsgid("obsolete message");
+        obsoleteMessage.setMsgstr("obsolete translation");
+        obsoleteMessage.markObsolete();
+        catalog.addMessage(obsoleteMessage);
+
+        Message unwrappedMessage = new Message();
+        unwrappedMessage.setMsgid(longText.toString());
+        unwrappedMessage.setMsgctxt("unwrapped");
+        unwrappedMessage.setMsgstr("");
+        unwrappedMessage.setAllowWrap(false);
+        catalog.addMessage(unwrappedMessage);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new PoWriter(true).write(catalog, expected, charset);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        PoStreamWriter writer = new PoStreamWriter(actual, charset);
+        writer.writeHeader(header);
+        for (Message message : catalog)
+        {
+            writer.write(message);
+        }
+        writer.flush();
+
+        assertEquals(new String(expected.toByteArray(), charset), new String(actual.toByteArray(), charset));
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+}
@@ -44,5 +44,8 @@ public class ConstantTest
         i18n.translate("extracted with an enum constant: " + TranslatableEnum.FIRST);
 
         i18n.translate("extracted with a file constant: " + WORKING_DIR);
+        i18n.translate("extracted with a char constant: " + FIRST_LETTER);
     }
+
+    private static final char FIRST_LETTER = 65;
 }